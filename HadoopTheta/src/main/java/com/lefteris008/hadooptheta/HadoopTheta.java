@@ -1,30 +1,57 @@
 package com.lefteris008.hadooptheta;
 
+import com.lefteris008.hadooptheta.broadcast.BroadcastThetaJoin;
 import com.lefteris008.hadooptheta.countphase.CounterMap;
 import com.lefteris008.hadooptheta.countphase.CounterReduce;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateCombine;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateReduce;
+import com.lefteris008.hadooptheta.incremental.IncrementalThetaJoin;
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.RegionTupleKey;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.io.ThetaJoinInputFormat;
+import com.lefteris008.hadooptheta.local.LocalThetaJoin;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinCombine;
 import com.lefteris008.hadooptheta.thetaphase.ThetaJoinReduce;
 import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap;
+import com.lefteris008.hadooptheta.partitioner.MBucketPartitioning;
 import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
-import java.io.FileOutputStream;
+import com.lefteris008.hadooptheta.partitioner.PlanSimulator;
+import com.lefteris008.hadooptheta.partitioner.RegionPartitioner;
+import com.lefteris008.hadooptheta.partitioner.TuplePlacement;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.report.RegionMetrics;
+import com.lefteris008.hadooptheta.report.RunReport;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import com.lefteris008.hadooptheta.statsphase.StatisticsMap.StatisticsCounter;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap.MapCounter;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
 
 /**
  * 
  * @author  Lefteris Paraskevas
  * @author  Alexandros Tzanakas
- * @version 2016.05.13_2359
+ * @version 2026.10.17_2330
  */
 public class HadoopTheta {
 	
@@ -32,86 +59,220 @@ public class HadoopTheta {
             InterruptedException {
 
         //Initialize time
-        long startTime = System.currentTimeMillis();
-        System.out.println("First MR Phase for Theta Join started at " 
-                + startTime / 1000 + "\n");
+        //(All the times are printed and reported in milliseconds)
+        long projectStartTime = System.currentTimeMillis();
+        System.out.println("Theta-Join started at " + projectStartTime + "\n");
+
+        //Parse the generic Hadoop options (e.g. -D property=value) that
+        //configure both Map/Reduce phases
+        Configuration userConf = new Configuration();
+        args = new GenericOptionsParser(userConf, args).getRemainingArgs();
 
         //Initialize cardinalities, the number of reducers
         //and the input/output file locations
-        int cardinalityOfS = Integer.parseInt(args[0]);
-        int cardinalityOfR = Integer.parseInt(args[1]);
-        int numberOfReducers = Integer.parseInt(args[2]);
+        //(The cardinalities can be set to 'auto', in order to be computed 
+        //by a statistics phase over the input)
+        //(The M-Bucket partitioning always needs the statistics phase, for the
+        //histograms of the join attributes)
+        //(The number of reducers can be set to 'auto' as well, in order to be
+        //chosen by the PlanSimulator for the reduce slots of the cluster)
+        //(The input can be one or more comma-separated paths, of text files 
+        //or of the columnar files of S and R, see ColumnarTupleFile)
+        //(With hadooptheta.incremental.base, the input is a delta of the
+        //input of a previous run, whose output is updated, see
+        //IncrementalThetaJoin)
+        //(If hadooptheta.broadcast.threshold is set and the statistics phase
+        //selects at most that many S-tuples, they are joined on the map side,
+        //see BroadcastThetaJoin)
+        boolean mBucket = MatrixToReducerPartitioning.PARTITIONING_MBUCKET.equals(
+                userConf.get(MatrixToReducerPartitioning.PARTITIONING_KEY,
+                        MatrixToReducerPartitioning.PARTITIONING_1BUCKET));
+        boolean computeStatistics = mBucket 
+                || args[0].equals("auto") || args[1].equals("auto");
+        int cardinalityOfS = computeStatistics ? 0 : Integer.parseInt(args[0]);
+        int cardinalityOfR = computeStatistics ? 0 : Integer.parseInt(args[1]);
+        boolean autoReducers = args[2].equals("auto");
+        int numberOfReducers = autoReducers ? 0 : Integer.parseInt(args[2]);
         String inputFileLocation = args[3];
         String outputFileLocation = args[4];
         String tempFileLocation = "/tmp/outputForThetaJoin/";
+        String statisticsFileLocation = "/tmp/statisticsForThetaJoin/";
+
+        Configuration conf = new Configuration(userConf);
+
+        //The query (join predicate, aggregate function and filter) is read from
+        //the Configuration by every phase; it is parsed here once, so that an
+        //invalid query fails before any job is submitted
+        ThetaQuery query = ThetaQuery.fromConfiguration(conf);
+        System.out.println("Query: " + query + "\n");
 
-        Configuration conf = new Configuration();
+        //The semi-summaries are passed from the first to the second phase
+        //either as a binary SequenceFile (default) or as text
+        boolean binaryPipeline = !ThetaJoinReduce.PIPELINE_TEXT.equals(
+                conf.get(ThetaJoinReduce.PIPELINE_KEY, ThetaJoinReduce.PIPELINE_BINARY));
+
+        //The Theta-Join either runs as two Map/Reduce phases (default) or in
+        //this process, on a thread pool (hadooptheta.engine=local)
+        LocalThetaJoin local = LocalThetaJoin.isSelected(conf) ? new LocalThetaJoin(conf) : null;
+
+        //The report of the run, with every phase, is written to the output
+        //directory (see RunReport)
+        RunReport report = new RunReport(query, local != null 
+                ? LocalThetaJoin.ENGINE_LOCAL : LocalThetaJoin.ENGINE_HADOOP);
 
         //"Unlock" the limit of the input split files
         //This helps for large input files (that exceed 1 million lines)
         conf.set("mapreduce.jobtracker.split.metainfo.maxsize", "-1");
 
+        //An incremental run updates the output of a previous run with the
+        //delta of its input (see IncrementalThetaJoin)
+        if (IncrementalThetaJoin.isSelected(conf)) {
+            if (local != null || mBucket) {
+                throw new IllegalArgumentException("The incremental mode runs on the "
+                        + "Hadoop engine with the 1-Bucket-Theta partitioning");
+            }
+            if (BroadcastThetaJoin.getThreshold(conf) > 0) {
+                System.out.println("The broadcast join is not chosen: "
+                        + "the incremental mode updates the output with Theta-Join phases\n");
+            }
+            runIncremental(userConf, conf, query, report, computeStatistics,
+                    cardinalityOfS, cardinalityOfR, numberOfReducers, inputFileLocation,
+                    outputFileLocation, tempFileLocation, statisticsFileLocation,
+                    projectStartTime);
+            return;
+        }
+
+        //Count the tuples of both relations with a map-only phase
+        //(or with the tasks of the local engine)
+        //(The selected tuples of the input are stored with the output, for the
+        //incremental runs that update it)
+        InputStatistics statistics = null;
+        long selectedS = cardinalityOfS, selectedR = cardinalityOfR;
+        if (computeStatistics) {
+            long statisticsStartTime = System.currentTimeMillis();
+            statistics = local != null
+                    ? local.computeStatistics(inputFileLocation)
+                    : InputStatistics.compute(new Configuration(userConf),
+                            inputFileLocation, statisticsFileLocation);
+            report.addPhase("statistics", statisticsStartTime, System.currentTimeMillis(),
+                    true, countersOf(statistics));
+            System.out.println("Statistics of the input:\n" + statistics + "\n");
+            selectedS = statistics.getS().getCount();
+            selectedR = statistics.getR().getCount();
+        }
+
+        //A small S is joined on the map side instead, if it is enabled and the
+        //statistics phase counted it (see BroadcastThetaJoin)
+        //(If it is enabled but not chosen, the reason is printed)
+        if (BroadcastThetaJoin.isSelected(conf, statistics)) {
+            runBroadcast(userConf, query, report, selectedS, selectedR, inputFileLocation,
+                    outputFileLocation, tempFileLocation, projectStartTime);
+            return;
+        } else if (BroadcastThetaJoin.getThreshold(conf) > 0) {
+            System.out.println("The broadcast join is not chosen: "
+                    + BroadcastThetaJoin.getReasonNotSelected(conf, statistics) + "\n");
+        }
+
         //Create the MatrixToReducerPartitioning object, serialize it and store 
-        //it into a file
-        MatrixToReducerPartitioning mtr = 
-                new MatrixToReducerPartitioning(cardinalityOfS, cardinalityOfR,
-                        numberOfReducers);
+        //it into the job's configuration, so that every map task (on any node
+        //of the cluster) can load it once in its setup
+        MatrixToReducerPartitioning mtr;
+        if (computeStatistics) {
+            if (autoReducers) {
+                numberOfReducers = chooseReducers(conf, local,
+                        InputStatistics.cardinalityOf(statistics.getS()),
+                        InputStatistics.cardinalityOf(statistics.getR()));
+            }
+            if (mBucket) {
+                //By default, 4 buckets per reducer for every relation
+                int buckets = conf.getInt(MBucketPartitioning.BUCKETS_KEY,
+                        Math.min(2000, 4 * numberOfReducers));
+                mtr = new MBucketPartitioning(statistics, numberOfReducers, buckets, query);
+            } else {
+                mtr = new MatrixToReducerPartitioning(statistics, numberOfReducers);
+            }
+        } else {
+            if (autoReducers) {
+                numberOfReducers = chooseReducers(conf, local, cardinalityOfS, cardinalityOfR);
+            }
+            mtr = new MatrixToReducerPartitioning(cardinalityOfS, cardinalityOfR,
+                    numberOfReducers);
+        }
         mtr.Partitioner();
+        mtr.storeInConfiguration(conf);
+        report.setPlan(mtr, mBucket ? MatrixToReducerPartitioning.PARTITIONING_MBUCKET
+                : MatrixToReducerPartitioning.PARTITIONING_1BUCKET);
+        System.out.println("The matrix is partitioned into " 
+                + mtr.getNumberOfRegions() + " regions\n");
 
-        try {
-            FileOutputStream fileOut = new FileOutputStream("/tmp/matrixpartitioner.ser");
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(mtr);
-            out.close();
-            fileOut.close();
-        } catch (IOException i) {
-            i.printStackTrace();
+        //An invalid placement of the tuples fails before any job is submitted
+        //(M-Bucket places them by the value of their join attribute)
+        TuplePlacement.validate(conf);
+        if (!mBucket) {
+            System.out.println("Tuple placement: " + conf.get(TuplePlacement.PLACEMENT_KEY,
+                    TuplePlacement.PLACEMENT_RANDOM) + "\n");
+        }
+
+        if (local != null) {
+            //Both phases in this process, with the same partitioning and output
+            long startTime = System.currentTimeMillis();
+            try {
+                local.run(mtr, inputFileLocation, outputFileLocation);
+            } finally {
+                local.close();
+            }
+            long endTime = System.currentTimeMillis();
+            if (local.getMalformedLines() > 0) {
+                System.out.println("Skipped " + local.getMalformedLines() + " malformed lines");
+            }
+            System.out.println("Local Theta-Join run for " + (endTime - startTime) 
+                    + " milliseconds");
+            report.addPhase("local", startTime, endTime, true, local.getCounters());
+            setReplication(report, local.getCounters());
+            report.addRegions("local", local.getRegionMetrics());
+            IncrementalThetaJoin.writeState(conf, outputFileLocation, query,
+                    selectedS, selectedR);
+            System.out.println("Report: " + report.write(conf, outputFileLocation));
+            System.out.println("\nProject run for " + (endTime - projectStartTime) 
+                    + " milliseconds");
+            return;
         }
 
         //*******************************************************
         //First Map/Reduce Phase (Theta-Join applying the filter)
         //*******************************************************
 
+        long startTime = System.currentTimeMillis();
+        System.out.println("First MR Phase for Theta-Join started at " + startTime + "\n");
+
         //Set the job as 'thetajoin'
-        Job job = new Job(conf, "thetajoin");
-        
-        //Set the number of reducers
-        job.setNumReduceTasks(numberOfReducers);
-        
-        //Set the classes
-        job.setJarByClass(HadoopTheta.class);
-        job.setMapperClass(ThetaJoinMap.class);
-        job.setReducerClass(ThetaJoinReduce.class);
-               
-        //Set the input/output classes
-        job.setOutputKeyClass(Text.class);
-        job.setOutputValueClass(Text.class);
-        job.setMapOutputKeyClass(Text.class);
-        job.setMapOutputValueClass(Text.class);
-        
-        //Set the input/output format classes
-        job.setInputFormatClass(TextInputFormat.class);
-        job.setOutputFormatClass(TextOutputFormat.class);
-        
-        //Set the input/output file paths
-        FileInputFormat.addInputPath(job, new Path(inputFileLocation));
+        Job job = createThetaJoinJob(conf, "thetajoin", numberOfReducers, binaryPipeline,
+                tempFileLocation);
+
+        //Set the input file paths
+        FileInputFormat.addInputPaths(job, inputFileLocation);
         FileSystem fs = FileSystem.get(new Configuration());
-        fs.delete(new Path(tempFileLocation), true);
-        FileOutputFormat.setOutputPath(job, new Path(tempFileLocation));
         
         boolean result = job.waitForCompletion(true);
         
         //Show the time in milliseconds that the first MR phase was running
         long endTime = System.currentTimeMillis();
-        System.out.println("\nFirst MR Phase for Theta-Join ended at " 
-                + endTime / 100);
+        System.out.println("\nFirst MR Phase for Theta-Join ended at " + endTime);
         System.out.println("First MR Phase for Theta-Join run for " 
                 + (endTime - startTime) + " milliseconds");
+
+        //The counters of the mappers and the metrics that every reducer wrote
+        //for its regions next to its output
+        report.addPhase("thetajoin", startTime, endTime, result, job.getCounters());
+        setReplication(report, job.getCounters());
+        report.addRegions("thetajoin",
+                RegionMetrics.readAll(fs, new Path(tempFileLocation)));
 		
         if(result) {
             System.out.println("First MR Phase for Theta-Join completed succesfully.\n");
         } else {
             System.out.println("First MR Phase for Theta-Join failed.\n");
+            System.out.println("Report: " + report.write(conf, outputFileLocation));
             System.exit(1);
         }
 		
@@ -125,15 +286,23 @@ public class HadoopTheta {
                 + "attributes started at " + startTime + "\n");
 
         //Reinitialize configuration
-        conf = new Configuration();
+        conf = new Configuration(userConf);
 
         //Set the job as 'count'
         job = new Job(conf, "count");
         
         //Set the classes
         job.setJarByClass(HadoopTheta.class);
-        job.setMapperClass(CounterMap.class);
-        job.setReducerClass(CounterReduce.class);
+        if (binaryPipeline) {
+            //The (R.a, semi-aggregate) pairs are read as they are (identity Mapper)
+            //and merged on the Mapper side too, so no text is parsed
+            job.setMapperClass(Mapper.class);
+            job.setCombinerClass(PartialAggregateCombine.class);
+            job.setReducerClass(PartialAggregateReduce.class);
+        } else {
+            job.setMapperClass(CounterMap.class);
+            job.setReducerClass(CounterReduce.class);
+        }
         
         //Set the input/output classes
         //Note that in this case, Map outputs a key that is IntWritable
@@ -144,10 +313,11 @@ public class HadoopTheta {
         job.setOutputKeyClass(Text.class);
         job.setOutputValueClass(Text.class);
         job.setMapOutputKeyClass(IntWritable.class);
-        job.setMapOutputValueClass(Text.class);
+        job.setMapOutputValueClass(binaryPipeline ? AggregateWritable.class : Text.class);
         
         //Set the input/output format classes
-        job.setInputFormatClass(TextInputFormat.class);
+        job.setInputFormatClass(binaryPipeline 
+                ? SequenceFileInputFormat.class : TextInputFormat.class);
         job.setOutputFormatClass(TextOutputFormat.class);
         
         //Set the input/output file paths
@@ -163,24 +333,375 @@ public class HadoopTheta {
         
         result = job.waitForCompletion(true);
         endTime = System.currentTimeMillis();
-		
+        report.addPhase("count", startTime, endTime, result, job.getCounters());
+
+        System.out.println("\nSecond MR Phase for counting the S.x "
+                + "attributes ended at " + endTime);
+        System.out.println("Second MR Phase for counting the S.x "
+                + "attributes run for: " + (endTime - startTime) + " milliseconds");
         if(result) {
-            System.out.println("\nSecond MR Phase for counting the S.x "
-                    + "attributes endned at " + endTime);
-            System.out.println("Second MR Phase for counting the S.x "
-                    + "attributes run for: " + (endTime - startTime) + " milliseconds");
             System.out.println("Second MR Phase for counting the S.x "
                     + "attributes completed successfully.");
-            System.out.println("\nProject run for " + (endTime - startTime) 
-                    + " milliseconds");
+            IncrementalThetaJoin.writeState(conf, outputFileLocation, query,
+                    selectedS, selectedR);
         }else {
-            System.out.println("\nSecond MR Phase for counting the S.x "
-                    + "attributes endned at " + endTime);
-            System.out.println("Second MR Phase for counting the S.x "
-                    + "attributes run for: " + (endTime - startTime) + " milliseconds");
             System.out.println("Second MR Phase for counting the S.x attributes failed.");
-            System.out.println("\nProject run for " + (endTime - startTime) + " milliseconds");
+        }
+        System.out.println("Report: " + report.write(conf, outputFileLocation));
+        System.out.println("\nProject run for " + (endTime - projectStartTime) 
+                + " milliseconds");
+        if (!result) {
             System.exit(1);
         }
     }
+
+    /**
+     * Run the broadcast join (see BroadcastThetaJoin): the build phase sorts
+     * the selected S-tuples into a file, which the join phase ships to its
+     * map tasks and joins with the R-tuples on the map side.
+     * @param userConf The Configuration of the user
+     * @param query The query of the run
+     * @param report The report of the run
+     * @param selectedS The selected S-tuples
+     * @param selectedR The selected R-tuples
+     * @param inputFileLocation The input of the run
+     * @param outputFileLocation The output of the run
+     * @param tempFileLocation The prefix of the output of the build phase
+     * @param projectStartTime The start of the run
+     */
+    private static void runBroadcast(Configuration userConf, ThetaQuery query,
+            RunReport report, long selectedS, long selectedR, String inputFileLocation,
+            String outputFileLocation, String tempFileLocation, long projectStartTime)
+            throws IOException, ClassNotFoundException, InterruptedException {
+        System.out.println("Broadcast join: the statistics phase selected " + selectedS
+                + " S-tuples, at most " + BroadcastThetaJoin.THRESHOLD_KEY + "="
+                + BroadcastThetaJoin.getThreshold(userConf)
+                + " (the reducers of the Theta-Join phase are not used)\n");
+        Counters counters = new Counters();
+
+        //Build phase (the S-tuples, sorted by S.a, into the file of S)
+        long startTime = System.currentTimeMillis();
+        String buildOutput = tempFileLocation + "broadcast";
+        Configuration conf = new Configuration(userConf);
+        conf.set("mapreduce.jobtracker.split.metainfo.maxsize", "-1");
+        Job job = BroadcastThetaJoin.createBuildJob(conf, inputFileLocation, buildOutput);
+        boolean result = job.waitForCompletion(true);
+        long endTime = System.currentTimeMillis();
+        System.out.println("\nBuild phase of the broadcast join run for " 
+                + (endTime - startTime) + " milliseconds");
+        report.addPhase("broadcast-build", startTime, endTime, result, job.getCounters());
+        counters.incrAllCounters(job.getCounters());
+
+        //Join phase (the R-tuples with the file of S, merged by R.a)
+        if (result) {
+            startTime = System.currentTimeMillis();
+            job = BroadcastThetaJoin.createJoinJob(conf, inputFileLocation, buildOutput,
+                    outputFileLocation);
+            result = job.waitForCompletion(true);
+            endTime = System.currentTimeMillis();
+            System.out.println("\nJoin phase of the broadcast join run for " 
+                    + (endTime - startTime) + " milliseconds");
+            report.addPhase("broadcast-join", startTime, endTime, result, job.getCounters());
+            counters.incrAllCounters(job.getCounters());
+        }
+
+        //The S-tuples are replicated to every map task of the join phase
+        setReplication(report, counters);
+        if (result) {
+            System.out.println("Broadcast join completed successfully.");
+            IncrementalThetaJoin.writeState(conf, outputFileLocation, query,
+                    selectedS, selectedR);
+        } else {
+            System.out.println("Broadcast join failed.");
+        }
+        System.out.println("Report: " + report.write(conf, outputFileLocation));
+        System.out.println("\nProject run for " + (endTime - projectStartTime) 
+                + " milliseconds");
+        if (!result) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the incremental mode (see IncrementalThetaJoin): the joins of the
+     * delta with the previous input, ΔR ⋈ (S ∪ ΔS) and R ⋈ ΔS, run as two
+     * concurrent Theta-Join phases (each with its own 1-Bucket-Theta matrix),
+     * and the merge phase updates the previous output with their
+     * semi-aggregates.
+     * @param userConf The Configuration of the user
+     * @param conf The Configuration of the run
+     * @param query The query of the run
+     * @param report The report of the run
+     * @param computeStatistics True to count the tuples of the delta
+     * @param cardinalityOfS The cardinality of ΔS (unless it is counted)
+     * @param cardinalityOfR The cardinality of ΔR (unless it is counted)
+     * @param numberOfReducers The number of reducers of every Theta-Join
+     * phase (0 to choose them with the PlanSimulator)
+     * @param inputFileLocation The delta
+     * @param outputFileLocation The previous output, which is updated
+     * @param tempFileLocation The prefix of the outputs of the Theta-Join phases
+     * @param statisticsFileLocation The output of the statistics phase
+     * @param projectStartTime The start of the run
+     */
+    private static void runIncremental(Configuration userConf, Configuration conf,
+            ThetaQuery query, RunReport report, boolean computeStatistics,
+            int cardinalityOfS, int cardinalityOfR, int numberOfReducers,
+            String inputFileLocation, String outputFileLocation, String tempFileLocation,
+            String statisticsFileLocation, long projectStartTime)
+            throws IOException, ClassNotFoundException, InterruptedException {
+        IncrementalThetaJoin.checkQuery(query);
+        long[] state = IncrementalThetaJoin.readState(conf, outputFileLocation, query);
+        String base = conf.get(IncrementalThetaJoin.BASE_KEY);
+        System.out.println("Incremental run over the previous input " + base 
+                + " (|S| = " + state[0] + ", |R| = " + state[1] + ")\n");
+
+        //Count the tuples of the delta only
+        long deltaS = cardinalityOfS, deltaR = cardinalityOfR;
+        if (computeStatistics) {
+            long statisticsStartTime = System.currentTimeMillis();
+            InputStatistics statistics = InputStatistics.compute(new Configuration(userConf),
+                    inputFileLocation, statisticsFileLocation);
+            report.addPhase("statistics", statisticsStartTime, System.currentTimeMillis(),
+                    true, countersOf(statistics));
+            System.out.println("Statistics of the delta:\n" + statistics + "\n");
+            deltaS = statistics.getS().getCount();
+            deltaR = statistics.getR().getCount();
+        }
+
+        //*******************************************************
+        //Theta-Join phases of the delta (submitted at the same time)
+        //*******************************************************
+
+        long startTime = System.currentTimeMillis();
+        List<Job> jobs = new ArrayList<Job>();
+        List<String> joinOutputs = new ArrayList<String>();
+        if (deltaR > 0 && state[0] + deltaS > 0) {
+            //ΔR ⋈ (S ∪ ΔS): the S-tuples of the previous input and the delta
+            String joinOutput = tempFileLocation + "deltaR";
+            Job job = createDeltaJoinJob(conf, "thetajoin-deltaR", state[0] + deltaS, deltaR,
+                    numberOfReducers, joinOutput);
+            ThetaJoinInputFormat.addInputPaths(job, base, TaggedTupleWritable.S);
+            FileInputFormat.addInputPaths(job, inputFileLocation);
+            jobs.add(job);
+            joinOutputs.add(joinOutput);
+        }
+        if (deltaS > 0 && state[1] > 0) {
+            //R ⋈ ΔS: the R-tuples of the previous input and the S-tuples of the delta
+            String joinOutput = tempFileLocation + "deltaS";
+            Job job = createDeltaJoinJob(conf, "thetajoin-deltaS", deltaS, state[1],
+                    numberOfReducers, joinOutput);
+            ThetaJoinInputFormat.addInputPaths(job, base, TaggedTupleWritable.R);
+            ThetaJoinInputFormat.addInputPaths(job, inputFileLocation, TaggedTupleWritable.S);
+            jobs.add(job);
+            joinOutputs.add(joinOutput);
+        }
+        for (Job job : jobs) {
+            job.submit();
+        }
+
+        boolean result = true;
+        Counters counters = new Counters();
+        FileSystem fs = FileSystem.get(new Configuration());
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            boolean succeeded = job.waitForCompletion(true);
+            long endTime = System.currentTimeMillis();
+            System.out.println("\nTheta-Join phase " + job.getJobName() + " run for "
+                    + (endTime - startTime) + " milliseconds");
+            report.addPhase(job.getJobName(), startTime, endTime, succeeded, job.getCounters());
+            counters.incrAllCounters(job.getCounters());
+            //Every phase numbers its regions from 1, so they are reported apart
+            report.addRegions(job.getJobName(),
+                    RegionMetrics.readAll(fs, new Path(joinOutputs.get(i))));
+            result &= succeeded;
+        }
+        setReplication(report, counters);
+        if (!result) {
+            System.out.println("The Theta-Join phases of the delta failed.\n");
+            System.out.println("Report: " + report.write(conf, outputFileLocation));
+            System.exit(1);
+        }
+
+        //*******************************************************
+        //Merge phase (the previous output and the delta, grouped by R.a)
+        //*******************************************************
+
+        if (jobs.isEmpty()) {
+            System.out.println("The delta joins with no tuples; the output is unchanged.\n");
+        } else {
+            startTime = System.currentTimeMillis();
+            String mergeOutput = tempFileLocation + "merge";
+            Job job = IncrementalThetaJoin.createMergeJob(new Configuration(userConf),
+                    outputFileLocation, joinOutputs, mergeOutput);
+            result = job.waitForCompletion(true);
+            long endTime = System.currentTimeMillis();
+            report.addPhase("merge", startTime, endTime, result, job.getCounters());
+            System.out.println("\nMerge phase run for " + (endTime - startTime)
+                    + " milliseconds");
+            if (!result) {
+                System.out.println("Merge phase failed; the output is unchanged.");
+                System.out.println("Report: " + report.write(conf, outputFileLocation));
+                System.exit(1);
+            }
+            IncrementalThetaJoin.replaceOutput(conf, mergeOutput, outputFileLocation);
+        }
+        IncrementalThetaJoin.writeState(conf, outputFileLocation, query,
+                state[0] + deltaS, state[1] + deltaR);
+        System.out.println("Report: " + report.write(conf, outputFileLocation));
+        System.out.println("\nProject run for " + (System.currentTimeMillis() - projectStartTime)
+                + " milliseconds");
+    }
+
+    /**
+     * Create a Theta-Join phase of the incremental mode, over its own
+     * 1-Bucket-Theta matrix, without its input paths. Its semi-aggregates are
+     * always written as a binary SequenceFile, for the merge phase.
+     * @param conf The Configuration of the run
+     * @param name The name of the job
+     * @param cardinalityOfS The cardinality of the S-side of the matrix
+     * @param cardinalityOfR The cardinality of the R-side of the matrix
+     * @param numberOfReducers The number of reducers (0 to choose them)
+     * @param tempFileLocation The output of the job
+     * @return The job
+     * @throws IOException 
+     */
+    private static Job createDeltaJoinJob(Configuration conf, String name,
+            long cardinalityOfS, long cardinalityOfR, int numberOfReducers,
+            String tempFileLocation) throws IOException {
+        if (cardinalityOfS > Integer.MAX_VALUE || cardinalityOfR > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The cardinalities " + cardinalityOfS + ", "
+                    + cardinalityOfR + " exceed the limit of the MatrixToReducerPartitioning");
+        }
+        Configuration jobConf = new Configuration(conf);
+        jobConf.set(ThetaJoinReduce.PIPELINE_KEY, ThetaJoinReduce.PIPELINE_BINARY);
+        if (numberOfReducers <= 0) {
+            numberOfReducers = chooseReducers(jobConf, null, (int) cardinalityOfS,
+                    (int) cardinalityOfR);
+        }
+        //(A matrix of fewer cells than reducers gets a reducer per cell)
+        numberOfReducers = (int) Math.min(numberOfReducers, cardinalityOfS * cardinalityOfR);
+        MatrixToReducerPartitioning mtr = new MatrixToReducerPartitioning((int) cardinalityOfS,
+                (int) cardinalityOfR, numberOfReducers);
+        mtr.Partitioner();
+        mtr.storeInConfiguration(jobConf);
+        TuplePlacement.validate(jobConf);
+        System.out.println("The " + cardinalityOfS + " x " + cardinalityOfR + " matrix of "
+                + name + " is partitioned into " + mtr.getNumberOfRegions() + " regions\n");
+        return createThetaJoinJob(jobConf, name, numberOfReducers, true, tempFileLocation);
+    }
+
+    /**
+     * Create the job of the Theta-Join phase (the first Map/Reduce phase),
+     * without its input paths.
+     * @param conf The Configuration of the job, with the partitioning
+     * @param name The name of the job
+     * @param numberOfReducers The number of reducers
+     * @param binaryPipeline True for a binary output, false for text
+     * @param tempFileLocation The output of the job (it is overwritten)
+     * @return The job
+     * @throws IOException 
+     */
+    private static Job createThetaJoinJob(Configuration conf, String name,
+            int numberOfReducers, boolean binaryPipeline, String tempFileLocation) 
+            throws IOException {
+        Job job = new Job(conf, name);
+        
+        //Set the number of reducers
+        job.setNumReduceTasks(numberOfReducers);
+        
+        //Set the classes
+        job.setJarByClass(HadoopTheta.class);
+        job.setMapperClass(ThetaJoinMap.class);
+        job.setReducerClass(ThetaJoinReduce.class);
+        if (conf.getBoolean(ThetaJoinCombine.ENABLE_KEY, false)) {
+            //Group the R-tuples by their R.a attribute on the Mapper side
+            job.setCombinerClass(ThetaJoinCombine.class);
+        }
+
+        //Send every region to its own reducer (region i to reducer i - 1)
+        job.setPartitionerClass(RegionPartitioner.class);
+               
+        //Set the input/output classes
+        job.setOutputKeyClass(IntWritable.class);
+        job.setOutputValueClass(binaryPipeline ? AggregateWritable.class : Text.class);
+        job.setMapOutputValueClass(TaggedTupleWritable.class);
+        if (conf.getBoolean(ThetaJoinReduce.SECONDARY_SORT_KEY, false)) {
+            //Sort the tuples of every region by relation and join attribute,
+            //and group them by the region only
+            job.setMapOutputKeyClass(RegionTupleKey.class);
+            job.setGroupingComparatorClass(RegionTupleKey.GroupingComparator.class);
+        } else {
+            job.setMapOutputKeyClass(IntWritable.class);
+        }
+        
+        //Set the input/output format classes
+        //(The input lines are parsed and filtered by the ThetaJoinRecordReader)
+        job.setInputFormatClass(ThetaJoinInputFormat.class);
+        job.setOutputFormatClass(binaryPipeline 
+                ? SequenceFileOutputFormat.class : TextOutputFormat.class);
+        
+        //Set the output file path
+        FileSystem fs = FileSystem.get(new Configuration());
+        fs.delete(new Path(tempFileLocation), true);
+        FileOutputFormat.setOutputPath(job, new Path(tempFileLocation));
+        return job;
+    }
+
+    /**
+     * Choose the number of reducers with the PlanSimulator, for the reduce
+     * slots of the cluster (or the threads of the local engine), unless they
+     * are set with hadooptheta.planner.slots. The plans are simulated with the
+     * 1-Bucket-Theta partitioning, for both partitionings.
+     * @param conf The Configuration of the run
+     * @param local The local engine (or null)
+     * @param cardinalityOfS The cardinality of S
+     * @param cardinalityOfR The cardinality of R
+     * @return The number of reducers
+     * @throws IOException 
+     */
+    private static int chooseReducers(Configuration conf, LocalThetaJoin local,
+            int cardinalityOfS, int cardinalityOfR) throws IOException {
+        int slots = conf.getInt(PlanSimulator.SLOTS_KEY, 0);
+        if (slots <= 0) {
+            slots = local != null ? local.getThreads()
+                    : new JobClient(new JobConf(conf)).getClusterStatus().getMaxReduceTasks();
+        }
+        PlanSimulator.Plan plan = PlanSimulator.choose(conf, cardinalityOfS, cardinalityOfR,
+                Math.max(1, slots));
+        System.out.println("Chosen number of reducers for " + slots + " slots: "
+                + plan.getReducers() + " (largest region input: " + plan.getMaxRegionInput() 
+                + ", replicated tuples: " + plan.getReplicatedTuples() + ")\n");
+        return plan.getReducers();
+    }
+
+    /**
+     * Return the statistics of the input as the counters of the statistics
+     * phase (the same ones as the StatisticsMap counts).
+     * @param statistics The statistics of the input
+     * @return The counters
+     */
+    private static Counters countersOf(InputStatistics statistics) {
+        Counters counters = new Counters();
+        counters.findCounter(StatisticsCounter.S_TUPLES).increment(statistics.getS().getTotal());
+        counters.findCounter(StatisticsCounter.S_SELECTED).increment(statistics.getS().getCount());
+        counters.findCounter(StatisticsCounter.R_TUPLES).increment(statistics.getR().getTotal());
+        counters.findCounter(StatisticsCounter.R_SELECTED).increment(statistics.getR().getCount());
+        return counters;
+    }
+
+    /**
+     * Set the replication of both relations in the report, from the counters
+     * of the mappers.
+     * @param report The report of the run
+     * @param counters The counters of the Theta-Join phase
+     */
+    private static void setReplication(RunReport report, Counters counters) {
+        report.setReplication(
+                counters.findCounter(MapCounter.S_READ).getValue()
+                        - counters.findCounter(MapCounter.S_FILTERED).getValue(),
+                counters.findCounter(MapCounter.S_EMITTED).getValue(),
+                counters.findCounter(MapCounter.R_READ).getValue()
+                        - counters.findCounter(MapCounter.R_FILTERED).getValue(),
+                counters.findCounter(MapCounter.R_EMITTED).getValue());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.lefteris008.hadooptheta.broadcast;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2200
+ */
+public class BroadcastBuildMap
+        extends Mapper<LongWritable, TaggedTupleWritable, IntWritable, LongWritable> {
+
+    //The key and the value are reused for every output record
+    private final IntWritable outputKey = new IntWritable();
+    private final LongWritable outputValue = new LongWritable();
+
+    /**
+     * This Mapper reads the selected S-tuples of the input (the input format
+     * reads the S-tuples only and applies the filter) and outputs their S.a
+     * attribute as the key and their S.x attribute as the value, so that the
+     * shuffle sorts them by S.a for the BroadcastBuildReduce.
+     *
+     * @param key A LongWritable key for the mapping process.
+     * @param value A TaggedTupleWritable value (a S-tuple) for the mapping process.
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void map(LongWritable key, TaggedTupleWritable value, Context context)
+            throws IOException, InterruptedException {
+        if (value.isFromS()) {
+            outputKey.set(value.getJoinAttribute());
+            outputValue.set(value.getPayload());
+            context.write(outputKey, outputValue);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.lefteris008.hadooptheta.broadcast;
+
+import com.lefteris008.hadooptheta.io.ColumnarTupleFile;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2200
+ */
+public class BroadcastBuildReduce
+        extends Reducer<IntWritable, LongWritable, NullWritable, NullWritable> {
+
+    private ColumnarTupleFile.Writer file;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        //The file is committed along with the output of the task
+        Path path = new Path(FileOutputFormat.getWorkOutputPath(context),
+                BroadcastThetaJoin.FILE_NAME);
+        file = new ColumnarTupleFile.Writer(
+                path.getFileSystem(context.getConfiguration()).create(path, false),
+                TaggedTupleWritable.S, context.getConfiguration().getInt(
+                        ColumnarTupleFile.BLOCK_SIZE_KEY, ColumnarTupleFile.DEFAULT_BLOCK_SIZE));
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        file.close();
+    }
+
+    /**
+     * This Reducer is the single reducer of the build phase of the broadcast
+     * join. It gets the S.a attributes in ascending order, each one with the
+     * S.x attributes of its S-tuples, and appends them to the file of S, so
+     * that the S-tuples of the file are sorted by S.a and the map tasks of
+     * the join phase load them without sorting them.
+     *
+     * @param key An IntWritable key (the S.a attribute) for the reducing process
+     * @param values An Iterable of LongWritable values (the S.x attributes)
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void reduce(IntWritable key, Iterable<LongWritable> values, Context context)
+            throws IOException, InterruptedException {
+        for (LongWritable value : values) {
+            file.append(key.get(), value.get());
+        }
+    }
+
+}
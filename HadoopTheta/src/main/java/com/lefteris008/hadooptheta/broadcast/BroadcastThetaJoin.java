@@ -0,0 +1,216 @@
+package com.lefteris008.hadooptheta.broadcast;
+
+import com.lefteris008.hadooptheta.HadoopTheta;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateCombine;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateReduce;
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.ColumnarTupleFile;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.io.ThetaJoinInputFormat;
+import com.lefteris008.hadooptheta.local.LocalThetaJoin;
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinReduce;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * The broadcast (map-side) Theta-Join, for an S relation whose selected
+ * tuples fit in the memory of a map task. Instead of replicating both
+ * relations to the regions of the matrix and shuffling them, it runs as:
+ * - a build phase, which sorts the selected S-tuples by S.a (a single
+ *   reducer, BroadcastBuildReduce) into a columnar file of S
+ *   (ColumnarTupleFile), and
+ * - a join phase, which ships the file to every node with the
+ *   DistributedCache. Every map task (BroadcastThetaJoinMap) loads it into a
+ *   ThetaJoinKernel once, scans a split of R and answers every R.a attribute
+ *   from the prefix/suffix aggregates of the kernel with a binary search.
+ *   Its semi-aggregates are merged per R.a attribute by the
+ *   PartialAggregateCombine and the PartialAggregateReduce, as in the
+ *   second phase of the binary pipeline, into the final output.
+ * Every predicate and aggregate function of the ThetaJoinKernel is supported.
+ *
+ * The broadcast join is off by default. If hadooptheta.broadcast.threshold
+ * is set, HadoopTheta chooses it when the statistics phase counted at most
+ * that many selected S-tuples (a given cardinality of S is never trusted for
+ * it), unless an option of the Theta-Join phase is set explicitly (the
+ * partitioning, or how the reducers buffer and join a region), since the
+ * broadcast join would ignore it. The number of reducers of the Theta-Join
+ * phase is not used either. If the broadcast join is enabled but not chosen,
+ * HadoopTheta prints why (see getReasonNotSelected).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public final class BroadcastThetaJoin {
+
+    //Configuration property for the largest number of selected S-tuples that
+    //are joined on the map side (a loaded S-tuple takes about 12 bytes of the
+    //heap of a map task, plus the aggregates of its S.a attribute); 0, the
+    //default, never chooses the broadcast join
+    public static final String THRESHOLD_KEY = "hadooptheta.broadcast.threshold";
+    public static final long DEFAULT_THRESHOLD = 0;
+
+    //The options of the Theta-Join phase that the broadcast join ignores; if
+    //any of them is set, the broadcast join is not chosen
+    private static final String[] THETA_JOIN_KEYS = {
+        MatrixToReducerPartitioning.PARTITIONING_KEY,
+        ThetaJoinReduce.SECONDARY_SORT_KEY,
+        ThetaJoinReduce.SPILL_THRESHOLD_KEY,
+        ThetaJoinReduce.THREADS_KEY,
+        ThetaJoinReduce.COLLAPSE_R_KEY
+    };
+
+    //Configuration property for the file of S that is shipped to the map
+    //tasks (set by createJoinJob)
+    public static final String FILE_KEY = "hadooptheta.broadcast.file";
+
+    //The name of the file of S in the output of the build phase
+    public static final String FILE_NAME = "S" + ColumnarTupleFile.EXTENSION;
+
+    private BroadcastThetaJoin() {
+        ///
+    }
+
+    /**
+     * Return true if the broadcast join is enabled, the statistics phase
+     * counted few enough selected S-tuples to join them on the map side and
+     * no option of the Theta-Join phase is set.
+     * @param conf The Configuration of the run
+     * @param statistics The statistics of the input (null if they were not
+     * computed)
+     * @return A boolean flag
+     */
+    public static boolean isSelected(Configuration conf, InputStatistics statistics) {
+        return getThreshold(conf) > 0 && getReasonNotSelected(conf, statistics) == null;
+    }
+
+    /**
+     * Return why the broadcast join is not chosen for a run, if it is enabled.
+     * @param conf The Configuration of the run
+     * @param statistics The statistics of the input (null if they were not
+     * computed)
+     * @return The reason, or null if nothing prevents the broadcast join
+     */
+    public static String getReasonNotSelected(Configuration conf, InputStatistics statistics) {
+        long threshold = getThreshold(conf);
+        if (LocalThetaJoin.isSelected(conf)) {
+            return "it runs on the Hadoop engine only (" + LocalThetaJoin.ENGINE_KEY + "="
+                    + LocalThetaJoin.ENGINE_LOCAL + ")";
+        }
+        for (String key : THETA_JOIN_KEYS) {
+            if (conf.get(key) != null) {
+                return key + " is set, which the broadcast join would ignore";
+            }
+        }
+        if (statistics == null) {
+            return "the cardinalities are given, so the selected S-tuples are not counted "
+                    + "(set them to 'auto' for the statistics phase)";
+        }
+        if (statistics.getS().getCount() > threshold) {
+            return "the statistics phase selected " + statistics.getS().getCount()
+                    + " S-tuples, more than " + THRESHOLD_KEY + "=" + threshold;
+        }
+        return null;
+    }
+
+    /**
+     * Return the largest number of selected S-tuples of the broadcast join.
+     * @param conf The Configuration of the run
+     * @return The threshold (0 if the broadcast join is off)
+     */
+    public static long getThreshold(Configuration conf) {
+        return conf.getLong(THRESHOLD_KEY, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Create the build phase, which sorts the selected S-tuples of the input
+     * into the file of S.
+     * @param conf The Configuration of the run
+     * @param inputFileLocation The (comma-separated) input
+     * @param buildOutput The output of the build phase
+     * @return The job
+     * @throws IOException
+     */
+    public static Job createBuildJob(Configuration conf, String inputFileLocation,
+            String buildOutput) throws IOException {
+        Job job = new Job(conf, "broadcast-build");
+        job.setJarByClass(HadoopTheta.class);
+        job.setMapperClass(BroadcastBuildMap.class);
+        job.setReducerClass(BroadcastBuildReduce.class);
+        job.setNumReduceTasks(1);
+
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(LongWritable.class);
+        job.setOutputKeyClass(NullWritable.class);
+        job.setOutputValueClass(NullWritable.class);
+
+        //Only the S-tuples of the input are read; the file of S is a side
+        //file of the reducer, so no part files are created
+        job.setInputFormatClass(ThetaJoinInputFormat.class);
+        ThetaJoinInputFormat.addInputPaths(job, inputFileLocation, TaggedTupleWritable.S);
+        LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+
+        Path output = new Path(buildOutput);
+        output.getFileSystem(conf).delete(output, true);
+        FileOutputFormat.setOutputPath(job, output);
+        return job;
+    }
+
+    /**
+     * Create the join phase, which joins the R-tuples of the input with the
+     * file of S on the map side and merges their semi-aggregates.
+     * @param conf The Configuration of the run
+     * @param inputFileLocation The (comma-separated) input
+     * @param buildOutput The output of the build phase
+     * @param outputFileLocation The output of the run (it is overwritten)
+     * @return The job
+     * @throws IOException
+     */
+    public static Job createJoinJob(Configuration conf, String inputFileLocation,
+            String buildOutput, String outputFileLocation) throws IOException {
+        Path file = new Path(buildOutput, FILE_NAME);
+        FileSystem fs = file.getFileSystem(conf);
+        if (!fs.exists(file)) {
+            throw new IOException("The build phase did not write " + file);
+        }
+        file = fs.makeQualified(file);
+
+        Job job = new Job(conf, "broadcast-join");
+        job.getConfiguration().set(FILE_KEY, file.toString());
+        DistributedCache.addCacheFile(file.toUri(), job.getConfiguration());
+
+        job.setJarByClass(HadoopTheta.class);
+        job.setMapperClass(BroadcastThetaJoinMap.class);
+        job.setCombinerClass(PartialAggregateCombine.class);
+        job.setReducerClass(PartialAggregateReduce.class);
+
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(AggregateWritable.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+
+        //Only the R-tuples of the input are read
+        job.setInputFormatClass(ThetaJoinInputFormat.class);
+        ThetaJoinInputFormat.addInputPaths(job, inputFileLocation, TaggedTupleWritable.R);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        Path output = new Path(outputFileLocation);
+        output.getFileSystem(conf).delete(output, true);
+        FileOutputFormat.setOutputPath(job, output);
+        return job;
+    }
+}
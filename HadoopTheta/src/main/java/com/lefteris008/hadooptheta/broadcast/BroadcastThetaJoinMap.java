@@ -0,0 +1,205 @@
+package com.lefteris008.hadooptheta.broadcast;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.ColumnarTupleFile;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinKernel;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap.MapCounter;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2200
+ */
+public class BroadcastThetaJoinMap
+        extends Mapper<LongWritable, TaggedTupleWritable, IntWritable, AggregateWritable> {
+
+    //The number of R-tuples that are buffered before they are joined
+    private static final int BATCH = 65536;
+
+    //The kernel of the file of S is kept by the JVM, so that the map tasks of
+    //a reused JVM (mapred.job.reuse.jvm.num.tasks) load the file only once
+    private static ThetaJoinKernel cachedKernel = null;
+    private static String cachedFile = null;
+
+    private ThetaJoinKernel kernel;
+    private ThetaJoinKernel.Window window;
+    private ThetaQuery query;
+
+    //Buffer of the R.a attributes (along with their multiplicity) and their
+    //semi-aggregates
+    private final int[] tuplesFromR = new int[BATCH];
+    private final long[] multiplicityOfR = new long[BATCH];
+    private final AggregateWritable[] results = new AggregateWritable[BATCH];
+    private int sizeOfR = 0;
+    private long joinedR = 0;
+
+    private final IntWritable outputKey = new IntWritable();
+
+    /**
+     * Load the file of S (the local copy of the DistributedCache) into the
+     * kernel and build its aggregates, once per JVM.
+     *
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        Configuration conf = context.getConfiguration();
+        query = ThetaQuery.fromConfiguration(conf);
+        boolean forceBigInteger = conf.getBoolean(Utilities.BIG_INTEGER_SUM_KEY, false);
+        String file = conf.get(BroadcastThetaJoin.FILE_KEY) + "#"
+                + query.getAggregate().getName() + "#" + forceBigInteger;
+        synchronized (BroadcastThetaJoinMap.class) {
+            if (!file.equals(cachedFile)) {
+                cachedKernel = null;
+                ThetaJoinKernel loaded = new ThetaJoinKernel();
+                loaded.setForceBigInteger(forceBigInteger);
+                load(conf, loaded);
+                //The S-tuples of the file are sorted, so they are not sorted again
+                loaded.build(query.getAggregate());
+                cachedKernel = loaded;
+                cachedFile = file;
+            }
+            kernel = cachedKernel;
+        }
+        window = kernel.new Window();
+        for (int i = 0; i < BATCH; i++) {
+            results[i] = new AggregateWritable();
+        }
+        context.getCounter(MapCounter.S_EMITTED).increment(kernel.size());
+    }
+
+    /**
+     * Read the S-tuples of the file of S into a kernel. The local copy of the
+     * DistributedCache is read if there is one, otherwise the shipped file.
+     * @param conf The Configuration of the job
+     * @param kernel The kernel
+     * @throws IOException
+     */
+    private static void load(Configuration conf, ThetaJoinKernel kernel) throws IOException {
+        Path path = new Path(conf.get(BroadcastThetaJoin.FILE_KEY));
+        FileSystem fs = path.getFileSystem(conf);
+        Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
+        if (localFiles != null) {
+            for (Path localFile : localFiles) {
+                if (localFile.getName().equals(path.getName())) {
+                    path = localFile;
+                    fs = FileSystem.getLocal(conf);
+                    break;
+                }
+            }
+        }
+        ColumnarTupleFile.Reader reader = new ColumnarTupleFile.Reader(fs, path);
+        try {
+            int[] joinAttributes = new int[0];
+            long[] payloads = new long[0];
+            for (int block = 0; block < reader.getBlocks(); block++) {
+                int count = reader.getCount(block);
+                if (joinAttributes.length < count) {
+                    joinAttributes = new int[count];
+                    payloads = new long[count];
+                }
+                reader.readBlock(block, joinAttributes, payloads);
+                for (int i = 0; i < count; i++) {
+                    kernel.add(joinAttributes[i], payloads[i]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        join(context);
+        context.getCounter(MapCounter.R_EMITTED).increment(joinedR);
+        joinedR = 0;
+    }
+
+    /**
+     * This Mapper is the join of the broadcast join. Every map task holds all
+     * the selected S-tuples in the ThetaJoinKernel (sorted by S.a, with the
+     * prefix/suffix aggregates of their S.x attributes) and gets the selected
+     * R-tuples of its split (the input format reads the R-tuples only and
+     * applies the filter). The R-tuples are buffered in batches; every batch
+     * is grouped by the R.a attribute (and so sorted, for the BAND predicate),
+     * every distinct R.a attribute is located in the kernel with a binary
+     * search and its aggregate, multiplied by the number of its R-tuples, is
+     * output. Since every R-tuple is joined with all the S-tuples here, the
+     * aggregate of a R.a attribute is only partial because of the other
+     * batches and map tasks with the same R.a attribute; they are merged by
+     * the PartialAggregateCombine and the PartialAggregateReduce.
+     *
+     * @param key A LongWritable key for the mapping process.
+     * @param value A TaggedTupleWritable value (a R-tuple) for the mapping process.
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void map(LongWritable key, TaggedTupleWritable value, Context context)
+            throws IOException, InterruptedException {
+        if (value.isFromS()) {
+            return;
+        }
+        tuplesFromR[sizeOfR] = value.getJoinAttribute();
+        multiplicityOfR[sizeOfR] = value.getPayload();
+        if (++sizeOfR == BATCH) {
+            join(context);
+        }
+    }
+
+    /**
+     * Join the buffered R-tuples with the kernel and output the aggregates of
+     * their distinct R.a attributes.
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void join(Context context) throws IOException, InterruptedException {
+        if (sizeOfR == 0) {
+            return;
+        }
+        for (int i = 0; i < sizeOfR; i++) {
+            joinedR += multiplicityOfR[i];
+        }
+
+        //Group the R-tuples by their R.a attribute, summing their multiplicities
+        Utilities.sortByKey(tuplesFromR, multiplicityOfR, 0, sizeOfR);
+        int distinct = 0;
+        for (int i = 0; i < sizeOfR; i++) {
+            if (distinct > 0 && tuplesFromR[distinct - 1] == tuplesFromR[i]) {
+                multiplicityOfR[distinct - 1] += multiplicityOfR[i];
+            } else {
+                tuplesFromR[distinct] = tuplesFromR[i];
+                multiplicityOfR[distinct] = multiplicityOfR[i];
+                distinct++;
+            }
+        }
+
+        kernel.prepare(query.getPredicate(), distinct);
+        kernel.locate(query.getPredicate(), query.getBand(), tuplesFromR, 0, distinct);
+        window.reset();
+        kernel.aggregate(query.getAggregate(), multiplicityOfR, 0, distinct, results, 0, window);
+        for (int i = 0; i < distinct; i++) {
+            outputKey.set(tuplesFromR[i]);
+            context.write(outputKey, results[i]);
+        }
+        sizeOfR = 0;
+    }
+
+}
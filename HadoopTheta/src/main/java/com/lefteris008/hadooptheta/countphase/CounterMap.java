@@ -11,14 +11,19 @@ import org.apache.hadoop.mapreduce.Mapper;
  * 
  * @author  Lefteris Paraskevas
  * @author  Alexandros Tzanakas
- * @version 2016.05.14_0027
+ * @version 2026.10.17_1630
  */
 public class CounterMap extends Mapper<LongWritable, Text, IntWritable, Text> {
-	
+
+    //The key and the value are reused for every output record
+    private final IntWritable outputKey = new IntWritable();
+    private final Text outputValue = new Text();
+
     /**
      * This Mapper reads the output file of the previous Map/Reduce phase and
      * outputs the attributes that will find in it to the reducer, by splitting
      * them (the first will be the key and the second will be the value).
+     * The line is split on its bytes, without creating any String.
      *
      * @param key A LongWritable key for the mapping process.
      * @param value A Text value for the mapping process.
@@ -30,14 +35,54 @@ public class CounterMap extends Mapper<LongWritable, Text, IntWritable, Text> {
     public final void map(LongWritable key, Text value, Context context) 
             throws IOException, InterruptedException {
         
-        //Split the two arguments from the input file
-        String line = value.toString();
-        String[] attributes = line.split(",");
+        //Split the two arguments from the input file (at the first comma,
+        //as an empty MIN/MAX semi-aggregate is an empty String)
+        byte[] line = value.getBytes();
+        int length = value.getLength();
+        int comma = 0;
+        while (comma < length && line[comma] != ',') {
+            comma++;
+        }
+        if (comma == length) {
+            throw new IOException("Malformed semi-aggregate: " + value);
+        }
 
         //Output to reducer R.a attribute as the key and
         //the semi-summary of S.x attribute as the value
-        context.write(new IntWritable(Integer.parseInt(attributes[0])), 
-                new Text(attributes[1]));
+        outputKey.set(parseInt(line, 0, comma, value));
+        outputValue.set(line, comma + 1, length - comma - 1);
+        context.write(outputKey, outputValue);
+    }
+
+    /**
+     * Parse a decimal int from the bytes of a line.
+     * @param bytes The bytes of the line
+     * @param start The first byte of the number
+     * @param end The next byte after the number
+     * @param line The line (for the error message only)
+     * @return The number
+     * @throws IOException If the bytes are not a valid int
+     */
+    private static int parseInt(byte[] bytes, int start, int end, Text line) 
+            throws IOException {
+        boolean negative = start < end && bytes[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new IOException("Malformed semi-aggregate: " + line);
+        }
+        long number = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || number > Integer.MAX_VALUE + 1L) {
+                throw new IOException("Malformed semi-aggregate: " + line);
+            }
+            number = number * 10 + digit;
+        }
+        number = negative ? -number : number;
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IOException("Malformed semi-aggregate: " + line);
+        }
+        return (int) number;
     }
 
 }
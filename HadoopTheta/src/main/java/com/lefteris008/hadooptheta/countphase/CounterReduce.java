@@ -1,5 +1,9 @@
 package com.lefteris008.hadooptheta.countphase;
 
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.utilities.Utilities;
 import java.io.IOException;
 import java.math.BigInteger;
 
@@ -11,15 +15,30 @@ import org.apache.hadoop.mapreduce.Reducer;
  *
  * @author Lefteris Paraskevas
  * @author Alexandros Tzanakas
- * @version 2016.05.14_0028
+ * @version 2026.10.17_1430
  */
 public class CounterReduce extends Reducer<IntWritable, Text, Text, Text> {
 
+    private boolean forceBigInteger;
+    private ThetaAggregate aggregate;
+    private final AggregateWritable aggregateX = new AggregateWritable();
+    private final AggregateWritable semiAggregate = new AggregateWritable();
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        forceBigInteger = context.getConfiguration()
+                .getBoolean(Utilities.BIG_INTEGER_SUM_KEY, false);
+        aggregate = ThetaQuery.fromConfiguration(context.getConfiguration()).getAggregate();
+    }
+
     /**
      * This reducer sums all the values that it will receive (which are the
      * semi-summaries of the S.x attribute, calculated from the previous
      * Map/Reduce phase) for a single key and outputs the summaries, grouped by
-     * the R.a attribute as the key
+     * the R.a attribute as the key. The summary is calculated with the long
+     * type and BigInteger is only used when it exceeds its limit (or if the
+     * Utilities.BIG_INTEGER_SUM_KEY property is set). The semi-aggregates of
+     * the MIN, MAX and AVG functions are merged as AggregateWritable objects.
      *
      * @param key An IntWritable key for the reduce process
      * @param values An Iterable list containing Text values for the reduce
@@ -32,21 +51,42 @@ public class CounterReduce extends Reducer<IntWritable, Text, Text, Text> {
     public final void reduce(IntWritable key, Iterable<Text> values, Context context)
             throws IOException, InterruptedException {
         int rA_Attribute = key.get();
-        BigInteger countX = new BigInteger("0");
-        BigInteger tempSum;
-        while (values.iterator().hasNext()) {
+        if (aggregate != ThetaAggregate.SUM && aggregate != ThetaAggregate.COUNT) {
+            aggregateX.clear(aggregate);
+            for (Text value : values) {
+                semiAggregate.setPartial(aggregate, value.toString());
+                aggregateX.merge(semiAggregate);
+            }
+            context.write(null, new Text(rA_Attribute + "\t" + aggregateX));
+            return;
+        }
+
+        //SUM and COUNT are both summaries of their semi-summaries
+        long countX = 0;
+        BigInteger bigCountX = forceBigInteger ? BigInteger.ZERO : null;
+        for (Text value : values) {
             
             //Iterate through the list of values (the semi-summaries of the
             //S.x attribute) and sum every single value
-            tempSum = new BigInteger(values.iterator().next().toString());
-            countX = countX.add(tempSum);
+            String semiSummary = value.toString();
+            if (bigCountX == null) {
+                try {
+                    countX = Math.addExact(countX, Long.parseLong(semiSummary));
+                    continue;
+                } catch (ArithmeticException | NumberFormatException e) {
+                    //The summary (or the semi-summary) exceeds the long type
+                    bigCountX = BigInteger.valueOf(countX);
+                }
+            }
+            bigCountX = bigCountX.add(new BigInteger(semiSummary));
         }
 
         //Output the R.a attribute (the input key) followed by the full summary
         //of the S.x attribute values that the R.a has been joined
         //As previously, 'null' is used as the output key, to store all
         //the outputs of every reducer to a single file
-        context.write(null, new Text(rA_Attribute + "\t" + countX.toString()));
+        context.write(null, new Text(rA_Attribute + "\t" 
+                + (bigCountX != null ? bigCountX.toString() : String.valueOf(countX))));
     }
 
 }
@@ -0,0 +1,46 @@
+package com.lefteris008.hadooptheta.countphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1430
+ */
+public class PartialAggregateCombine 
+        extends Reducer<IntWritable, AggregateWritable, IntWritable, AggregateWritable> {
+
+    private final AggregateWritable aggregateX = new AggregateWritable();
+
+    /**
+     * This Combiner merges, on the Mapper side of the binary pipeline, the 
+     * semi-aggregates of the S.x attribute of a single R.a attribute, so that 
+     * only one semi-aggregate per R.a attribute and Mapper is shuffled to the 
+     * PartialAggregateReduce.
+     *
+     * @param key An IntWritable key (the R.a attribute) for the combining process
+     * @param values An Iterable list containing AggregateWritable values
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void reduce(IntWritable key, Iterable<AggregateWritable> values, 
+            Context context) throws IOException, InterruptedException {
+        boolean first = true;
+        for (AggregateWritable value : values) {
+            if (first) {
+                aggregateX.clear(value.getFunction());
+                first = false;
+            }
+            aggregateX.merge(value);
+        }
+        context.write(key, aggregateX);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.lefteris008.hadooptheta.countphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1430
+ */
+public class PartialAggregateReduce extends Reducer<IntWritable, AggregateWritable, Text, Text> {
+
+    private final AggregateWritable aggregateX = new AggregateWritable();
+    private final Text outputValue = new Text();
+
+    /**
+     * This reducer is the CounterReduce of the binary pipeline. It merges all 
+     * the semi-aggregates of the S.x attribute (as read from the SequenceFile 
+     * output of the previous Map/Reduce phase, or as combined by the 
+     * PartialAggregateCombine) for a single R.a attribute and outputs the 
+     * aggregate, in the same format as the CounterReduce.
+     *
+     * @param key An IntWritable key (the R.a attribute) for the reduce process
+     * @param values An Iterable list containing AggregateWritable values
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void reduce(IntWritable key, Iterable<AggregateWritable> values, 
+            Context context) throws IOException, InterruptedException {
+        boolean first = true;
+        for (AggregateWritable value : values) {
+            if (first) {
+                aggregateX.clear(value.getFunction());
+                first = false;
+            }
+            aggregateX.merge(value);
+        }
+
+        //'null' is used as the output key, to store all the outputs
+        //of every reducer to a single file
+        outputValue.set(key.get() + "\t" + aggregateX);
+        context.write(null, outputValue);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.lefteris008.hadooptheta.countphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2130
+ */
+public class StoredAggregateMap
+        extends Mapper<LongWritable, Text, IntWritable, AggregateWritable> {
+
+    //The key and the value are reused for every output record
+    private final IntWritable outputKey = new IntWritable();
+    private final AggregateWritable outputValue = new AggregateWritable();
+    private ThetaAggregate aggregate;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        aggregate = ThetaQuery.fromConfiguration(context.getConfiguration()).getAggregate();
+    }
+
+    /**
+     * This Mapper reads the output of a previous run (the "R.a TAB aggregate"
+     * lines of the CounterReduce/PartialAggregateReduce) for the merge phase
+     * of the incremental mode, and outputs every aggregate as the
+     * semi-aggregate of its R.a attribute, so that it is merged with the
+     * semi-aggregates of the new tuples by the PartialAggregateCombine and
+     * the PartialAggregateReduce. Only the aggregates that can be merged
+     * from their output (SUM, COUNT, MIN and MAX) are supported; an empty
+     * MIN/MAX is read from its NULL output.
+     *
+     * @param key A LongWritable key for the mapping process.
+     * @param value A Text value (a line of the output) for the mapping process.
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Override
+    public final void map(LongWritable key, Text value, Context context)
+            throws IOException, InterruptedException {
+        String line = value.toString();
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+            throw new IOException("Malformed stored aggregate: " + line);
+        }
+        String stored = line.substring(tab + 1);
+        try {
+            outputKey.set(Integer.parseInt(line.substring(0, tab)));
+            outputValue.setPartial(aggregate, stored.equals(AggregateWritable.NULL) ? "" : stored);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed stored aggregate: " + line, e);
+        }
+        context.write(outputKey, outputValue);
+    }
+
+}
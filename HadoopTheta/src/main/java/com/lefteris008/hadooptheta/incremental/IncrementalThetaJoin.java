@@ -0,0 +1,215 @@
+package com.lefteris008.hadooptheta.incremental;
+
+import com.lefteris008.hadooptheta.HadoopTheta;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateCombine;
+import com.lefteris008.hadooptheta.countphase.PartialAggregateReduce;
+import com.lefteris008.hadooptheta.countphase.StoredAggregateMap;
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * The incremental mode of the Theta-Join. When new tuples (a delta, ΔS and
+ * ΔR) are appended to the input of a previous run, the output of the run is
+ * updated without joining the whole input again, since
+ * (S ∪ ΔS) ⋈ (R ∪ ΔR) = S ⋈ R  ∪  ΔR ⋈ (S ∪ ΔS)  ∪  R ⋈ ΔS
+ * - S ⋈ R is the output of the previous run,
+ * - ΔR ⋈ (S ∪ ΔS) is a Theta-Join phase over the S-tuples of the previous
+ *   input and over the delta (an |S ∪ ΔS| x |ΔR| matrix) and
+ * - R ⋈ ΔS is a Theta-Join phase over the R-tuples of the previous input and
+ *   over the S-tuples of the delta (an |ΔS| x |R| matrix).
+ * Both Theta-Join phases run at the same time and write their semi-aggregates
+ * (binary pipeline) to their own directories. A merge phase reads them with
+ * the aggregates of the previous output (StoredAggregateMap) and merges them
+ * per R.a attribute (PartialAggregateCombine/PartialAggregateReduce) into the
+ * new output, which replaces the previous one.
+ *
+ * Only the aggregates that can be merged from their output are supported
+ * (SUM, COUNT, MIN and MAX, not AVG), with the Hadoop engine. The previous
+ * input is set with hadooptheta.incremental.base; the cardinalities of the
+ * previous input and its query are read from the state of the previous output
+ * (every run writes it next to its output, see writeState), and an output
+ * with a different query is never updated.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2130
+ */
+public final class IncrementalThetaJoin {
+
+    //Configuration property for the (comma-separated) input of the previous
+    //run; if it is set, the input of the run is the delta
+    public static final String BASE_KEY = "hadooptheta.incremental.base";
+
+    //The file of the state in the output (hidden from the FileInputFormat)
+    public static final String STATE_NAME = "_state";
+
+    private static final String STATE_QUERY = "query";
+    private static final String STATE_S = "cardinalityOfS";
+    private static final String STATE_R = "cardinalityOfR";
+
+    private IncrementalThetaJoin() {
+        ///
+    }
+
+    /**
+     * Return true if the Configuration selects the incremental mode.
+     * @param conf The Configuration of the run
+     * @return A boolean flag
+     */
+    public static boolean isSelected(Configuration conf) {
+        String base = conf.get(BASE_KEY);
+        return base != null && !base.trim().isEmpty();
+    }
+
+    /**
+     * Check that the aggregate of a query can be updated incrementally.
+     * @param query The query of the run
+     * @throws IllegalArgumentException If the aggregate is AVG
+     */
+    public static void checkQuery(ThetaQuery query) {
+        if (query.getAggregate() == ThetaAggregate.AVG) {
+            throw new IllegalArgumentException("The aggregate "
+                    + query.getAggregate().getName() + " cannot be updated incrementally");
+        }
+    }
+
+    /**
+     * Write the state of an output: its query and the cardinalities of the
+     * selected tuples of its input.
+     * @param conf The Configuration of the run
+     * @param outputFileLocation The output of the run
+     * @param query The query of the run
+     * @param cardinalityOfS The selected S-tuples of the input
+     * @param cardinalityOfR The selected R-tuples of the input
+     * @return The path of the state
+     * @throws IOException
+     */
+    public static Path writeState(Configuration conf, String outputFileLocation,
+            ThetaQuery query, long cardinalityOfS, long cardinalityOfR) throws IOException {
+        Properties state = new Properties();
+        state.setProperty(STATE_QUERY, query.toString());
+        state.setProperty(STATE_S, Long.toString(cardinalityOfS));
+        state.setProperty(STATE_R, Long.toString(cardinalityOfR));
+        Path path = new Path(outputFileLocation, STATE_NAME);
+        OutputStream out = path.getFileSystem(conf).create(path, true);
+        try {
+            state.store(out, "State of the Theta-Join output");
+        } finally {
+            out.close();
+        }
+        return path;
+    }
+
+    /**
+     * Read the state of a previous output.
+     * @param conf The Configuration of the run
+     * @param outputFileLocation The previous output
+     * @param query The query of the run
+     * @return The selected S-tuples and R-tuples of the previous input
+     * @throws IOException If there is no state, or it is malformed
+     * @throws IllegalArgumentException If the output is of another query
+     */
+    public static long[] readState(Configuration conf, String outputFileLocation,
+            ThetaQuery query) throws IOException {
+        Path path = new Path(outputFileLocation, STATE_NAME);
+        FileSystem fs = path.getFileSystem(conf);
+        if (!fs.exists(path)) {
+            throw new IOException("There is no previous output to update: " + path
+                    + " does not exist");
+        }
+        Properties state = new Properties();
+        InputStream in = fs.open(path);
+        try {
+            state.load(in);
+        } finally {
+            in.close();
+        }
+        if (!query.toString().equals(state.getProperty(STATE_QUERY))) {
+            throw new IllegalArgumentException("The previous output is of the query "
+                    + state.getProperty(STATE_QUERY) + ", not of " + query);
+        }
+        try {
+            return new long[] {Long.parseLong(state.getProperty(STATE_S)),
+                Long.parseLong(state.getProperty(STATE_R))};
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed state: " + path, e);
+        }
+    }
+
+    /**
+     * Create the merge phase: the aggregates of the previous output and the
+     * semi-aggregates of the Theta-Join phases of the delta are merged per
+     * R.a attribute.
+     * @param conf The Configuration of the run
+     * @param previousOutput The output of the previous run
+     * @param joinOutputs The outputs of the Theta-Join phases of the delta
+     * @param mergeOutput The output of the merge phase
+     * @return The job
+     * @throws IOException
+     */
+    public static Job createMergeJob(Configuration conf, String previousOutput,
+            List<String> joinOutputs, String mergeOutput) throws IOException {
+        Job job = new Job(conf, "merge");
+        job.setJarByClass(HadoopTheta.class);
+        job.setCombinerClass(PartialAggregateCombine.class);
+        job.setReducerClass(PartialAggregateReduce.class);
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(AggregateWritable.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        //The previous output is parsed, the semi-aggregates are read as they are
+        MultipleInputs.addInputPath(job, new Path(previousOutput),
+                TextInputFormat.class, StoredAggregateMap.class);
+        for (String joinOutput : joinOutputs) {
+            MultipleInputs.addInputPath(job, new Path(joinOutput),
+                    SequenceFileInputFormat.class, Mapper.class);
+        }
+
+        Path output = new Path(mergeOutput);
+        output.getFileSystem(conf).delete(output, true);
+        FileOutputFormat.setOutputPath(job, output);
+        return job;
+    }
+
+    /**
+     * Replace the previous output with the output of the merge phase.
+     * @param conf The Configuration of the run
+     * @param mergeOutput The output of the merge phase
+     * @param outputFileLocation The output of the run
+     * @throws IOException If the output cannot be replaced
+     */
+    public static void replaceOutput(Configuration conf, String mergeOutput,
+            String outputFileLocation) throws IOException {
+        Path output = new Path(outputFileLocation);
+        Path previous = new Path(output.getParent(), output.getName() + ".previous");
+        FileSystem fs = output.getFileSystem(conf);
+        //The previous output is kept until the new one is in its place
+        fs.delete(previous, true);
+        if (!fs.rename(output, previous) || !fs.rename(new Path(mergeOutput), output)) {
+            throw new IOException("Cannot replace " + output + " with " + mergeOutput);
+        }
+        fs.delete(previous, true);
+    }
+}
@@ -0,0 +1,294 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Binary representation of a (semi-)aggregate of the S.x attribute, for any
+ * aggregate function of the query. Only the state the function needs is kept
+ * and serialized: the summary for SUM, the number of joined tuples for COUNT,
+ * both for AVG and the minimum/maximum for MIN/MAX. Two semi-aggregates of the
+ * same R.a attribute are merged with merge().
+ *
+ * An aggregate over no S-tuples is 0 for SUM and COUNT and NULL for the other
+ * functions.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public class AggregateWritable implements Writable {
+
+    private static final ThetaAggregate[] FUNCTIONS = ThetaAggregate.values();
+    //The output of an aggregate over no S-tuples (except for SUM and COUNT)
+    public static final String NULL = "NULL";
+
+    private ThetaAggregate function = ThetaAggregate.SUM;
+    private final PartialSumWritable sum = new PartialSumWritable();   //SUM, AVG
+    private final PartialSumWritable count = new PartialSumWritable(); //COUNT, AVG
+    private boolean present = false;                                  //MIN, MAX
+    private long extreme = 0;
+
+    /**
+     * Empty constructor
+     */
+    public AggregateWritable() {
+        ///
+    }
+
+    /**
+     * Parametrized constructor.
+     * @param function The aggregate function
+     */
+    public AggregateWritable(ThetaAggregate function) {
+        this.function = function;
+    }
+
+    /**
+     * Return the aggregate function.
+     * @return The aggregate function
+     */
+    public final ThetaAggregate getFunction() {
+        return function;
+    }
+
+    /**
+     * Reset the aggregate to an aggregate over no S-tuples.
+     * @param function The aggregate function
+     */
+    public final void clear(ThetaAggregate function) {
+        this.function = function;
+        sum.set(0L);
+        count.set(0L);
+        present = false;
+        extreme = 0;
+    }
+
+    /**
+     * Return the summary of the S.x attributes (SUM, AVG), so that it can be
+     * set in place.
+     * @return The summary
+     */
+    public final PartialSumWritable getSum() {
+        return sum;
+    }
+
+    /**
+     * Return the number of the joined tuples (COUNT, AVG), so that it can be
+     * set in place.
+     * @return The number of tuples
+     */
+    public final PartialSumWritable getCount() {
+        return count;
+    }
+
+    /**
+     * Set the minimum/maximum S.x attribute (MIN, MAX).
+     * @param value The minimum/maximum
+     */
+    public final void setExtreme(long value) {
+        present = true;
+        extreme = value;
+    }
+
+    /**
+     * Add a single S.x attribute to the aggregate.
+     * @param x The S.x attribute
+     */
+    public final void add(long x) {
+        switch (function) {
+            case SUM:
+                sum.add(x);
+                break;
+            case COUNT:
+                count.add(1L);
+                break;
+            case AVG:
+                sum.add(x);
+                count.add(1L);
+                break;
+            case MIN:
+                if (!present || x < extreme) {
+                    setExtreme(x);
+                }
+                break;
+            default: //MAX
+                if (!present || x > extreme) {
+                    setExtreme(x);
+                }
+        }
+    }
+
+    /**
+     * Remove the S-tuples of another aggregate (of the same function) from
+     * this one, which must contain them. Only the summary and the number of
+     * tuples can be subtracted, so this does not apply to MIN and MAX.
+     * @param other The aggregate of the S-tuples to remove
+     * @throws IllegalStateException If the function is MIN or MAX
+     */
+    public final void subtract(AggregateWritable other) {
+        if (function == ThetaAggregate.MIN || function == ThetaAggregate.MAX) {
+            throw new IllegalStateException("Cannot subtract from " + function);
+        }
+        sum.subtract(other.sum);
+        count.subtract(other.count);
+    }
+
+    /**
+     * Multiply the aggregate by the number of the R-tuples that it is output 
+     * for (the minimum and maximum do not change).
+     * @param multiplicity The number of R-tuples
+     */
+    public final void multiply(long multiplicity) {
+        sum.multiply(multiplicity);
+        count.multiply(multiplicity);
+    }
+
+    /**
+     * Merge another semi-aggregate of the same R.a attribute (and function)
+     * into this one.
+     * @param other The other semi-aggregate
+     */
+    public final void merge(AggregateWritable other) {
+        switch (function) {
+            case SUM:
+                sum.add(other.sum);
+                break;
+            case COUNT:
+                count.add(other.count);
+                break;
+            case AVG:
+                sum.add(other.sum);
+                count.add(other.count);
+                break;
+            case MIN:
+                if (other.present && (!present || other.extreme < extreme)) {
+                    setExtreme(other.extreme);
+                }
+                break;
+            default: //MAX
+                if (other.present && (!present || other.extreme > extreme)) {
+                    setExtreme(other.extreme);
+                }
+        }
+    }
+
+    /**
+     * Format the semi-aggregate for the text pipeline. The summary and the
+     * number of tuples are formatted as they are, AVG as "sum/count" and an
+     * empty MIN/MAX as an empty String.
+     * @return A String that can be parsed by setPartial().
+     */
+    public final String toPartialString() {
+        switch (function) {
+            case SUM:
+                return sum.toString();
+            case COUNT:
+                return count.toString();
+            case AVG:
+                return sum + "/" + count;
+            default: //MIN, MAX
+                return present ? Long.toString(extreme) : "";
+        }
+    }
+
+    /**
+     * Set the semi-aggregate from its text representation.
+     * @param function The aggregate function
+     * @param partial A String formatted by toPartialString()
+     */
+    public final void setPartial(ThetaAggregate function, String partial) {
+        clear(function);
+        switch (function) {
+            case SUM:
+                sum.set(partial);
+                break;
+            case COUNT:
+                count.set(partial);
+                break;
+            case AVG:
+                int slash = partial.indexOf('/');
+                sum.set(partial.substring(0, slash));
+                count.set(partial.substring(slash + 1));
+                break;
+            default: //MIN, MAX
+                if (!partial.isEmpty()) {
+                    setExtreme(Long.parseLong(partial));
+                }
+        }
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(function.ordinal());
+        switch (function) {
+            case SUM:
+                sum.write(out);
+                break;
+            case COUNT:
+                count.write(out);
+                break;
+            case AVG:
+                sum.write(out);
+                count.write(out);
+                break;
+            default: //MIN, MAX
+                out.writeBoolean(present);
+                if (present) {
+                    WritableUtils.writeVLong(out, extreme);
+                }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        clear(FUNCTIONS[in.readByte()]);
+        switch (function) {
+            case SUM:
+                sum.readFields(in);
+                break;
+            case COUNT:
+                count.readFields(in);
+                break;
+            case AVG:
+                sum.readFields(in);
+                count.readFields(in);
+                break;
+            default: //MIN, MAX
+                if (in.readBoolean()) {
+                    setExtreme(WritableUtils.readVLong(in));
+                }
+        }
+    }
+
+    /**
+     * Return the final value of the aggregate (AVG is rounded to 16
+     * significant digits).
+     * @return A String representing the aggregate.
+     */
+    @Override
+    public String toString() {
+        switch (function) {
+            case SUM:
+                return sum.toString();
+            case COUNT:
+                return count.toString();
+            case AVG:
+                if (count.isLong() && count.get() == 0) {
+                    return NULL;
+                }
+                return new BigDecimal(sum.toBigInteger())
+                        .divide(new BigDecimal(count.toBigInteger()), MathContext.DECIMAL64)
+                        .stripTrailingZeros().toPlainString();
+            default: //MIN, MAX
+                return present ? Long.toString(extreme) : NULL;
+        }
+    }
+}
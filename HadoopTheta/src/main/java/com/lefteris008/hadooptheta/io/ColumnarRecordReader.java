@@ -0,0 +1,178 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap.MapCounter;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * RecordReader of the Theta-Join phase for the columnar files of a relation
+ * (ColumnarTupleFile). A split reads the blocks that start inside it. A block
+ * whose range of join attributes [minimum, maximum] cannot hold any tuple
+ * that the query selects (ThetaQuery.selectsAnyS/selectsAnyR) is skipped
+ * without being read; every other block is decoded into primitive arrays and
+ * its tuples are filtered one by one, like by the ThetaJoinRecordReader.
+ * The key of a tuple is its position in the file (the offset of its block
+ * plus its index in the block), which identifies it for the placement of the
+ * tuples as the offset of a line does.
+ *
+ * The tuples of the skipped blocks are counted as read and filtered
+ * (ThetaJoinMap.MapCounter), and the blocks as read or skipped
+ * (BlockCounter).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2130
+ */
+public class ColumnarRecordReader extends RecordReader<LongWritable, TaggedTupleWritable> {
+
+    /**
+     * Counters of the blocks of the columnar files.
+     */
+    public static enum BlockCounter {
+        BLOCKS_READ, BLOCKS_SKIPPED
+    }
+
+    private final LongWritable key = new LongWritable();
+    private final TaggedTupleWritable tuple = new TaggedTupleWritable();
+    private ColumnarTupleFile.Reader file;
+    private ThetaQuery query;
+    private boolean filter;
+    private boolean fromS;
+    private TaskInputOutputContext<?, ?, ?, ?> taskContext = null;
+
+    //The blocks of the split, the next one and the decoded tuples of the
+    //current one
+    private int[] blocks;
+    private int nextBlock = 0;
+    private int[] joinAttributes = new int[0];
+    private long[] payloads = new long[0];
+    private int size = 0;
+    private int position = 0;
+    private long offset = 0;
+
+    private long read = 0, filtered = 0, blocksRead = 0, blocksSkipped = 0;
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context)
+            throws IOException, InterruptedException {
+        FileSplit fileSplit = (FileSplit) split;
+        Configuration conf = context.getConfiguration();
+        Path path = fileSplit.getPath();
+        file = new ColumnarTupleFile.Reader(path.getFileSystem(conf), path);
+        fromS = file.getRelation() == TaggedTupleWritable.S;
+        query = ThetaQuery.fromConfiguration(conf);
+        filter = conf.getBoolean(ThetaJoinInputFormat.FILTER_KEY, true);
+        if (context instanceof TaskInputOutputContext) {
+            taskContext = (TaskInputOutputContext<?, ?, ?, ?>) context;
+        }
+
+        //The blocks that start in the split (none if the relation of the file
+        //is not an input of the job)
+        byte relation = ThetaJoinInputFormat.relationOf(conf, path);
+        long start = fileSplit.getStart();
+        long end = start + fileSplit.getLength();
+        int count = 0;
+        blocks = new int[file.getBlocks()];
+        for (int block = 0; block < file.getBlocks(); block++) {
+            if ((relation == 0 || relation == file.getRelation())
+                    && file.getOffset(block) >= start && file.getOffset(block) < end) {
+                blocks[count++] = block;
+            }
+        }
+        blocks = Arrays.copyOf(blocks, count);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+        while (true) {
+            while (position < size) {
+                int a = joinAttributes[position];
+                key.set(offset + position);
+                position++;
+                read++;
+                if (filter && !(fromS ? query.selectsS(a) : query.selectsR(a))) {
+                    filtered++;
+                    continue;
+                }
+                tuple.set(fromS ? TaggedTupleWritable.S : TaggedTupleWritable.R, a,
+                        fromS ? payloads[position - 1] : 1);
+                return true;
+            }
+            if (!nextBlock()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Decode the next block of the split that the query may select.
+     * @return False if there are no more blocks
+     */
+    private boolean nextBlock() throws IOException {
+        while (nextBlock < blocks.length) {
+            int block = blocks[nextBlock++];
+            int count = file.getCount(block);
+            int min = file.getMin(block);
+            int max = file.getMax(block);
+            if (filter && !(fromS ? query.selectsAnyS(min, max) : query.selectsAnyR(min, max))) {
+                read += count;
+                filtered += count;
+                blocksSkipped++;
+                continue;
+            }
+            if (joinAttributes.length < count) {
+                joinAttributes = new int[count];
+                payloads = new long[fromS ? count : 0];
+            }
+            file.readBlock(block, joinAttributes, payloads);
+            blocksRead++;
+            offset = file.getOffset(block);
+            size = count;
+            position = 0;
+            return true;
+        }
+        size = position = 0;
+        return false;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+        return key;
+    }
+
+    @Override
+    public TaggedTupleWritable getCurrentValue() {
+        return tuple;
+    }
+
+    @Override
+    public float getProgress() {
+        return blocks.length == 0 ? 1.0f : (float) nextBlock / blocks.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (taskContext != null) {
+            taskContext.getCounter(fromS ? MapCounter.S_READ : MapCounter.R_READ)
+                    .increment(read);
+            taskContext.getCounter(fromS ? MapCounter.S_FILTERED : MapCounter.R_FILTERED)
+                    .increment(filtered);
+            taskContext.getCounter(BlockCounter.BLOCKS_READ).increment(blocksRead);
+            taskContext.getCounter(BlockCounter.BLOCKS_SKIPPED).increment(blocksSkipped);
+            read = filtered = blocksRead = blocksSkipped = 0;
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+}
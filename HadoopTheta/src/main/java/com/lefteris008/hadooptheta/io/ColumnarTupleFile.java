@@ -0,0 +1,396 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.utilities.TupleParser;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.LineReader;
+
+/**
+ * Binary columnar file of the tuples of a single relation (S or R), an
+ * alternative input of the Theta-Join to the "S,a,x" and "R,a" lines. The
+ * tuples are stored in blocks (of hadooptheta.columnar.blockSize tuples),
+ * every block holding the column of the join attributes (4-byte integers)
+ * followed by the column of the S.x attributes (8-byte longs, S only), so a
+ * block is decoded with bulk copies and without any parsing. The footer of
+ * the file indexes every block with its offset, its number of tuples and the
+ * minimum and maximum of its join attributes, so that a reader can skip the
+ * blocks that the query can never select without reading them.
+ *
+ * The layout of a file is:
+ * - the header: the MAGIC bytes and the relation ('S' or 'R'),
+ * - the blocks,
+ * - the footer: the number of blocks and the (offset, tuples, minimum,
+ *   maximum) of every block,
+ * - the trailer: the offset of the footer and the MAGIC bytes.
+ * All the numbers are big-endian. The files are recognized by their
+ * extension (EXTENSION).
+ *
+ * A text input file is converted to a file of S and a file of R with:
+ * ColumnarTupleFile [-D ...] inputFile outputDirectory
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2100
+ */
+public final class ColumnarTupleFile {
+
+    //The extension of the columnar files
+    public static final String EXTENSION = ".tcol";
+
+    //Configuration property for the number of tuples of every block
+    public static final String BLOCK_SIZE_KEY = "hadooptheta.columnar.blockSize";
+    public static final int DEFAULT_BLOCK_SIZE = 65536;
+
+    private static final byte[] MAGIC = {'H', 'T', 'C', '1'};
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int TRAILER_SIZE = 8 + MAGIC.length;
+
+    private ColumnarTupleFile() {
+        ///
+    }
+
+    /**
+     * Return true if a file is a columnar file (by its extension).
+     * @param path The path of the file
+     * @return A boolean flag
+     */
+    public static boolean isColumnar(Path path) {
+        return path.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Return the bytes of a block of a relation.
+     */
+    private static int bytesOf(byte relation, int tuples) {
+        return tuples * (relation == TaggedTupleWritable.S ? 4 + 8 : 4);
+    }
+
+    /**
+     * Writer of a columnar file. The tuples are buffered until a block is
+     * full, and the footer is written when the writer is closed.
+     */
+    public static final class Writer {
+
+        private final FSDataOutputStream out;
+        private final byte relation;
+        private final int[] joinAttributes;
+        private final long[] payloads;
+        private final ByteBuffer block;
+        private int size = 0;
+
+        private long[] offsets = new long[16];
+        private int[] counts = new int[16];
+        private int[] minimums = new int[16];
+        private int[] maximums = new int[16];
+        private int blocks = 0;
+
+        /**
+         * Parametrized constructor.
+         * @param out The stream of the file (closed by the writer)
+         * @param relation The relation of the tuples (TaggedTupleWritable.S or R)
+         * @param blockSize The number of tuples of every block
+         * @throws IOException
+         */
+        public Writer(FSDataOutputStream out, byte relation, int blockSize) throws IOException {
+            if (relation != TaggedTupleWritable.S && relation != TaggedTupleWritable.R) {
+                throw new IllegalArgumentException("Unknown relation: " + (char) relation);
+            }
+            if (blockSize <= 0) {
+                throw new IllegalArgumentException("Invalid block size: " + blockSize);
+            }
+            this.out = out;
+            this.relation = relation;
+            this.joinAttributes = new int[blockSize];
+            this.payloads = new long[relation == TaggedTupleWritable.S ? blockSize : 0];
+            this.block = ByteBuffer.allocate(bytesOf(relation, blockSize));
+            out.write(MAGIC);
+            out.writeByte(relation);
+        }
+
+        /**
+         * Append a tuple.
+         * @param a The join attribute
+         * @param x The S.x attribute (ignored for R)
+         * @throws IOException
+         */
+        public void append(int a, long x) throws IOException {
+            joinAttributes[size] = a;
+            if (payloads.length > 0) {
+                payloads[size] = x;
+            }
+            if (++size == joinAttributes.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Write the buffered tuples as a block and index it.
+         */
+        private void flush() throws IOException {
+            if (size == 0) {
+                return;
+            }
+            if (blocks == offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * blocks);
+                counts = Arrays.copyOf(counts, 2 * blocks);
+                minimums = Arrays.copyOf(minimums, 2 * blocks);
+                maximums = Arrays.copyOf(maximums, 2 * blocks);
+            }
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, joinAttributes[i]);
+                max = Math.max(max, joinAttributes[i]);
+            }
+            offsets[blocks] = out.getPos();
+            counts[blocks] = size;
+            minimums[blocks] = min;
+            maximums[blocks] = max;
+            blocks++;
+
+            ((Buffer) block).clear();
+            block.asIntBuffer().put(joinAttributes, 0, size);
+            if (payloads.length > 0) {
+                ((Buffer) block).position(4 * size);
+                block.asLongBuffer().put(payloads, 0, size);
+            }
+            out.write(block.array(), 0, bytesOf(relation, size));
+            size = 0;
+        }
+
+        /**
+         * Write the last block and the footer, and close the file.
+         * @throws IOException
+         */
+        public void close() throws IOException {
+            try {
+                flush();
+                long footer = out.getPos();
+                out.writeInt(blocks);
+                for (int i = 0; i < blocks; i++) {
+                    out.writeLong(offsets[i]);
+                    out.writeInt(counts[i]);
+                    out.writeInt(minimums[i]);
+                    out.writeInt(maximums[i]);
+                }
+                out.writeLong(footer);
+                out.write(MAGIC);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reader of a columnar file. The footer is read when the file is opened
+     * and every block is read on demand, with a positional read.
+     */
+    public static final class Reader {
+
+        private final FSDataInputStream in;
+        private final byte relation;
+        private final long[] offsets;
+        private final int[] counts;
+        private final int[] minimums;
+        private final int[] maximums;
+        private byte[] buffer = new byte[0];
+
+        /**
+         * Open a columnar file and read its footer.
+         * @param fs The FileSystem of the file
+         * @param path The path of the file
+         * @throws IOException If the file is not a valid columnar file
+         */
+        public Reader(FileSystem fs, Path path) throws IOException {
+            long length = fs.getFileStatus(path).getLen();
+            in = fs.open(path);
+            try {
+                byte[] header = new byte[HEADER_SIZE];
+                byte[] trailer = new byte[TRAILER_SIZE];
+                if (length < HEADER_SIZE + 4 + TRAILER_SIZE) {
+                    throw new IOException("Not a columnar file (too short): " + path);
+                }
+                in.readFully(0, header);
+                in.readFully(length - TRAILER_SIZE, trailer);
+                if (!Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)
+                        || !Arrays.equals(Arrays.copyOfRange(trailer, 8, TRAILER_SIZE), MAGIC)) {
+                    throw new IOException("Not a columnar file: " + path);
+                }
+                relation = header[MAGIC.length];
+                if (relation != TaggedTupleWritable.S && relation != TaggedTupleWritable.R) {
+                    throw new IOException("Unknown relation in columnar file: " + path);
+                }
+
+                long footer = ByteBuffer.wrap(trailer).getLong();
+                if (footer < HEADER_SIZE || footer > length - TRAILER_SIZE - 4) {
+                    throw new IOException("Corrupt footer of columnar file: " + path);
+                }
+                in.seek(footer);
+                int blocks = in.readInt();
+                if (blocks < 0 || (long) blocks * 20 != length - TRAILER_SIZE - footer - 4) {
+                    throw new IOException("Corrupt footer of columnar file: " + path);
+                }
+                offsets = new long[blocks];
+                counts = new int[blocks];
+                minimums = new int[blocks];
+                maximums = new int[blocks];
+                for (int i = 0; i < blocks; i++) {
+                    offsets[i] = in.readLong();
+                    counts[i] = in.readInt();
+                    minimums[i] = in.readInt();
+                    maximums[i] = in.readInt();
+                }
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Return the relation of the tuples of the file.
+         * @return TaggedTupleWritable.S or TaggedTupleWritable.R
+         */
+        public byte getRelation() {
+            return relation;
+        }
+
+        /**
+         * Return the number of blocks of the file.
+         * @return The number of blocks
+         */
+        public int getBlocks() {
+            return offsets.length;
+        }
+
+        /**
+         * Return the offset of a block in the file.
+         * @param block The block [0, getBlocks())
+         * @return The offset of the block
+         */
+        public long getOffset(int block) {
+            return offsets[block];
+        }
+
+        /**
+         * Return the number of tuples of a block.
+         * @param block The block [0, getBlocks())
+         * @return The number of tuples
+         */
+        public int getCount(int block) {
+            return counts[block];
+        }
+
+        /**
+         * Return the lowest join attribute of a block.
+         * @param block The block [0, getBlocks())
+         * @return The minimum of the join attributes
+         */
+        public int getMin(int block) {
+            return minimums[block];
+        }
+
+        /**
+         * Return the highest join attribute of a block.
+         * @param block The block [0, getBlocks())
+         * @return The maximum of the join attributes
+         */
+        public int getMax(int block) {
+            return maximums[block];
+        }
+
+        /**
+         * Read and decode a block.
+         * @param block The block [0, getBlocks())
+         * @param joinAttributes The array of the join attributes (at least
+         * getCount(block) long)
+         * @param payloads The array of the S.x attributes (ignored for R)
+         * @throws IOException
+         */
+        public void readBlock(int block, int[] joinAttributes, long[] payloads)
+                throws IOException {
+            int count = counts[block];
+            int bytes = bytesOf(relation, count);
+            if (buffer.length < bytes) {
+                buffer = new byte[bytes];
+            }
+            in.readFully(offsets[block], buffer, 0, bytes);
+            ByteBuffer columns = ByteBuffer.wrap(buffer, 0, bytes);
+            columns.asIntBuffer().get(joinAttributes, 0, count);
+            if (relation == TaggedTupleWritable.S) {
+                ((Buffer) columns).position(4 * count);
+                columns.asLongBuffer().get(payloads, 0, count);
+            }
+        }
+
+        /**
+         * Close the file.
+         * @throws IOException
+         */
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        Configuration conf = new Configuration();
+        args = new GenericOptionsParser(conf, args).getRemainingArgs();
+        if (args.length != 2) {
+            System.out.println("Usage: ColumnarTupleFile [-D ...] inputFile outputDirectory");
+            System.exit(1);
+        }
+        Path input = new Path(args[0]);
+        Path output = new Path(args[1]);
+        FileSystem inputFs = input.getFileSystem(conf);
+        FileSystem outputFs = output.getFileSystem(conf);
+        int blockSize = conf.getInt(BLOCK_SIZE_KEY, DEFAULT_BLOCK_SIZE);
+        boolean skipMalformed = conf.getBoolean(TupleParser.SKIP_MALFORMED_KEY, false);
+
+        TupleParser parser = TupleParser.fromConfiguration(conf);
+        Writer writerOfS = new Writer(outputFs.create(new Path(output, "S" + EXTENSION)),
+                TaggedTupleWritable.S, blockSize);
+        Writer writerOfR = new Writer(outputFs.create(new Path(output, "R" + EXTENSION)),
+                TaggedTupleWritable.R, blockSize);
+        LineReader lines = new LineReader(inputFs.open(input), conf);
+        Text line = new Text();
+        long offset = 0, tuplesOfS = 0, tuplesOfR = 0, malformed = 0;
+        try {
+            for (int length; (length = lines.readLine(line)) > 0; offset += length) {
+                if (line.getLength() == 0) {
+                    continue;
+                }
+                if (!parser.parse(line)) {
+                    if (!skipMalformed) {
+                        throw new IOException("Malformed tuple at byte " + offset + ": "
+                                + parser.describeError());
+                    }
+                    malformed++;
+                } else if (parser.isFromS()) {
+                    writerOfS.append(parser.getJoinAttribute(), parser.getPayload());
+                    tuplesOfS++;
+                } else {
+                    writerOfR.append(parser.getJoinAttribute(), 0);
+                    tuplesOfR++;
+                }
+            }
+        } finally {
+            lines.close();
+            writerOfS.close();
+            writerOfR.close();
+        }
+        System.out.println("Wrote " + tuplesOfS + " S-tuples and " + tuplesOfR
+                + " R-tuples to " + output);
+        if (malformed > 0) {
+            System.out.println("Skipped " + malformed + " malformed lines");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Binary representation of a (semi-)summary of the S.x attribute. The summary
+ * is kept in a long and it is only promoted to a BigInteger when it exceeds
+ * the limit of the long type, so that the common case neither allocates nor
+ * formats any number.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1700
+ */
+public class PartialSumWritable implements Writable {
+
+    private long sum = 0;
+    private BigInteger bigSum = null; //Only used when the summary overflows
+
+    /**
+     * Empty constructor
+     */
+    public PartialSumWritable() {
+        ///
+    }
+
+    /**
+     * Set the summary to a long value.
+     * @param value The new summary
+     */
+    public final void set(long value) {
+        sum = value;
+        bigSum = null;
+    }
+
+    /**
+     * Set the summary to a BigInteger value.
+     * @param value The new summary
+     */
+    public final void set(BigInteger value) {
+        if (value.bitLength() < Long.SIZE) {
+            set(value.longValue());
+        } else {
+            bigSum = value;
+        }
+    }
+
+    /**
+     * Set the summary to the value of a decimal String.
+     * @param value The new summary (e.g. as formatted by toString())
+     * @throws NumberFormatException If the String is not an integer
+     */
+    public final void set(String value) {
+        try {
+            set(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            set(new BigInteger(value));
+        }
+    }
+
+    /**
+     * Add a long value to the summary.
+     * @param value The value to add
+     */
+    public final void add(long value) {
+        if (bigSum == null) {
+            try {
+                sum = Math.addExact(sum, value);
+                return;
+            } catch (ArithmeticException e) {
+                bigSum = BigInteger.valueOf(sum);
+            }
+        }
+        set(bigSum.add(BigInteger.valueOf(value)));
+    }
+
+    /**
+     * Add another summary to this summary.
+     * @param other The summary to add
+     */
+    public final void add(PartialSumWritable other) {
+        if (other.bigSum == null) {
+            add(other.sum);
+        } else {
+            set(toBigInteger().add(other.bigSum));
+        }
+    }
+
+    /**
+     * Subtract another summary from this summary.
+     * @param other The summary to subtract
+     */
+    public final void subtract(PartialSumWritable other) {
+        if (bigSum == null && other.bigSum == null) {
+            try {
+                sum = Math.subtractExact(sum, other.sum);
+                return;
+            } catch (ArithmeticException e) {
+                //Handled below with BigInteger
+            }
+        }
+        set(toBigInteger().subtract(other.toBigInteger()));
+    }
+
+    /**
+     * Multiply the summary by a long value.
+     * @param value The multiplier
+     */
+    public final void multiply(long value) {
+        if (bigSum == null) {
+            try {
+                sum = Math.multiplyExact(sum, value);
+                return;
+            } catch (ArithmeticException e) {
+                bigSum = BigInteger.valueOf(sum);
+            }
+        }
+        set(bigSum.multiply(BigInteger.valueOf(value)));
+    }
+
+    /**
+     * Return true if the summary fits in a long.
+     * @return A boolean flag.
+     */
+    public final boolean isLong() {
+        return bigSum == null;
+    }
+
+    /**
+     * Return the summary as a long. Must only be used if isLong() is true.
+     * @return The summary
+     */
+    public final long get() {
+        return sum;
+    }
+
+    /**
+     * Return the summary as a BigInteger.
+     * @return The summary
+     */
+    public final BigInteger toBigInteger() {
+        return bigSum != null ? bigSum : BigInteger.valueOf(sum);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (bigSum == null) {
+            out.writeBoolean(false);
+            WritableUtils.writeVLong(out, sum);
+        } else {
+            out.writeBoolean(true);
+            byte[] bytes = bigSum.toByteArray();
+            WritableUtils.writeVInt(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            set(WritableUtils.readVLong(in));
+        } else {
+            byte[] bytes = new byte[WritableUtils.readVInt(in)];
+            in.readFully(bytes);
+            bigSum = new BigInteger(bytes);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return bigSum != null ? bigSum.toString() : Long.toString(sum);
+    }
+}
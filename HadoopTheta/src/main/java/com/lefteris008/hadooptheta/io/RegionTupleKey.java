@@ -0,0 +1,181 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+/**
+ * Composite key of the Theta-Join phase for the secondary sort: the region,
+ * the relation of the tuple and its join attribute. The keys are sorted by
+ * the region, then the S-tuples before the R-tuples and then by the join
+ * attribute (ascending), while the GroupingComparator groups them by the
+ * region only. So every reduce() call gets all the tuples of a region, with
+ * the S-tuples sorted by S.a first and the R-tuples sorted by R.a next.
+ *
+ * All the fields have a fixed size, so that the serialized keys are compared
+ * without deserializing them.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1730
+ */
+public class RegionTupleKey implements WritableComparable<RegionTupleKey> {
+
+    private int region;
+    private byte relation;
+    private int joinAttribute;
+
+    /**
+     * Empty constructor
+     */
+    public RegionTupleKey() {
+        ///
+    }
+
+    /**
+     * Set all the fields of the key, so that the object can be reused.
+     * @param region The region (from 1 to the number of regions)
+     * @param relation The relation of the tuple (S or R)
+     * @param joinAttribute The S.a or R.a attribute
+     */
+    public final void set(int region, byte relation, int joinAttribute) {
+        this.region = region;
+        this.relation = relation;
+        this.joinAttribute = joinAttribute;
+    }
+
+    /**
+     * Return the region of the key.
+     * @return The region
+     */
+    public final int getRegion() {
+        return region;
+    }
+
+    /**
+     * Return the relation of the tuple.
+     * @return S or R
+     */
+    public final byte getRelation() {
+        return relation;
+    }
+
+    /**
+     * Return the join attribute of the tuple.
+     * @return The S.a or R.a attribute
+     */
+    public final int getJoinAttribute() {
+        return joinAttribute;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(region);
+        out.writeByte(relation);
+        out.writeInt(joinAttribute);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        region = in.readInt();
+        relation = in.readByte();
+        joinAttribute = in.readInt();
+    }
+
+    @Override
+    public int compareTo(RegionTupleKey other) {
+        if (region != other.region) {
+            return region < other.region ? -1 : 1;
+        }
+        if (relation != other.relation) {
+            return rank(relation) - rank(other.relation);
+        }
+        return joinAttribute < other.joinAttribute ? -1
+                : (joinAttribute == other.joinAttribute ? 0 : 1);
+    }
+
+    /**
+     * The S-tuples are sorted before the R-tuples.
+     */
+    private static int rank(byte relation) {
+        return relation == TaggedTupleWritable.S ? 0 : 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RegionTupleKey)) {
+            return false;
+        }
+        RegionTupleKey other = (RegionTupleKey) o;
+        return region == other.region && relation == other.relation
+                && joinAttribute == other.joinAttribute;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * region + relation) + joinAttribute;
+    }
+
+    @Override
+    public String toString() {
+        return region + ":" + (char) relation + "," + joinAttribute;
+    }
+
+    /**
+     * A RawComparator that sorts the serialized keys without deserializing
+     * them.
+     */
+    public static class Comparator extends WritableComparator {
+
+        public Comparator() {
+            super(RegionTupleKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int region1 = readInt(b1, s1);
+            int region2 = readInt(b2, s2);
+            if (region1 != region2) {
+                return region1 < region2 ? -1 : 1;
+            }
+            if (b1[s1 + 4] != b2[s2 + 4]) {
+                return rank(b1[s1 + 4]) - rank(b2[s2 + 4]);
+            }
+            int a1 = readInt(b1, s1 + 5);
+            int a2 = readInt(b2, s2 + 5);
+            return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+        }
+    }
+
+    /**
+     * A RawComparator that groups the keys by their region only.
+     */
+    public static class GroupingComparator extends WritableComparator {
+
+        public GroupingComparator() {
+            super(RegionTupleKey.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            int region1 = readInt(b1, s1);
+            int region2 = readInt(b2, s2);
+            return region1 < region2 ? -1 : (region1 == region2 ? 0 : 1);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public int compare(WritableComparable a, WritableComparable b) {
+            int region1 = ((RegionTupleKey) a).region;
+            int region2 = ((RegionTupleKey) b).region;
+            return region1 < region2 ? -1 : (region1 == region2 ? 0 : 1);
+        }
+    }
+
+    static {
+        WritableComparator.define(RegionTupleKey.class, new Comparator());
+    }
+}
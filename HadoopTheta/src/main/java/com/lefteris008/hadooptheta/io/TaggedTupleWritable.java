@@ -0,0 +1,163 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Binary representation of a tuple that is shuffled from the Mappers to the
+ * Reducers of the Theta-Join phase. It holds the relation the tuple comes from
+ * ('S' or 'R'), the join attribute (S.a or R.a) and a long payload, which is
+ * the S.x attribute for S-tuples and the multiplicity (the number of R-tuples
+ * with the same R.a attribute) for R-tuples. The join attribute and the
+ * payload are stored as variable-length integers, so no string formatting or
+ * parsing takes place on either side of the shuffle.
+ *
+ * A tuple that is written many times (e.g. replicated to all the regions of
+ * its row) can be serialized once with serialize(); until it is set again,
+ * write() copies the serialized bytes instead of encoding the fields.
+ *
+ * It is only shuffled as a value (the keys are the regions or the
+ * RegionTupleKey), so it is a plain Writable, without any ordering.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class TaggedTupleWritable implements Writable {
+
+    public static final byte S = 'S';
+    public static final byte R = 'R';
+
+    private byte relation;
+    private int joinAttribute;
+    private long payload;
+
+    //The serialized fields, valid while 'serialized' is true (see serialize())
+    private DataOutputBuffer bytes = null;
+    private boolean serialized = false;
+
+    /**
+     * Empty constructor
+     */
+    public TaggedTupleWritable() {
+        ///
+    }
+
+    /**
+     * Parametrized constructor.
+     * @param relation The relation of the tuple (S or R)
+     * @param joinAttribute The S.a or R.a attribute
+     * @param payload The S.x attribute or the multiplicity of the R-tuple
+     */
+    public TaggedTupleWritable(byte relation, int joinAttribute, long payload) {
+        set(relation, joinAttribute, payload);
+    }
+
+    /**
+     * Set all the fields of the tuple, so that the object can be reused.
+     * @param relation The relation of the tuple (S or R)
+     * @param joinAttribute The S.a or R.a attribute
+     * @param payload The S.x attribute or the multiplicity of the R-tuple
+     */
+    public final void set(byte relation, int joinAttribute, long payload) {
+        this.relation = relation;
+        this.joinAttribute = joinAttribute;
+        this.payload = payload;
+        this.serialized = false;
+    }
+
+    /**
+     * Serialize the fields of the tuple once, so that every following write()
+     * (until the tuple is set or read again) only copies the bytes.
+     * @throws IOException
+     */
+    public final void serialize() throws IOException {
+        if (bytes == null) {
+            bytes = new DataOutputBuffer(16); //At most 1 + 5 + 9 bytes
+        }
+        bytes.reset();
+        writeFields(bytes);
+        serialized = true;
+    }
+
+    /**
+     * Return the relation of the tuple.
+     * @return S or R
+     */
+    public final byte getRelation() {
+        return relation;
+    }
+
+    /**
+     * Return true if the tuple comes from the S relation.
+     * @return A boolean flag.
+     */
+    public final boolean isFromS() {
+        return relation == S;
+    }
+
+    /**
+     * Return the join attribute of the tuple.
+     * @return The S.a or R.a attribute
+     */
+    public final int getJoinAttribute() {
+        return joinAttribute;
+    }
+
+    /**
+     * Return the payload of the tuple.
+     * @return The S.x attribute or the multiplicity of the R-tuple
+     */
+    public final long getPayload() {
+        return payload;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (serialized) {
+            out.write(bytes.getData(), 0, bytes.getLength());
+        } else {
+            writeFields(out);
+        }
+    }
+
+    private void writeFields(DataOutput out) throws IOException {
+        out.writeByte(relation);
+        WritableUtils.writeVInt(out, joinAttribute);
+        WritableUtils.writeVLong(out, payload);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        relation = in.readByte();
+        joinAttribute = WritableUtils.readVInt(in);
+        payload = WritableUtils.readVLong(in);
+        serialized = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TaggedTupleWritable)) {
+            return false;
+        }
+        TaggedTupleWritable other = (TaggedTupleWritable) o;
+        return relation == other.relation && joinAttribute == other.joinAttribute
+                && payload == other.payload;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 31 * relation + joinAttribute;
+        return 31 * hash + (int) (payload ^ (payload >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return (char) relation + "," + joinAttribute + "," + payload;
+    }
+}
@@ -0,0 +1,113 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * InputFormat of the Theta-Join phase. It splits the input text files like
+ * TextInputFormat, but every line is parsed by a ThetaJoinRecordReader into
+ * a TaggedTupleWritable, and only the tuples that pass the filter of the query
+ * are handed to the Mapper.
+ * The columnar files of S and R (ColumnarTupleFile, recognized by their
+ * extension) are read by a ColumnarRecordReader instead, so that the input
+ * of a job can hold text files, columnar files or both (e.g. the file of S
+ * and the file of R, as separate input paths).
+ * An input path can be restricted to one of the relations (addInputPaths),
+ * so that the tuples of the other one are skipped by the RecordReader, e.g.
+ * for the joins of the incremental mode.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2130
+ */
+public class ThetaJoinInputFormat extends FileInputFormat<LongWritable, TaggedTupleWritable> {
+
+    //Configuration property to hand all the tuples to the Mapper, without 
+    //the filter of the query (for the statistics phase)
+    public static final String FILTER_KEY = "hadooptheta.input.filter";
+
+    //Configuration properties with the (qualified, comma-separated) input 
+    //paths of which only the S-tuples or only the R-tuples are read
+    public static final String ONLY_S_KEY = "hadooptheta.input.onlyS";
+    public static final String ONLY_R_KEY = "hadooptheta.input.onlyR";
+
+    /**
+     * Add input paths of which only the tuples of a relation are read.
+     * @param job The job
+     * @param commaSeparatedPaths The input paths (files or directories)
+     * @param relation TaggedTupleWritable.S or TaggedTupleWritable.R
+     * @throws IOException 
+     */
+    public static void addInputPaths(Job job, String commaSeparatedPaths, byte relation)
+            throws IOException {
+        Configuration conf = job.getConfiguration();
+        String key = relation == TaggedTupleWritable.S ? ONLY_S_KEY : ONLY_R_KEY;
+        for (String location : StringUtils.split(commaSeparatedPaths)) {
+            Path path = new Path(location);
+            path = path.getFileSystem(conf).makeQualified(path);
+            FileInputFormat.addInputPath(job, path);
+            String paths = conf.get(key);
+            conf.set(key, paths == null ? StringUtils.escapeString(path.toString())
+                    : paths + "," + StringUtils.escapeString(path.toString()));
+        }
+    }
+
+    /**
+     * Return the relation whose tuples are only read from a file.
+     * @param conf The Configuration of the job
+     * @param file The (qualified) path of the file
+     * @return TaggedTupleWritable.S, TaggedTupleWritable.R or 0 for both
+     */
+    public static byte relationOf(Configuration conf, Path file) {
+        if (isUnder(conf.getStrings(ONLY_S_KEY), file)) {
+            return TaggedTupleWritable.S;
+        }
+        return isUnder(conf.getStrings(ONLY_R_KEY), file) ? TaggedTupleWritable.R : 0;
+    }
+
+    /**
+     * Return true if a file is one of the paths or in one of them.
+     */
+    private static boolean isUnder(String[] paths, Path file) {
+        if (paths == null) {
+            return false;
+        }
+        String name = file.toString();
+        for (String path : paths) {
+            path = StringUtils.unEscapeString(path);
+            if (name.equals(path) || name.startsWith(path.endsWith("/") ? path : path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public RecordReader<LongWritable, TaggedTupleWritable> createRecordReader(
+            InputSplit split, TaskAttemptContext context) {
+        if (split instanceof FileSplit && ColumnarTupleFile.isColumnar(((FileSplit) split).getPath())) {
+            return new ColumnarRecordReader();
+        }
+        return new ThetaJoinRecordReader();
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path file) {
+        CompressionCodec codec = 
+                new CompressionCodecFactory(context.getConfiguration()).getCodec(file);
+        return codec == null;
+    }
+}
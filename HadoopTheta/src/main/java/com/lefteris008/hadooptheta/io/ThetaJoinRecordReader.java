@@ -0,0 +1,176 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap.MapCounter;
+import com.lefteris008.hadooptheta.utilities.TupleParser;
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+
+/**
+ * RecordReader of the Theta-Join phase. It reads the lines of its split with
+ * a LineRecordReader and parses the "S,a,x" and "R,a" tuples directly from the
+ * bytes of every line with a TupleParser, without creating any String. The 
+ * filter of the query is applied as soon as the join attribute is parsed, so
+ * the tuples that fail it (most of the input, for a selective filter) are 
+ * skipped without parsing the rest of their line and without creating any
+ * object (unless the filter is disabled with ThetaJoinInputFormat.FILTER_KEY,
+ * for the statistics phase). The tuples that pass it
+ * are handed to the Mapper in a single, reused TaggedTupleWritable (with the
+ * S.x attribute as the payload of the S-tuples and a multiplicity of 1 for the
+ * R-tuples).
+ *
+ * A malformed line fails the task, unless hadooptheta.input.skipMalformed is
+ * set; then it is counted (MALFORMED_LINES) and skipped, and the first ones
+ * are logged as warnings.
+ *
+ * The tuples of every relation that are read and the ones that the filter
+ * prunes are counted (ThetaJoinMap.MapCounter), and added to the counters
+ * of the task once, when the reader is closed.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class ThetaJoinRecordReader extends RecordReader<LongWritable, TaggedTupleWritable> {
+
+    private static final Log LOG = LogFactory.getLog(ThetaJoinRecordReader.class);
+
+    //At most this many malformed lines are logged by every task
+    private static final int MAX_REPORTED_LINES = 10;
+
+    private final LineRecordReader lines = new LineRecordReader();
+    private final TaggedTupleWritable tuple = new TaggedTupleWritable();
+    private TupleParser parser;
+    private ThetaQuery query;
+    private boolean skipMalformed;
+    private boolean filter;
+    private byte relation = 0; //The only relation of the file (0 for both)
+    private Counter malformedLines = null;
+    private long reportedLines = 0;
+    private TaskInputOutputContext<?, ?, ?, ?> taskContext = null;
+    private long readS = 0, filteredS = 0, readR = 0, filteredR = 0;
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) 
+            throws IOException, InterruptedException {
+        lines.initialize(split, context);
+        Configuration conf = context.getConfiguration();
+        parser = TupleParser.fromConfiguration(conf);
+        query = ThetaQuery.fromConfiguration(conf);
+        skipMalformed = conf.getBoolean(TupleParser.SKIP_MALFORMED_KEY, false);
+        filter = conf.getBoolean(ThetaJoinInputFormat.FILTER_KEY, true);
+        if (split instanceof FileSplit) {
+            relation = ThetaJoinInputFormat.relationOf(conf, ((FileSplit) split).getPath());
+        }
+        if (context instanceof TaskInputOutputContext) {
+            //The RecordReader of a map task gets the context of its Mapper
+            taskContext = (TaskInputOutputContext<?, ?, ?, ?>) context;
+            malformedLines = taskContext.getCounter(TupleParser.InputCounter.MALFORMED_LINES);
+        }
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+        while (lines.nextKeyValue()) {
+            Text line = lines.getCurrentValue();
+            if (line.getLength() > 0 && parse(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a line into the tuple and apply the filter of the query.
+     * @param line The line
+     * @return True if the line holds a tuple that passes the filter
+     * @throws IOException If the line is not a valid tuple (and the malformed
+     * lines are not skipped)
+     */
+    private boolean parse(Text line) throws IOException {
+        if (!parser.parseJoinAttribute(line.getBytes(), 0, line.getLength())) {
+            return malformed();
+        }
+        if (relation != 0 && parser.getRelation() != relation) {
+            return false; //Not an input of the job
+        }
+        int a = parser.getJoinAttribute();
+        if (parser.isFromS()) {
+            readS++;
+            if (filter && !query.selectsS(a)) {
+                filteredS++;
+                return false; //The rest of the line is not even parsed
+            }
+        } else {
+            readR++;
+            if (filter && !query.selectsR(a)) {
+                filteredR++;
+                return false;
+            }
+        }
+        if (!parser.parseRemainder()) {
+            return malformed();
+        }
+        tuple.set(parser.getRelation(), a, parser.getPayload());
+        return true;
+    }
+
+    /**
+     * Report the last parsed line as malformed.
+     * @return False, if the malformed lines are skipped
+     * @throws IOException If the malformed lines are not skipped
+     */
+    private boolean malformed() throws IOException {
+        String message = "Malformed tuple at byte " + lines.getCurrentKey() + ": "
+                + parser.describeError();
+        if (!skipMalformed) {
+            throw new IOException(message);
+        }
+        if (malformedLines != null) {
+            malformedLines.increment(1);
+        }
+        if (reportedLines++ < MAX_REPORTED_LINES) {
+            LOG.warn(message);
+        }
+        return false;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+        return lines.getCurrentKey();
+    }
+
+    @Override
+    public TaggedTupleWritable getCurrentValue() {
+        return tuple;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        return lines.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (taskContext != null) {
+            taskContext.getCounter(MapCounter.S_READ).increment(readS);
+            taskContext.getCounter(MapCounter.S_FILTERED).increment(filteredS);
+            taskContext.getCounter(MapCounter.R_READ).increment(readR);
+            taskContext.getCounter(MapCounter.R_FILTERED).increment(filteredR);
+            readS = filteredS = readR = filteredR = 0;
+        }
+        lines.close();
+    }
+}
@@ -0,0 +1,610 @@
+package com.lefteris008.hadooptheta.local;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.ColumnarTupleFile;
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.partitioner.TuplePlacement;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.report.RegionMetrics;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import com.lefteris008.hadooptheta.statsphase.StatisticsMap;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinKernel;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap.MapCounter;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinReduce.ReduceCounter;
+import com.lefteris008.hadooptheta.utilities.TupleParser;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * In-process engine of the Theta-Join, for inputs that fit a single machine,
+ * without the scheduling, the serialization and the disk I/O of the two
+ * Map/Reduce phases. It runs the same phases as tasks on a thread pool:
+ * - a map task per split of the input, which reads the lines of the split
+ *   from a memory-mapped file (MappedLineReader), parses and filters them
+ *   like the ThetaJoinRecordReader and places every tuple to its regions
+ *   with the same MatrixToReducerPartitioning (and TuplePlacement) as the
+ *   ThetaJoinMap, into in-memory buffers of every region (the shuffle),
+ * - a reduce task per region, which joins the tuples of the region with the
+ *   ThetaJoinKernel into the semi-aggregates of its R.a attributes, and
+ * - a final merge of the semi-aggregates of all the regions by R.a (the
+ *   second phase), which writes the output of the second phase: a single
+ *   part-r-00000 file with the "R.a\taggregate" lines sorted by R.a.
+ *
+ * The engine is selected by the hadooptheta.engine property ("hadoop" by
+ * default, or "local"), and its input and output must be local files. The
+ * tasks keep the same counters as the Map/Reduce phases (MapCounter and
+ * ReduceCounter) and the RegionMetrics of every region, for the RunReport.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class LocalThetaJoin {
+
+    //Configuration property that selects the engine of the Theta-Join
+    public static final String ENGINE_KEY = "hadooptheta.engine";
+    public static final String ENGINE_HADOOP = "hadoop";
+    public static final String ENGINE_LOCAL = "local";
+
+    //Configuration property for the number of threads of the local engine
+    //(the number of processors by default)
+    public static final String THREADS_KEY = "hadooptheta.local.threads";
+
+    //Configuration property for the size in bytes of the splits of the input
+    public static final String SPLIT_SIZE_KEY = "hadooptheta.local.splitSize";
+    public static final long DEFAULT_SPLIT_SIZE = 32L * 1024 * 1024;
+
+    private static final Log LOG = LogFactory.getLog(LocalThetaJoin.class);
+
+    //At most this many malformed lines are logged by a run
+    private static final int MAX_REPORTED_LINES = 10;
+
+    private final Configuration conf;
+    private final ThetaQuery query;
+    private final ForkJoinPool pool;
+    private final long splitSize;
+    private final boolean skipMalformed;
+    private final boolean forceBigInteger;
+    private final AtomicLong malformedLines = new AtomicLong();
+    private final Counters counters = new Counters();
+    private final List<RegionMetrics> regionMetrics = new ArrayList<RegionMetrics>();
+
+    /**
+     * Parametrized constructor.
+     * @param conf The Configuration of the query
+     */
+    public LocalThetaJoin(Configuration conf) {
+        this.conf = conf;
+        this.query = ThetaQuery.fromConfiguration(conf);
+        int threads = conf.getInt(THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.splitSize = conf.getLong(SPLIT_SIZE_KEY, DEFAULT_SPLIT_SIZE);
+        if (splitSize < 1) {
+            throw new IllegalArgumentException("Invalid split size: " + splitSize);
+        }
+        this.skipMalformed = conf.getBoolean(TupleParser.SKIP_MALFORMED_KEY, false);
+        this.forceBigInteger = conf.getBoolean(Utilities.BIG_INTEGER_SUM_KEY, false);
+    }
+
+    /**
+     * Return true if the Configuration selects the local engine.
+     * @param conf The Configuration of the query
+     * @return A boolean flag.
+     */
+    public static boolean isSelected(Configuration conf) {
+        String engine = conf.get(ENGINE_KEY, ENGINE_HADOOP);
+        if (!ENGINE_HADOOP.equals(engine) && !ENGINE_LOCAL.equals(engine)) {
+            throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+        return ENGINE_LOCAL.equals(engine);
+    }
+
+    /**
+     * Gather the statistics of both relations (see StatisticsMap), with a
+     * task per split of the input.
+     * @param inputFileLocation The input of the Theta-Join
+     * @return The statistics of both relations
+     * @throws IOException
+     */
+    public InputStatistics computeStatistics(String inputFileLocation) throws IOException {
+        int sampleSize = conf.getInt(StatisticsMap.SAMPLE_SIZE_KEY, 10000);
+        List<Callable<InputStatistics>> tasks = new ArrayList<Callable<InputStatistics>>();
+        for (Split split : getSplits(inputFileLocation)) {
+            tasks.add(() -> statistics(split, sampleSize));
+        }
+        InputStatistics statistics = new InputStatistics(sampleSize);
+        for (InputStatistics part : invokeAll(tasks, "statistics")) {
+            statistics.merge(part);
+        }
+        return statistics;
+    }
+
+    /**
+     * Run the Theta-Join and write its output.
+     * @param mtr The partitioning of the matrix (after Partitioner())
+     * @param inputFileLocation The input of the Theta-Join
+     * @param outputFileLocation The output directory (overwritten)
+     * @throws IOException
+     */
+    public void run(MatrixToReducerPartitioning mtr, String inputFileLocation,
+            String outputFileLocation) throws IOException {
+
+        //Map tasks: every split into the buffers of the regions
+        List<Callable<RegionBuffer[]>> mapTasks = new ArrayList<Callable<RegionBuffer[]>>();
+        for (Split split : getSplits(inputFileLocation)) {
+            mapTasks.add(() -> map(split, mtr));
+        }
+        List<RegionBuffer[]> mapOutputs = invokeAll(mapTasks, "map");
+
+        //Reduce tasks: every region with the buffers of all the map tasks
+        List<Callable<RegionResult>> reduceTasks = new ArrayList<Callable<RegionResult>>();
+        for (int r = 0; r < mtr.getNumberOfRegions(); r++) {
+            int region = r;
+            reduceTasks.add(() -> reduce(region, mapOutputs));
+        }
+        List<RegionResult> regionResults = invokeAll(reduceTasks, "reduce");
+        mapOutputs.clear();
+        regionMetrics.clear();
+        for (RegionResult result : regionResults) {
+            regionMetrics.add(result.metrics);
+            count(ReduceCounter.REGIONS, 1);
+            count(ReduceCounter.S_TUPLES, result.metrics.getTuplesOfS());
+            count(ReduceCounter.R_TUPLES, result.metrics.getTuplesOfR());
+            count(ReduceCounter.PROBE_MICROS, result.metrics.getProbeNanos() / 1000);
+        }
+
+        //Merge the semi-aggregates of all the regions by R.a
+        File output = toLocalFile(outputFileLocation);
+        FileUtil.fullyDelete(output);
+        if (!output.mkdirs()) {
+            throw new IOException("Cannot create the output directory " + output);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(output, "part-r-00000")), StandardCharsets.UTF_8));
+        try {
+            merge(regionResults, writer);
+        } finally {
+            writer.close();
+        }
+        new File(output, "_SUCCESS").createNewFile();
+    }
+
+    /**
+     * Return the number of threads of the engine.
+     * @return The number of threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Return the counters of the run (MapCounter, ReduceCounter and the 
+     * malformed lines).
+     * @return The counters
+     */
+    public Counters getCounters() {
+        synchronized (counters) {
+            counters.findCounter(TupleParser.InputCounter.MALFORMED_LINES)
+                    .setValue(malformedLines.get());
+        }
+        return counters;
+    }
+
+    /**
+     * Return the metrics of every region of the last run.
+     * @return The metrics, sorted by region
+     */
+    public List<RegionMetrics> getRegionMetrics() {
+        return regionMetrics;
+    }
+
+    /**
+     * Add to a counter (from any task).
+     */
+    private void count(Enum<?> counter, long value) {
+        synchronized (counters) {
+            counters.findCounter(counter).increment(value);
+        }
+    }
+
+    /**
+     * Return the number of the malformed lines that were skipped.
+     * @return The number of lines
+     */
+    public long getMalformedLines() {
+        return malformedLines.get();
+    }
+
+    /**
+     * Shut the thread pool down.
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * The statistics of a split (the StatisticsMap of the split).
+     */
+    private InputStatistics statistics(Split split, int sampleSize) throws IOException {
+        InputStatistics statistics = new InputStatistics(sampleSize);
+        TupleParser parser = TupleParser.fromConfiguration(conf);
+        MappedLineReader lines = new MappedLineReader(split.file, split.start, split.end);
+        while (lines.next()) {
+            if (lines.getLength() == 0) {
+                continue;
+            }
+            if (!parser.parse(lines.getBytes(), 0, lines.getLength())) {
+                //Counted and reported by the map task of the split
+                if (!skipMalformed) {
+                    malformed(parser, lines.getOffset());
+                }
+                continue;
+            }
+            int a = parser.getJoinAttribute();
+            if (parser.isFromS()) {
+                if (query.selectsS(a)) {
+                    statistics.getS().add(a);
+                } else {
+                    statistics.getS().addFiltered();
+                }
+            } else if (query.selectsR(a)) {
+                statistics.getR().add(a);
+            } else {
+                statistics.getR().addFiltered();
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * The map task of a split (the ThetaJoinRecordReader and the ThetaJoinMap
+     * of the split). The tuples are copied to the buffers of their regions
+     * (buffers[region - 1]), which are created when their first tuple arrives.
+     */
+    private RegionBuffer[] map(Split split, MatrixToReducerPartitioning mtr)
+            throws IOException {
+        RegionBuffer[] buffers = new RegionBuffer[mtr.getNumberOfRegions()];
+        TupleParser parser = TupleParser.fromConfiguration(conf);
+        TuplePlacement placement = TuplePlacement.create(conf, split.index, split.source);
+        TuplePlacement rowPlacement = mtr.getRowPlacement(placement);
+        TuplePlacement columnPlacement = mtr.getColumnPlacement(placement);
+        MappedLineReader lines = new MappedLineReader(split.file, split.start, split.end);
+        long readS = 0, filteredS = 0, emittedS = 0, readR = 0, filteredR = 0, emittedR = 0;
+        while (lines.next()) {
+            if (lines.getLength() == 0) {
+                continue;
+            }
+            if (!parser.parseJoinAttribute(lines.getBytes(), 0, lines.getLength())) {
+                malformed(parser, lines.getOffset());
+                continue;
+            }
+            int a = parser.getJoinAttribute();
+            boolean fromS = parser.isFromS();
+            if (fromS ? !query.selectsS(a) : !query.selectsR(a)) {
+                if (fromS) {
+                    readS++;
+                    filteredS++;
+                } else {
+                    readR++;
+                    filteredR++;
+                }
+                continue;
+            }
+            if (!parser.parseRemainder()) {
+                malformed(parser, lines.getOffset());
+                continue;
+            }
+
+            int[] regionIDs;
+            if (fromS) {
+                regionIDs = mtr.getIntersectingRows(
+                        rowPlacement.place(a, lines.getOffset(), mtr.getSCardinality()));
+                readS++;
+                emittedS += regionIDs.length;
+            } else {
+                regionIDs = mtr.getIntersectingColumns(
+                        columnPlacement.place(a, lines.getOffset(), mtr.getRCardinality()));
+                readR++;
+                emittedR += regionIDs.length;
+            }
+            for (int region : regionIDs) {
+                RegionBuffer buffer = buffers[region - 1];
+                if (buffer == null) {
+                    buffer = new RegionBuffer();
+                    buffers[region - 1] = buffer;
+                }
+                if (fromS) {
+                    buffer.addS(a, parser.getPayload());
+                } else {
+                    buffer.addR(a);
+                }
+            }
+        }
+        count(MapCounter.S_READ, readS);
+        count(MapCounter.S_FILTERED, filteredS);
+        count(MapCounter.S_EMITTED, emittedS);
+        count(MapCounter.R_READ, readR);
+        count(MapCounter.R_FILTERED, filteredR);
+        count(MapCounter.R_EMITTED, emittedR);
+        return buffers;
+    }
+
+    /**
+     * Report a malformed line, the same way as the ThetaJoinRecordReader.
+     */
+    private void malformed(TupleParser parser, long offset) throws IOException {
+        String message = "Malformed tuple at byte " + offset + ": " + parser.describeError();
+        if (!skipMalformed) {
+            throw new IOException(message);
+        }
+        if (malformedLines.getAndIncrement() < MAX_REPORTED_LINES) {
+            LOG.warn(message);
+        }
+    }
+
+    /**
+     * The reduce task of a region (the ThetaJoinReduce of the region, with
+     * its R-tuples collapsed by R.a). The buffers of the region are released
+     * after they are read.
+     */
+    private RegionResult reduce(int region, List<RegionBuffer[]> mapOutputs) {
+        ThetaJoinKernel kernel = new ThetaJoinKernel();
+        kernel.setForceBigInteger(forceBigInteger);
+        int sizeOfR = 0;
+        for (RegionBuffer[] buffers : mapOutputs) {
+            if (buffers[region] != null) {
+                sizeOfR += buffers[region].sizeOfR;
+            }
+        }
+        int[] tuplesFromR = new int[sizeOfR];
+        long[] multiplicityOfR = new long[sizeOfR];
+        sizeOfR = 0;
+        for (RegionBuffer[] buffers : mapOutputs) {
+            RegionBuffer buffer = buffers[region];
+            if (buffer == null) {
+                continue;
+            }
+            for (int i = 0; i < buffer.sizeOfS; i++) {
+                kernel.add(buffer.keysOfS[i], buffer.valuesOfS[i]);
+            }
+            System.arraycopy(buffer.keysOfR, 0, tuplesFromR, sizeOfR, buffer.sizeOfR);
+            sizeOfR += buffer.sizeOfR;
+            buffers[region] = null;
+        }
+
+        RegionMetrics metrics = new RegionMetrics(region + 1);
+        long tuplesOfS = kernel.size();
+        long tuplesOfR = sizeOfR;
+
+        //Group the R-tuples by their R.a attribute (sorted, as the final merge
+        //and the two-pointer sweep of the BAND predicate need them)
+        Arrays.fill(multiplicityOfR, 1L);
+        Utilities.sortByKey(tuplesFromR, multiplicityOfR, 0, sizeOfR);
+        int distinct = 0;
+        for (int i = 0; i < sizeOfR; i++) {
+            if (distinct > 0 && tuplesFromR[distinct - 1] == tuplesFromR[i]) {
+                multiplicityOfR[distinct - 1]++;
+            } else {
+                tuplesFromR[distinct] = tuplesFromR[i];
+                multiplicityOfR[distinct] = multiplicityOfR[i];
+                distinct++;
+            }
+        }
+
+        kernel.build(query.getAggregate());
+        AggregateWritable[] results = new AggregateWritable[distinct];
+        for (int i = 0; i < distinct; i++) {
+            results[i] = new AggregateWritable();
+        }
+        long start = System.nanoTime();
+        kernel.prepare(query.getPredicate(), distinct);
+        kernel.locate(query.getPredicate(), query.getBand(), tuplesFromR, 0, distinct);
+        ThetaJoinKernel.Window window = kernel.new Window();
+        window.reset();
+        kernel.aggregate(query.getAggregate(), multiplicityOfR, 0, distinct, results, 0, window);
+        metrics.addProbeNanos(System.nanoTime() - start);
+        metrics.setSizes(tuplesOfS, tuplesOfR, kernel.groups());
+        metrics.updatePeakBufferedBytes(kernel.bufferedBytes() + (4L + 8L + 4L + 4L) * sizeOfR);
+        return new RegionResult(tuplesFromR, results, distinct, metrics);
+    }
+
+    /**
+     * Merge the (sorted) semi-aggregates of all the regions by R.a and write
+     * the aggregate of every R.a attribute (the second phase).
+     */
+    private void merge(List<RegionResult> regionResults, Writer writer) throws IOException {
+        PriorityQueue<RegionResult> queue = new PriorityQueue<RegionResult>(
+                Math.max(1, regionResults.size()),
+                (x, y) -> Integer.compare(x.keys[x.next], y.keys[y.next]));
+        for (RegionResult result : regionResults) {
+            if (result.size > 0) {
+                queue.add(result);
+            }
+        }
+        ThetaAggregate function = query.getAggregate();
+        AggregateWritable aggregate = new AggregateWritable(function);
+        while (!queue.isEmpty()) {
+            int rA = queue.peek().keys[queue.peek().next];
+            aggregate.clear(function);
+            while (!queue.isEmpty() && queue.peek().keys[queue.peek().next] == rA) {
+                RegionResult result = queue.poll();
+                aggregate.merge(result.results[result.next]);
+                result.results[result.next] = null;
+                if (++result.next < result.size) {
+                    queue.add(result);
+                }
+            }
+            writer.write(rA + "\t" + aggregate + "\n");
+        }
+    }
+
+    /**
+     * Run a list of tasks on the pool and return their results in order.
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks, String phase) throws IOException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        for (Future<T> task : pool.invokeAll(tasks)) {
+            try {
+                results.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The " + phase + " phase was interrupted", e);
+            } catch (ExecutionException e) {
+                //The pool wraps the IOException of a task (e.g. of a malformed
+                //line) into RuntimeExceptions
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw new IOException(cause.getMessage(), cause);
+                    }
+                }
+                throw new IOException("A " + phase + " task failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Split the input (one or more comma-separated paths of files, or of
+     * directories whose files are read except the hidden ones, like the 
+     * FileInputFormat) into ranges of at most splitSize bytes.
+     */
+    private List<Split> getSplits(String inputFileLocation) throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (String location : StringUtils.split(inputFileLocation)) {
+            File input = toLocalFile(location);
+            if (input.isDirectory()) {
+                File[] children = input.listFiles((directory, name)
+                        -> !name.startsWith("_") && !name.startsWith("."));
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            } else if (input.isFile()) {
+                files.add(input);
+            } else {
+                throw new IOException("Input path does not exist: " + input);
+            }
+        }
+        List<Split> splits = new ArrayList<Split>();
+        for (File file : files) {
+            String source = new Path(file.getAbsoluteFile().toURI()).toString();
+            if (ColumnarTupleFile.isColumnar(new Path(source))) {
+                throw new IOException("The local engine reads text input only: " + source);
+            }
+            long length = file.length();
+            for (long start = 0; start < length; start += splitSize) {
+                splits.add(new Split(file, source, start, Math.min(length, start + splitSize),
+                        splits.size()));
+            }
+        }
+        return splits;
+    }
+
+    /**
+     * Return the local file of a path (with the "file" scheme or no scheme).
+     */
+    private static File toLocalFile(String location) throws IOException {
+        URI uri = new Path(location).toUri();
+        if (uri.getScheme() != null && !"file".equals(uri.getScheme())) {
+            throw new IOException("The local engine needs a local path: " + location);
+        }
+        return new File(uri.getPath());
+    }
+
+    /**
+     * A range of bytes of an input file.
+     */
+    private static final class Split {
+
+        final File file;
+        final String source;
+        final long start;
+        final long end;
+        final int index;
+
+        Split(File file, String source, long start, long end, int index) {
+            this.file = file;
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.index = index;
+        }
+    }
+
+    /**
+     * The tuples of a region that a map task output: the S.a and S.x
+     * attributes of its S-tuples and the R.a attributes of its R-tuples.
+     */
+    private static final class RegionBuffer {
+
+        int[] keysOfS = new int[16];
+        long[] valuesOfS = new long[16];
+        int sizeOfS = 0;
+        int[] keysOfR = new int[16];
+        int sizeOfR = 0;
+
+        void addS(int a, long x) {
+            if (sizeOfS == keysOfS.length) {
+                keysOfS = Arrays.copyOf(keysOfS, 2 * sizeOfS);
+                valuesOfS = Arrays.copyOf(valuesOfS, 2 * sizeOfS);
+            }
+            keysOfS[sizeOfS] = a;
+            valuesOfS[sizeOfS] = x;
+            sizeOfS++;
+        }
+
+        void addR(int a) {
+            if (sizeOfR == keysOfR.length) {
+                keysOfR = Arrays.copyOf(keysOfR, 2 * sizeOfR);
+            }
+            keysOfR[sizeOfR++] = a;
+        }
+    }
+
+    /**
+     * The semi-aggregates of the distinct R.a attributes of a region, sorted
+     * by R.a, and the next one to merge.
+     */
+    private static final class RegionResult {
+
+        final int[] keys;
+        final AggregateWritable[] results;
+        final int size;
+        final RegionMetrics metrics;
+        int next = 0;
+
+        RegionResult(int[] keys, AggregateWritable[] results, int size, 
+                RegionMetrics metrics) {
+            this.keys = keys;
+            this.results = results;
+            this.size = size;
+            this.metrics = metrics;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.lefteris008.hadooptheta.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reader of the lines of a split of a local file, which is memory-mapped
+ * instead of being read through streams. A split reads every line that
+ * starts in [start, end), so the splits of a file read every line exactly
+ * once (a line that crosses the end of a split belongs to that split). The
+ * lines are terminated by "\n", "\r" or "\r\n", like the lines of the
+ * LineRecordReader, and every line is copied into a byte array that is
+ * reused for the next line. Only the split is mapped, with some slack for
+ * the rest of its last line; the mapping is moved forward and extended only
+ * if a line crosses it.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public final class MappedLineReader {
+
+    //The bytes that are mapped past the end of the split
+    static final int SLACK = 64 * 1024;
+
+    private final File file;
+    private final long end;     //The offset that no line may start from
+    private MappedByteBuffer buffer;
+    private long base;          //The offset of the mapping in the file
+    private boolean endOfFile;  //The mapping reaches the end of the file
+    private int position;       //The next byte, relative to the mapping
+
+    private byte[] line = new byte[256];
+    private int length = 0;
+    private long offset = -1;
+
+    /**
+     * Map a split of a file.
+     * @param file The local file
+     * @param start The offset of the split
+     * @param end The end of the split
+     * @throws IOException If the file cannot be mapped
+     */
+    public MappedLineReader(File file, long start, long end) throws IOException {
+        this.file = file;
+        this.end = end;
+        //The byte before the split tells if the split starts with a new line,
+        //and the slack past the end of the split holds the rest of its last
+        //line (unless the line is longer)
+        long from = Math.max(0, start - 1);
+        map(from, end - from + SLACK);
+        if (start > 0) {
+            //The line of the byte before the split belongs to the previous split
+            skipLine();
+        }
+    }
+
+    /**
+     * Map the file from an offset, up to the given length or the end of the
+     * file (and at most 2 GB).
+     */
+    private void map(long from, long length) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            long mapped = Math.max(0,
+                    Math.min(Math.min(size - from, length), Integer.MAX_VALUE));
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, mapped);
+            base = from;
+            endOfFile = from + mapped >= size;
+            position = 0;
+        } finally {
+            //The mapping stays valid after the channel is closed
+            input.close();
+        }
+    }
+
+    /**
+     * Move the mapping to the current position and extend it (at least
+     * doubling the bytes that remain mapped), when a line crosses its limit.
+     * The positions relative to the mapping move back by the current
+     * position.
+     * @throws IOException If the line does not fit in a mapping
+     */
+    private void extend() throws IOException {
+        long from = base + position;
+        int remaining = buffer.limit() - position;
+        map(from, Math.max(2L * remaining, (long) remaining + SLACK));
+        if (buffer.limit() <= remaining) {
+            throw new IOException("The line at byte " + from + " is too long");
+        }
+    }
+
+    /**
+     * Read the next line of the split.
+     * @return False if there are no more lines in the split
+     * @throws IOException If a line is longer than 2 GB
+     */
+    public boolean next() throws IOException {
+        if (base + position >= end) {
+            return false;
+        }
+        while (position >= buffer.limit()) {
+            if (endOfFile) {
+                return false;
+            }
+            extend();
+        }
+        int i = position;
+        while (true) {
+            int limit = buffer.limit();
+            while (i < limit) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+            if (i < limit || endOfFile) {
+                break;
+            }
+            //The line crosses the mapping, which then starts from the line
+            i -= position;
+            extend();
+        }
+        offset = base + position;
+        length = i - position;
+        if (line.length < length) {
+            line = new byte[Math.max(length, 2 * line.length)];
+        }
+        //(Through Buffer, whose position() is the same in every Java version)
+        ((Buffer) buffer).position(position);
+        buffer.get(line, 0, length);
+        position = i;
+        skipTerminator();
+        return true;
+    }
+
+    /**
+     * Skip the rest of the current line and its terminator.
+     */
+    private void skipLine() throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                position++;
+            }
+            if (position < limit || endOfFile) {
+                break;
+            }
+            extend();
+        }
+        skipTerminator();
+    }
+
+    private void skipTerminator() throws IOException {
+        if (position < buffer.limit() && buffer.get(position++) == '\r') {
+            if (position == buffer.limit() && !endOfFile) {
+                //The '\n' of a "\r\n" may be past the mapping
+                extend();
+            }
+            if (position < buffer.limit() && buffer.get(position) == '\n') {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Return the bytes of the current line (the first getLength() of them).
+     * @return The reused array of the line
+     */
+    public byte[] getBytes() {
+        return line;
+    }
+
+    /**
+     * Return the length of the current line, without its terminator.
+     * @return The number of bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Return the offset of the current line in the file, which is the key of
+     * the line in the LineRecordReader.
+     * @return The offset of the first byte of the line
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
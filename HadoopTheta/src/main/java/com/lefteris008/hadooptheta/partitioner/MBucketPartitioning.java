@@ -0,0 +1,365 @@
+package com.lefteris008.hadooptheta.partitioner;
+
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import com.lefteris008.hadooptheta.statsphase.RelationStatistics;
+import java.util.Arrays;
+
+/**
+ * M-Bucket-Theta partitioning of the join matrix. Instead of assigning the
+ * tuples to random rows and columns (1-Bucket-Theta), the join attributes of
+ * both relations are divided into equi-depth buckets (built from the sample of
+ * the statistics phase) and every tuple is assigned to the row (S) or column
+ * (R) of its bucket. A cell of the matrix (a pair of buckets) is a candidate
+ * only if some R.a of its column can join with some S.a of its row (e.g. be 
+ * lower than it, for the default join predicate); all the other cells can 
+ * never produce output and are not assigned to any reducer.
+ * The candidate cells are covered by at most r regions, whose cost (input and
+ * output of the reducer) is balanced.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public class MBucketPartitioning extends MatrixToReducerPartitioning {
+
+    private static final long serialVersionUID = 1L;
+
+    //Configuration property for the number of buckets of every relation
+    public static final String BUCKETS_KEY = "hadooptheta.mbucket.buckets";
+
+    //Upper bounds of the buckets of S (rows) and R (columns). A value greater
+    //than the last bound belongs to the last bucket
+    private final int[] rowBounds;
+    private final int[] colBounds;
+
+    //Estimated number of tuples in every bucket (not needed by the tasks)
+    private final transient double[] rowCounts;
+    private final transient double[] colCounts;
+
+    //The join predicate that decides the candidate cells
+    private final transient ThetaPredicate predicate;
+    private final transient int band;
+
+    /**
+     * Parametrized constructor.
+     * @param statistics The statistics of the input
+     * @param input_r Number of reducers
+     * @param buckets Number of buckets of every relation
+     * @param query The query that is answered
+     */
+    public MBucketPartitioning(InputStatistics statistics, int input_r, int buckets,
+            ThetaQuery query) {
+        this(boundsOf(statistics.getS(), buckets), boundsOf(statistics.getR(), buckets),
+                statistics, input_r, query);
+    }
+
+    private MBucketPartitioning(int[] rowBounds, int[] colBounds,
+            InputStatistics statistics, int input_r, ThetaQuery query) {
+        super(rowBounds.length, colBounds.length, input_r);
+        this.predicate = query.getPredicate();
+        this.band = query.getBand();
+        this.rowBounds = rowBounds;
+        this.colBounds = colBounds;
+        this.rowCounts = countsOf(statistics.getS(), rowBounds);
+        this.colCounts = countsOf(statistics.getR(), colBounds);
+    }
+
+    /**
+     * Every S-tuple is placed to the row of the bucket of its S.a attribute.
+     */
+    @Override
+    public TuplePlacement getRowPlacement(TuplePlacement placement) {
+        return new BucketPlacement(rowBounds);
+    }
+
+    /**
+     * Every R-tuple is placed to the column of the bucket of its R.a attribute.
+     */
+    @Override
+    public TuplePlacement getColumnPlacement(TuplePlacement placement) {
+        return new BucketPlacement(colBounds);
+    }
+
+    /**
+     * With this method we find the candidate cells of the matrix and cover
+     * them with regions. For every join predicate, the candidate cells of a 
+     * row are consecutive columns (e.g. the first columns of the row for 
+     * R.a < S.a) and both the first and the last of them never decrease from
+     * one row to the next. We cover the rows in bands of consecutive rows,
+     * splitting the candidate columns of every band into regions whose cost 
+     * does not exceed a bound. For every band, we choose the number of rows 
+     * that covers the most (estimated) output per region. The bound is found
+     * with a binary search, as the lowest bound that needs at most r regions.
+     * The bands also cover the columns that are not a candidate for any row,
+     * so that every R-tuple reaches a reducer and is output (with an empty 
+     * semi-aggregate).
+     */
+    @Override
+    public void Partitioner() {
+        int rows = rowBounds.length;
+        int columns = colBounds.length;
+        int reducers = getNumberOfReducers();
+
+        //The first and the next after the last candidate column of every row
+        //(first == columns for the rows without any candidate cell)
+        int[] first = new int[rows];
+        int[] next = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            first[i] = columns;
+            for (int j = 0; j < columns; j++) {
+                if (predicate.mayMatch(lowOf(colBounds, j), highOf(colBounds, j),
+                        lowOf(rowBounds, i), highOf(rowBounds, i), band)) {
+                    first[i] = Math.min(first[i], j);
+                    next[i] = j + 1;
+                }
+            }
+        }
+
+        //Prefix sums of the number of R-tuples and of the cost of the columns.
+        //A R-tuple costs twice a S-tuple to a reducer, because it is both
+        //read and output
+        double[] prefixCount = new double[columns + 1];
+        double[] prefixCost = new double[columns + 1];
+        for (int j = 0; j < columns; j++) {
+            prefixCount[j + 1] = prefixCount[j] + colCounts[j];
+            prefixCost[j + 1] = prefixCost[j] + 2 * colCounts[j];
+        }
+
+        double low = 0;
+        double high = prefixCost[columns];
+        for (int i = 0; i < rows; i++) {
+            high += rowCounts[i];
+        }
+        for (int iteration = 0; iteration < 64 && high - low > 1e-9 * high; iteration++) {
+            double middle = (low + high) / 2;
+            if (cover(middle, first, next, prefixCount, prefixCost, false) <= reducers) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+
+        clearRegions();
+        cover(high, first, next, prefixCount, prefixCost, true);
+        buildIndex();
+    }
+
+    /**
+     * Method to cover the candidate cells with regions whose cost does not
+     * exceed a bound.
+     * @param bound The maximum cost of a region
+     * @param first The first candidate column of every row
+     * @param next The next column after the last candidate column of every row
+     * @param prefixCount Prefix sums of the R-tuples of the columns
+     * @param prefixCost Prefix sums of the cost of the columns
+     * @param store If true, the regions are stored
+     * @return The number of regions (Integer.MAX_VALUE if the bound is too low)
+     */
+    private int cover(double bound, int[] first, int[] next, double[] prefixCount,
+            double[] prefixCost, boolean store) {
+        int rows = first.length;
+        int columns = prefixCost.length - 1;
+        int regions = 0;
+
+        //The rows after the last row with any candidate cell are never covered
+        int lastRow = rows - 1;
+        while (lastRow >= 0 && first[lastRow] >= next[lastRow]) {
+            lastRow--;
+        }
+
+        //The columns [0, covered) are already covered by a region
+        int covered = 0;
+        int row = 0;
+        while (true) {
+            //The rows without any candidate cell are not assigned to any region
+            while (row < rows && first[row] >= next[row]) {
+                row++;
+            }
+            if (row == rows) {
+                break;
+            }
+
+            double rowCost = 0;
+            double output = 0;
+            int bandFirst = columns;
+            int bandNext = 0;
+            double bestScore = -1;
+            int bestHeight = 0;
+            int bestRegions = 0;
+            int bestFrom = 0;
+            int bestTo = 0;
+            for (int height = 1; row + height <= rows; height++) {
+                int last = row + height - 1;
+                rowCost += rowCounts[last];
+                if (first[last] < next[last]) {
+                    output += rowCounts[last] * (prefixCount[next[last]] - prefixCount[first[last]]);
+                    bandFirst = Math.min(bandFirst, first[last]);
+                    bandNext = Math.max(bandNext, next[last]);
+                }
+                //Leave no column uncovered between this band and the previous
+                //ones, or after the last band
+                int from = Math.min(bandFirst, covered);
+                int to = last >= lastRow ? columns : bandNext;
+                int needed = split(row, row + height, from, to, bound - rowCost,
+                        prefixCost, false, 0);
+                if (needed == Integer.MAX_VALUE) {
+                    break; //Taller bands only leave less cost for the columns
+                }
+                double score = output / needed;
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestHeight = height;
+                    bestRegions = needed;
+                    bestFrom = from;
+                    bestTo = to;
+                }
+            }
+            if (bestHeight == 0) {
+                return Integer.MAX_VALUE;
+            }
+            if (store) {
+                double bandCost = 0;
+                for (int i = row; i < row + bestHeight; i++) {
+                    bandCost += rowCounts[i];
+                }
+                split(row, row + bestHeight, bestFrom, bestTo, bound - bandCost, prefixCost,
+                        true, regions + 1);
+            }
+            regions += bestRegions;
+            covered = Math.max(covered, bestTo);
+            row += bestHeight;
+            if (!store && regions > getNumberOfReducers()) {
+                return regions;
+            }
+        }
+
+        //No row has any candidate cell after the last band (or at all); the
+        //remaining R-tuples are still output, by regions without any row
+        if (covered < columns) {
+            int needed = split(rows, rows, covered, columns, bound, prefixCost, store,
+                    regions + 1);
+            return needed == Integer.MAX_VALUE ? needed : regions + needed;
+        }
+        return regions;
+    }
+
+    /**
+     * Method to split the columns of a band into regions, so that the cost
+     * of the columns of every region does not exceed a capacity.
+     * @param rowNow The first row of the band
+     * @param rowNext The next row after the band
+     * @param colNow The first column to split
+     * @param colNext The next column after the last column to split
+     * @param capacity The maximum cost of the columns of a region
+     * @param prefixCost Prefix sums of the cost of the columns
+     * @param store If true, the regions are stored
+     * @param reducer The reducer of the first region (if they are stored)
+     * @return The number of regions (Integer.MAX_VALUE if a single column
+     * exceeds the capacity)
+     */
+    private int split(int rowNow, int rowNext, int colNow, int colNext, double capacity,
+            double[] prefixCost, boolean store, int reducer) {
+        int regions = 0;
+        int start = colNow;
+        while (start < colNext) {
+            //Binary search the last column that fits in the capacity
+            int low = start;
+            int high = colNext;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (prefixCost[middle] - prefixCost[start] <= capacity) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (low == start) {
+                return Integer.MAX_VALUE;
+            }
+            if (store) {
+                addRegion(rowNow, rowNext, start, low, reducer + regions);
+            }
+            regions++;
+            start = low;
+        }
+        return regions;
+    }
+
+    /**
+     * Build the bucket bounds of a relation from its equi-depth histogram.
+     * @param statistics The statistics of the relation
+     * @param buckets The number of buckets
+     * @return The upper bounds of the buckets (at least one bucket)
+     */
+    private static int[] boundsOf(RelationStatistics statistics, int buckets) {
+        int[] bounds = statistics.getHistogram(buckets);
+        return bounds.length > 0 ? bounds : new int[] {Integer.MAX_VALUE};
+    }
+
+    /**
+     * Estimate the number of tuples in every bucket from the sample.
+     * @param statistics The statistics of the relation
+     * @param bounds The upper bounds of the buckets
+     * @return The estimated number of tuples of every bucket
+     */
+    private static double[] countsOf(RelationStatistics statistics, int[] bounds) {
+        double[] counts = new double[bounds.length];
+        int[] sample = statistics.getSortedSample();
+        if (sample.length == 0) {
+            return counts;
+        }
+        double weight = (double) statistics.getCount() / sample.length;
+        for (int a : sample) {
+            counts[bucketOf(bounds, a)] += weight;
+        }
+        return counts;
+    }
+
+    /**
+     * Binary search the bucket of a join attribute.
+     * @param bounds The upper bounds of the buckets
+     * @param a The join attribute
+     * @return The zero-based bucket
+     */
+    private static int bucketOf(int[] bounds, int a) {
+        int i = Arrays.binarySearch(bounds, a);
+        if (i < 0) {
+            i = -i - 1; //The first bound that is greater than 'a'
+        }
+        return Math.min(i, bounds.length - 1);
+    }
+
+    /**
+     * Value-based placement, to the bucket of the join attribute of the tuple
+     * (the position of the tuple does not matter).
+     */
+    private static final class BucketPlacement extends TuplePlacement {
+
+        private final int[] bounds;
+
+        BucketPlacement(int[] bounds) {
+            this.bounds = bounds;
+        }
+
+        @Override
+        public int place(int a, long position, int cardinality) {
+            return bucketOf(bounds, a) + 1;
+        }
+    }
+
+    /**
+     * Return the lowest join attribute of a bucket.
+     */
+    private static long lowOf(int[] bounds, int bucket) {
+        return bucket == 0 ? Integer.MIN_VALUE : (long) bounds[bucket - 1] + 1;
+    }
+
+    /**
+     * Return the highest join attribute of a bucket.
+     */
+    private static long highOf(int[] bounds, int bucket) {
+        return bucket == bounds.length - 1 ? Integer.MAX_VALUE : bounds[bucket];
+    }
+}
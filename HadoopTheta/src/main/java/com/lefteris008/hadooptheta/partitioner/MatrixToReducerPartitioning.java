@@ -1,28 +1,64 @@
 package com.lefteris008.hadooptheta.partitioner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Base64;
 import java.util.List;
-import java.util.Map;
+
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import org.apache.hadoop.conf.Configuration;
 
 /**
  *
  * @author Lefteris Paraskevas
  * @authot Alexandros Tzanakas
- * @version 2016.05.14_0001
+ * @version 2026.10.17_2230
  */
 public class MatrixToReducerPartitioning implements Serializable {
 
+    private static final long serialVersionUID = 1L;
+
+    //Configuration property that carries the serialized object to the tasks
+    public static final String CONF_KEY = "hadooptheta.partitioner.plan";
+
+    //Configuration property that selects the partitioning of the matrix
+    //(1-Bucket-Theta by default, or M-Bucket-Theta)
+    public static final String PARTITIONING_KEY = "hadooptheta.partitioner";
+    public static final String PARTITIONING_1BUCKET = "1bucket";
+    public static final String PARTITIONING_MBUCKET = "mbucket";
+
     private static volatile MatrixToReducerPartitioning object = null;
-    private static int S; //Size of S
-    private static int R; //Size of R
-    public static int r;  //Number of reducers
+    private int S; //Size of S
+    private int R; //Size of R
+    private int r; //Number of reducers
     
-    //Intersecting reducers in current row and column
-    private final static Map<Integer, ArrayList<Integer>> interRows = new HashMap<>();
-    private final static Map<Integer, ArrayList<Integer>> interColumns = new HashMap<>();
+    //Returned for rows/columns that no region covers
+    private static final int[] NO_REGIONS = new int[0];
+
+    //The bounds of every region (reducer) of the matrix. Region 'i' is stored 
+    //at index i - 1 and covers the rows [regionRowStart, regionRowEnd) and 
+    //the columns [regionColStart, regionColEnd)
+    private int regions = 0;
+    private int[] regionRowStart = new int[0];
+    private int[] regionRowEnd = new int[0];
+    private int[] regionColStart = new int[0];
+    private int[] regionColEnd = new int[0];
+
+    //Interval index of the intersecting reducers in rows and columns.
+    //rowBounds holds the sorted, distinct row bounds of all regions, so that
+    //the rows [rowBounds[k], rowBounds[k + 1]) intersect with exactly the
+    //reducers in rowRegions[k] (the same applies to the columns). Its size
+    //depends on the number of reducers only and not on |S| or |R|
+    private int[] rowBounds = new int[0];
+    private int[][] rowRegions = new int[0][];
+    private int[] colBounds = new int[0];
+    private int[][] colRegions = new int[0][];
     
     /**
      * Empty constructor
@@ -43,6 +79,17 @@ public class MatrixToReducerPartitioning implements Serializable {
         r = input_r;
     }
 
+    /**
+     * Parametrized constructor, that takes the cardinalities of the relations
+     * from the statistics phase (the tuples that pass the filter of the query).
+     * @param statistics The statistics of the input
+     * @param input_r Number of reducers 
+     */
+    public MatrixToReducerPartitioning(InputStatistics statistics, int input_r) {
+        this(InputStatistics.cardinalityOf(statistics.getS()),
+                InputStatistics.cardinalityOf(statistics.getR()), input_r);
+    }
+
     /**
      * Thread lock for perceiving a MatrixToReducerPartitioning object in memory.
      * @return A MatrixToReducerPartitioning object.
@@ -75,21 +122,139 @@ public class MatrixToReducerPartitioning implements Serializable {
     }
 
     /**
-     * Return an ArrayList containing the regions in a specific row.
-     * @param row An integer pointing to a row
-     * @return An Integer list containing all rows that intersect with 'row'
+     * Return the placement of the S-tuples to the rows of the matrix. The
+     * 1-Bucket-Theta partitioning places them with the placement of the map
+     * task (random or hash, see TuplePlacement.create); a value-based
+     * partitioning (M-Bucket) places them by their join attribute instead.
+     * @param placement The placement of the map task
+     * @return The placement of the rows
+     */
+    public TuplePlacement getRowPlacement(TuplePlacement placement) {
+        return placement;
+    }
+
+    /**
+     * Return the placement of the R-tuples to the columns of the matrix (see
+     * getRowPlacement).
+     * @param placement The placement of the map task
+     * @return The placement of the columns
+     */
+    public TuplePlacement getColumnPlacement(TuplePlacement placement) {
+        return placement;
+    }
+
+    /**
+     * Return the number of regions of the partitioning (at most the number of
+     * reducers).
+     * @return An integer representing the number of regions.
+     */
+    public final int getNumberOfRegions() {
+        return regions;
+    }
+
+    /**
+     * Return the number of reducers the matrix is partitioned into.
+     * @return An integer representing the number of reducers.
+     */
+    public final int getNumberOfReducers() {
+        return r;
+    }
+
+    /**
+     * Return the number of rows of a region.
+     * @param region The region [1, getNumberOfRegions()]
+     * @return An integer representing the rows of the region.
+     */
+    public final int getRowsOfRegion(int region) {
+        return regionRowEnd[region - 1] - regionRowStart[region - 1];
+    }
+
+    /**
+     * Return the number of columns of a region.
+     * @param region The region [1, getNumberOfRegions()]
+     * @return An integer representing the columns of the region.
+     */
+    public final int getColumnsOfRegion(int region) {
+        return regionColEnd[region - 1] - regionColStart[region - 1];
+    }
+
+    /**
+     * Return the number of rows that no region covers (their S-tuples would
+     * not reach any reducer).
+     * @return An integer representing the uncovered rows.
+     */
+    public final int getUncoveredRows() {
+        return uncovered(rowBounds, rowRegions, S);
+    }
+
+    /**
+     * Return the number of columns that no region covers (their R-tuples 
+     * would not reach any reducer).
+     * @return An integer representing the uncovered columns.
+     */
+    public final int getUncoveredColumns() {
+        return uncovered(colBounds, colRegions, R);
+    }
+
+    /**
+     * Serialize this object and store it (Base64 encoded) into the given
+     * Configuration, so that every task of the job can load it once in its
+     * setup, instead of reading a local file that only exists on the node
+     * that run the driver.
+     * @param conf The Configuration of the job that will use the object.
+     * @throws IOException 
+     */
+    public final void storeInConfiguration(Configuration conf) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this);
+        }
+        conf.set(CONF_KEY, Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    /**
+     * Load a MatrixToReducerPartitioning object that was previously stored with
+     * storeInConfiguration().
+     * @param conf The Configuration of the running task.
+     * @return The deserialized MatrixToReducerPartitioning object.
+     * @throws IOException If the Configuration does not contain an object or
+     * the object cannot be deserialized.
      */
-    public final ArrayList<Integer> getIntersectingRows(int row) {
-        return interRows.get(row - 1);
+    public static MatrixToReducerPartitioning loadFromConfiguration(Configuration conf)
+            throws IOException {
+        String encoded = conf.get(CONF_KEY);
+        if (encoded == null) {
+            throw new IOException("No MatrixToReducerPartitioning found in the "
+                    + "configuration (" + CONF_KEY + ")");
+        }
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (MatrixToReducerPartitioning) in.readObject();
+        } catch (ClassNotFoundException c) {
+            throw new IOException("MatrixToReducerPartitioning class not found", c);
+        }
     }
 
     /**
-     * Return an ArrayList containing the regions in a specific column.
-     * @param column An integer pointing to a column
-     * @return An Integer list containing all columns that intersect with 'column'
+     * Return an array containing the regions in a specific row. The array is
+     * shared by all the rows of the same interval and must not be modified.
+     * @param row An integer pointing to a row [1, S]
+     * @return An int array containing all regions that intersect with 'row'
+     * (empty if no region covers it)
      */
-    public final ArrayList<Integer> getIntersectingColumns(int column) {
-        return interColumns.get(column - 1);
+    public final int[] getIntersectingRows(int row) {
+        return lookup(rowBounds, rowRegions, row - 1);
+    }
+
+    /**
+     * Return an array containing the regions in a specific column. The array 
+     * is shared by all the columns of the same interval and must not be modified.
+     * @param column An integer pointing to a column [1, R]
+     * @return An int array containing all regions that intersect with 'column'
+     * (empty if no region covers it)
+     */
+    public final int[] getIntersectingColumns(int column) {
+        return lookup(colBounds, colRegions, column - 1);
     }
 
     /**
@@ -105,8 +270,9 @@ public class MatrixToReducerPartitioning implements Serializable {
      * remaining side (e.g where the 42 reducers end and where the 43rd reducer 
      * should be put).
      */
-    public final void Partitioner() {
-        if (S * R < r) {
+    public void Partitioner() {
+        clearRegions();
+        if ((long) S * R < r) {
             System.out.println("ERROR: The number of reducers is greater than "
                     + "the cells of the matrix!");
             System.exit(0);
@@ -126,7 +292,7 @@ public class MatrixToReducerPartitioning implements Serializable {
         double optSqrArea = Math.round((double) S * R / r); // Optimal square area for each block
         double cs = Math.ceil(Math.sqrt(newReducers));// How many reducers in rows
         double ct = Math.floor(Math.sqrt(newReducers));// How many reducers in columns
-        double d = Math.sqrt(newS * R / r);// Optimal side size
+        double d = Math.sqrt((double) ((long) newS * R / r));// Optimal side size
         double es = newS - d * cs;// Calculate remaining length;
         double et = R - d * ct;// Calculate remaining width;
         double rowSide = Math.floor(d + es / cs);// Calculate the length of each block
@@ -137,7 +303,12 @@ public class MatrixToReducerPartitioning implements Serializable {
         if (R < S / r) { //If the matrix is row-shaped
             arrayRow.add(0); //We add the first row
             for (int i = 1; i <= r; i++) { //We break the matrix into partitions
-                arrayRow.add(i * S / r); //Add the points into an array
+                arrayRow.add((int) ((long) i * S / r)); //Add the points into an array
+            }
+            for (int i = 0; i < r; i++) {
+                //Every block spans all the columns of the matrix
+                addRegion(arrayRow.get(i), arrayRow.get(i + 1), 0, R, reducer);
+                reducer++;
             }
         } else {// For any other shape
             if (ct > R) { //If the number of the reducers in width are more than the R (columns)
@@ -219,8 +390,8 @@ public class MatrixToReducerPartitioning implements Serializable {
             for (i = 0; i < arrayRow.size() - 1; i++) {
                 //We save each reducer in the blocks we calculated before
                 for (j = 0; j < arrayCol.size() - 1; j++) {
-                    intersectingRows(arrayRow.get(i), arrayRow.get(i + 1), reducer);
-                    intersectingColumns(arrayCol.get(j), arrayCol.get(j + 1), reducer);
+                    addRegion(arrayRow.get(i), arrayRow.get(i + 1),
+                            arrayCol.get(j), arrayCol.get(j + 1), reducer);
                     reducer++; //Increment the reducer
                 }
             }
@@ -244,48 +415,151 @@ public class MatrixToReducerPartitioning implements Serializable {
                 for (i = 0; i < arrayRow.size() - 1; i++) {
                     //Save the reducers in each block
                     for (j = 0; j < arrayCol.size() - 1; j++) {
-                        intersectingRows(arrayRow.get(i), arrayRow.get(i + 1), reducer);
-                        intersectingColumns(arrayCol.get(j), arrayCol.get(j + 1), reducer);
+                        addRegion(arrayRow.get(i), arrayRow.get(i + 1),
+                                arrayCol.get(j), arrayCol.get(j + 1), reducer);
                         reducer++;
                     }
                 }
             }
         }
+        buildIndex();
     }
     
     /**
-     * Method to store all intersecting reducers in a row.
-     * @param rowNow Integer indicating the current row.
-     * @param rowNext Integer indicating the next available row.
-     * @param reducer Integer indicating the current reducer.
+     * Method to remove all the stored regions, before partitioning the matrix.
      */
-    private final void intersectingRows(int rowNow, int rowNext, int reducer) {
-        for (int i = rowNow; i < rowNext; i++) {
-            if (interRows.containsKey(i)) { //If we already have the row saved
-                if (!interRows.get(i).contains(reducer)) {
-                    interRows.get(i).add(reducer); //We add the current reducer
-                }
-            } else { //Else create the row
-                interRows.put(i, new ArrayList<Integer>(Arrays.asList(reducer))); 
+    protected final void clearRegions() {
+        regions = 0;
+    }
+
+    /**
+     * Method to store the bounds of a region (block) of the matrix.
+     * @param rowNow Integer indicating the first row of the region.
+     * @param rowNext Integer indicating the next row after the region.
+     * @param colNow Integer indicating the first column of the region.
+     * @param colNext Integer indicating the next column after the region.
+     * @param reducer Integer indicating the reducer of the region.
+     */
+    protected final void addRegion(int rowNow, int rowNext, int colNow, int colNext, int reducer) {
+        if (reducer > regionRowStart.length) {
+            int capacity = Math.max(reducer, 2 * regionRowStart.length);
+            regionRowStart = Arrays.copyOf(regionRowStart, capacity);
+            regionRowEnd = Arrays.copyOf(regionRowEnd, capacity);
+            regionColStart = Arrays.copyOf(regionColStart, capacity);
+            regionColEnd = Arrays.copyOf(regionColEnd, capacity);
+        }
+        regionRowStart[reducer - 1] = rowNow;
+        regionRowEnd[reducer - 1] = rowNext;
+        regionColStart[reducer - 1] = colNow;
+        regionColEnd[reducer - 1] = colNext;
+        regions = Math.max(regions, reducer);
+    }
+
+    /**
+     * Build the interval index of rows and columns from the stored regions.
+     */
+    protected final void buildIndex() {
+        regionRowStart = Arrays.copyOf(regionRowStart, regions);
+        regionRowEnd = Arrays.copyOf(regionRowEnd, regions);
+        regionColStart = Arrays.copyOf(regionColStart, regions);
+        regionColEnd = Arrays.copyOf(regionColEnd, regions);
+
+        rowBounds = boundsOf(regionRowStart, regionRowEnd);
+        rowRegions = intersectingRegions(rowBounds, regionRowStart, regionRowEnd);
+        colBounds = boundsOf(regionColStart, regionColEnd);
+        colRegions = intersectingRegions(colBounds, regionColStart, regionColEnd);
+    }
+
+    /**
+     * Method to collect the sorted, distinct bounds of all the regions in one
+     * dimension (rows or columns).
+     * @param starts The first row/column of every region.
+     * @param ends The next row/column after every region.
+     * @return A sorted int array without duplicates.
+     */
+    private static int[] boundsOf(int[] starts, int[] ends) {
+        int[] bounds = new int[starts.length + ends.length];
+        System.arraycopy(starts, 0, bounds, 0, starts.length);
+        System.arraycopy(ends, 0, bounds, starts.length, ends.length);
+        Arrays.sort(bounds);
+
+        int distinct = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (distinct == 0 || bounds[i] != bounds[distinct - 1]) {
+                bounds[distinct++] = bounds[i];
             }
         }
+        return Arrays.copyOf(bounds, distinct);
     }
 
     /**
-     * Method to store all intersecting reducers in a column.
-     * @param colNow Integer indicating the current column.
-     * @param colNext Integer indicating the next available column.
-     * @param reducer Integer indicating the current reducer.
+     * Method to store all intersecting reducers of every interval in one 
+     * dimension (rows or columns).
+     * @param bounds The sorted, distinct bounds of that dimension.
+     * @param starts The first row/column of every region.
+     * @param ends The next row/column after every region.
+     * @return An array holding the (ascending) reducers of every interval.
      */
-    private final void intersectingColumns(int colNow, int colNext, int reducer) {
-        for (int i = colNow; i < colNext; i++) {
-            if (interColumns.containsKey(i)) { //If we have the column already saved
-                if (!interColumns.get(i).contains(reducer)) {
-                    interColumns.get(i).add(reducer); //Add the reducer
-                }
-            } else { //Else create the column
-                interColumns.put(i, new ArrayList<Integer>(Arrays.asList(reducer))); 
+    private static int[][] intersectingRegions(int[] bounds, int[] starts, int[] ends) {
+        int intervals = Math.max(bounds.length - 1, 0);
+        int[] sizes = new int[intervals];
+        for (int i = 0; i < starts.length; i++) {
+            int from = Arrays.binarySearch(bounds, starts[i]);
+            int to = Arrays.binarySearch(bounds, ends[i]);
+            for (int k = from; k < to; k++) {
+                sizes[k]++;
+            }
+        }
+
+        int[][] intersecting = new int[intervals][];
+        for (int k = 0; k < intervals; k++) {
+            intersecting[k] = sizes[k] == 0 ? NO_REGIONS : new int[sizes[k]];
+            sizes[k] = 0;
+        }
+        //Regions are visited in ascending order, so every array stays sorted
+        for (int i = 0; i < starts.length; i++) {
+            int from = Arrays.binarySearch(bounds, starts[i]);
+            int to = Arrays.binarySearch(bounds, ends[i]);
+            for (int k = from; k < to; k++) {
+                intersecting[k][sizes[k]++] = i + 1;
+            }
+        }
+        return intersecting;
+    }
+
+    /**
+     * Count the rows/columns of [0, size) that are not in any interval with
+     * intersecting reducers.
+     * @param bounds The sorted, distinct bounds of that dimension.
+     * @param intersecting The reducers of every interval.
+     * @param size The number of rows/columns.
+     * @return The number of uncovered rows/columns.
+     */
+    private static int uncovered(int[] bounds, int[][] intersecting, int size) {
+        long covered = 0;
+        for (int k = 0; k < intersecting.length; k++) {
+            if (intersecting[k].length > 0) {
+                covered += Math.max(0, Math.min(bounds[k + 1], size) - Math.max(bounds[k], 0));
             }
         }
+        return (int) (size - covered);
+    }
+
+    /**
+     * Binary search the interval that contains 'index' and return its reducers.
+     * @param bounds The sorted, distinct bounds of that dimension.
+     * @param intersecting The reducers of every interval.
+     * @param index A zero-based row/column.
+     * @return The reducers that intersect with 'index'.
+     */
+    private static int[] lookup(int[] bounds, int[][] intersecting, int index) {
+        int k = Arrays.binarySearch(bounds, index);
+        if (k < 0) {
+            k = -k - 2; //The interval that starts right before 'index'
+        }
+        if (k < 0 || k >= intersecting.length) {
+            return NO_REGIONS;
+        }
+        return intersecting[k];
     }
 }
@@ -0,0 +1,293 @@
+package com.lefteris008.hadooptheta.partitioner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.GenericOptionsParser;
+
+/**
+ * Offline simulator of the 1-Bucket-Theta partitioning. For the given |S|
+ * and |R| it builds the plan of every number of reducers in a range (with
+ * MatrixToReducerPartitioning.Partitioner(), without running any job) and
+ * measures it:
+ * - the input of the largest region (the rows and columns of the region,
+ *   i.e. the S-tuples and R-tuples that its reducer receives),
+ * - the replicated tuples (the copies that the mappers emit in total),
+ * - the imbalance of the areas of the regions (the largest area relative to
+ *   the ideal S * R / r) and
+ * - the rows and columns that no region covers (a plan with any of them
+ *   would lose tuples and is never chosen).
+ * It also estimates the makespan of every plan on a cluster with a number of
+ * reduce slots, in units of tuples: the copies are emitted and shuffled by
+ * all the slots in parallel, while the regions run in waves of 'slots'
+ * reducers, each wave as long as the largest region plus the start-up
+ * overhead of a task. The number of reducers with the lowest makespan is
+ * chosen, which HadoopTheta uses when the number of reducers is 'auto'.
+ *
+ * The simulator runs from the command line as well:
+ * PlanSimulator [-D ...] |S| |R| minReducers maxReducers slots
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2030
+ */
+public class PlanSimulator {
+
+    //Configuration properties for the number of reduce slots of the cluster
+    //(by default, the ones that the JobTracker reports), the largest number
+    //of reducers to simulate (by default, 4 per slot) and the overhead of
+    //a task, in tuples
+    public static final String SLOTS_KEY = "hadooptheta.planner.slots";
+    public static final String MAX_REDUCERS_KEY = "hadooptheta.planner.maxReducers";
+    public static final String TASK_OVERHEAD_KEY = "hadooptheta.planner.taskOverhead";
+    public static final int DEFAULT_TASK_OVERHEAD = 100000;
+
+    private final int S;
+    private final int R;
+    private final int slots;
+    private final double taskOverhead;
+
+    /**
+     * The metrics of the plan of a number of reducers.
+     */
+    public static final class Plan {
+
+        private final int reducers;
+        private final int regions;
+        private final long maxRegionInput;
+        private final long replicatedTuples;
+        private final double areaImbalance;
+        private final int uncoveredRows;
+        private final int uncoveredColumns;
+        private final int waves;
+        private final double makespan;
+
+        private Plan(int reducers, int regions, long maxRegionInput, long replicatedTuples,
+                double areaImbalance, int uncoveredRows, int uncoveredColumns, int waves,
+                double makespan) {
+            this.reducers = reducers;
+            this.regions = regions;
+            this.maxRegionInput = maxRegionInput;
+            this.replicatedTuples = replicatedTuples;
+            this.areaImbalance = areaImbalance;
+            this.uncoveredRows = uncoveredRows;
+            this.uncoveredColumns = uncoveredColumns;
+            this.waves = waves;
+            this.makespan = makespan;
+        }
+
+        /**
+         * Return the number of reducers of the plan.
+         * @return The number of reducers
+         */
+        public int getReducers() {
+            return reducers;
+        }
+
+        /**
+         * Return the number of regions of the plan.
+         * @return The number of regions
+         */
+        public int getRegions() {
+            return regions;
+        }
+
+        /**
+         * Return the input (S-tuples and R-tuples) of the largest region.
+         * @return The number of tuples
+         */
+        public long getMaxRegionInput() {
+            return maxRegionInput;
+        }
+
+        /**
+         * Return the copies of the tuples that are emitted to all the regions.
+         * @return The number of tuples
+         */
+        public long getReplicatedTuples() {
+            return replicatedTuples;
+        }
+
+        /**
+         * Return the largest area of a region relative to S * R / r.
+         * @return The ratio (1 for perfectly balanced regions)
+         */
+        public double getAreaImbalance() {
+            return areaImbalance;
+        }
+
+        /**
+         * Return the rows that no region covers.
+         * @return The number of rows
+         */
+        public int getUncoveredRows() {
+            return uncoveredRows;
+        }
+
+        /**
+         * Return the columns that no region covers.
+         * @return The number of columns
+         */
+        public int getUncoveredColumns() {
+            return uncoveredColumns;
+        }
+
+        /**
+         * Return true if every row and column is covered by some region.
+         * @return A boolean flag
+         */
+        public boolean isComplete() {
+            return uncoveredRows == 0 && uncoveredColumns == 0;
+        }
+
+        /**
+         * Return the number of waves of the reducers on the slots.
+         * @return The number of waves
+         */
+        public int getWaves() {
+            return waves;
+        }
+
+        /**
+         * Return the estimated makespan, in tuples.
+         * @return The makespan
+         */
+        public double getMakespan() {
+            return makespan;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%8d %8d %14d %14d %8.3f %8d %8d %6d %16.0f",
+                    reducers, regions, maxRegionInput, replicatedTuples, areaImbalance,
+                    uncoveredRows, uncoveredColumns, waves, makespan);
+        }
+    }
+
+    /**
+     * Parametrized constructor.
+     * @param inputS The cardinality of S
+     * @param inputR The cardinality of R
+     * @param slots The number of reduce slots of the cluster
+     * @param taskOverhead The start-up overhead of a task, in tuples
+     */
+    public PlanSimulator(int inputS, int inputR, int slots, double taskOverhead) {
+        if (inputS <= 0 || inputR <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Invalid cardinalities or slots: |S| = "
+                    + inputS + ", |R| = " + inputR + ", slots = " + slots);
+        }
+        this.S = inputS;
+        this.R = inputR;
+        this.slots = slots;
+        this.taskOverhead = taskOverhead;
+    }
+
+    /**
+     * Build and measure the plan of a number of reducers.
+     * @param reducers The number of reducers
+     * @return The metrics of the plan, or null if the matrix cannot be
+     * partitioned into that many reducers
+     */
+    public Plan simulate(int reducers) {
+        if (reducers <= 0 || (long) S * R < reducers) {
+            return null;
+        }
+        MatrixToReducerPartitioning mtr = new MatrixToReducerPartitioning(S, R, reducers);
+        mtr.Partitioner();
+
+        int regions = mtr.getNumberOfRegions();
+        long maxRegionInput = 0;
+        long replicatedTuples = 0;
+        long maxArea = 0;
+        for (int region = 1; region <= regions; region++) {
+            int rows = mtr.getRowsOfRegion(region);
+            int columns = mtr.getColumnsOfRegion(region);
+            maxRegionInput = Math.max(maxRegionInput, (long) rows + columns);
+            replicatedTuples += (long) rows + columns;
+            maxArea = Math.max(maxArea, (long) rows * columns);
+        }
+        int waves = (regions + slots - 1) / slots;
+        double makespan = (double) replicatedTuples / slots
+                + waves * (taskOverhead + maxRegionInput);
+        return new Plan(reducers, regions, maxRegionInput, replicatedTuples,
+                maxArea / ((double) S * R / reducers), mtr.getUncoveredRows(),
+                mtr.getUncoveredColumns(), waves, makespan);
+    }
+
+    /**
+     * Build and measure the plans of a range of reducers.
+     * @param minReducers The lowest number of reducers
+     * @param maxReducers The highest number of reducers
+     * @return The metrics of every plan that can be built
+     */
+    public List<Plan> simulate(int minReducers, int maxReducers) {
+        List<Plan> plans = new ArrayList<Plan>();
+        for (int reducers = Math.max(1, minReducers); reducers <= maxReducers; reducers++) {
+            Plan plan = simulate(reducers);
+            if (plan != null) {
+                plans.add(plan);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * Choose the plan with the lowest estimated makespan (the fewest reducers
+     * among equal ones) that covers every row and column.
+     * @param plans The simulated plans
+     * @return The chosen plan
+     */
+    public static Plan choose(List<Plan> plans) {
+        Plan best = null;
+        for (Plan plan : plans) {
+            if (plan.isComplete() && (best == null || plan.makespan < best.makespan)) {
+                best = plan;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("No plan covers the whole matrix");
+        }
+        return best;
+    }
+
+    /**
+     * Choose the number of reducers with the lowest estimated makespan, from
+     * 1 to the maximum number of reducers of the Configuration.
+     * @param conf The Configuration of the run
+     * @param cardinalityOfS The cardinality of S
+     * @param cardinalityOfR The cardinality of R
+     * @param slots The number of reduce slots
+     * @return The chosen plan
+     */
+    public static Plan choose(Configuration conf, int cardinalityOfS, int cardinalityOfR,
+            int slots) {
+        PlanSimulator simulator = new PlanSimulator(cardinalityOfS, cardinalityOfR, slots,
+                conf.getInt(TASK_OVERHEAD_KEY, DEFAULT_TASK_OVERHEAD));
+        return choose(simulator.simulate(1, conf.getInt(MAX_REDUCERS_KEY, 4 * slots)));
+    }
+
+    public static void main(String args[]) throws Exception {
+        Configuration conf = new Configuration();
+        args = new GenericOptionsParser(conf, args).getRemainingArgs();
+        if (args.length != 5) {
+            System.out.println("Usage: PlanSimulator [-D ...] |S| |R| minReducers "
+                    + "maxReducers slots");
+            System.exit(1);
+        }
+        PlanSimulator simulator = new PlanSimulator(Integer.parseInt(args[0]),
+                Integer.parseInt(args[1]), Integer.parseInt(args[4]),
+                conf.getInt(TASK_OVERHEAD_KEY, DEFAULT_TASK_OVERHEAD));
+        List<Plan> plans = simulator.simulate(Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]));
+        Plan chosen = choose(plans);
+
+        System.out.println("       r  regions maxRegionInput     replicated areaImb"
+                + "  uncRows  uncCols  waves         makespan");
+        for (Plan plan : plans) {
+            System.out.println(plan + (plan == chosen ? "  *" : ""));
+        }
+        System.out.println("\nChosen number of reducers: " + chosen.getReducers());
+    }
+}
@@ -0,0 +1,39 @@
+package com.lefteris008.hadooptheta.partitioner;
+
+import com.lefteris008.hadooptheta.io.RegionTupleKey;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * Partitioner of the Theta-Join phase that sends every region of the
+ * MatrixToReducerPartitioning to its own reduce task (region 'i' to the
+ * reduce task 'i - 1'), instead of hashing the region IDs. This way, the
+ * balanced regions computed by the MatrixToReducerPartitioning are never 
+ * stacked on the same reducer while other reducers are idle. The key is the
+ * region (IntWritable) or, for the secondary sort, a RegionTupleKey.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1730
+ * @param <V> The class of the map output values
+ */
+public class RegionPartitioner<V> extends Partitioner<WritableComparable<?>, V> {
+
+    /**
+     * Return the reduce task of a region. If there are fewer reduce tasks than
+     * regions, the regions wrap around the reduce tasks.
+     * @param key The region (from 1 to the number of reducers), or the
+     * RegionTupleKey of the region
+     * @param value The tuple (not used)
+     * @param numPartitions The number of reduce tasks
+     * @return The reduce task of the region
+     */
+    @Override
+    public int getPartition(WritableComparable<?> key, V value, int numPartitions) {
+        int region = key instanceof RegionTupleKey
+                ? ((RegionTupleKey) key).getRegion() : ((IntWritable) key).get();
+        return (region - 1) % numPartitions;
+    }
+}
@@ -0,0 +1,144 @@
+package com.lefteris008.hadooptheta.partitioner;
+
+import java.util.SplittableRandom;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Placement of the tuples to the rows (S) and columns (R) of the matrix of
+ * the 1-Bucket-Theta partitioning. Every tuple is placed to a uniformly
+ * distributed row/column, which is what balances the load of the regions
+ * regardless of the distribution of the join attributes. A placement is
+ * created once per map task and is not thread-safe.
+ *
+ * There are two placements (hadooptheta.placement):
+ * - "random" (default) draws the rows/columns from a SplittableRandom of the
+ *   task, instead of creating a new Random for every tuple. If a seed is set
+ *   (hadooptheta.placement.seed), the generator of every task is derived from
+ *   the seed and the task, so every attempt of a task repeats the placement
+ *   of the previous attempts.
+ * - "hash" places a tuple by a hash of its position in the input (the file
+ *   and the offset of its line), which is the same in every attempt and every
+ *   run, but still uniform across the tuples.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public abstract class TuplePlacement {
+
+    //Configuration property that selects the placement of the tuples
+    public static final String PLACEMENT_KEY = "hadooptheta.placement";
+    public static final String PLACEMENT_RANDOM = "random";
+    public static final String PLACEMENT_HASH = "hash";
+
+    //Configuration property for the seed of the placement (a long)
+    public static final String SEED_KEY = "hadooptheta.placement.seed";
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Check the placement of the Configuration, so that an invalid placement
+     * or seed fails before any job is submitted.
+     * @param conf The Configuration of the job
+     * @throws IllegalArgumentException If the placement or its seed is invalid
+     */
+    public static void validate(Configuration conf) {
+        String placement = conf.get(PLACEMENT_KEY, PLACEMENT_RANDOM);
+        if (!PLACEMENT_RANDOM.equals(placement) && !PLACEMENT_HASH.equals(placement)) {
+            throw new IllegalArgumentException("Unknown placement: " + placement);
+        }
+        String seed = conf.get(SEED_KEY);
+        if (seed != null) {
+            try {
+                Long.parseLong(seed);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid placement seed: " + seed, e);
+            }
+        }
+    }
+
+    /**
+     * Create the placement of a map task.
+     * @param conf The Configuration of the job
+     * @param task The number of the task (the same for all of its attempts)
+     * @param source The input of the task (e.g. the path of its file), which
+     * identifies the positions of the tuples along with their offsets
+     * @return A new TuplePlacement
+     */
+    public static TuplePlacement create(Configuration conf, int task, String source) {
+        validate(conf);
+        String placement = conf.get(PLACEMENT_KEY, PLACEMENT_RANDOM);
+        String seed = conf.get(SEED_KEY);
+        if (PLACEMENT_RANDOM.equals(placement)) {
+            return new RandomPlacement(seed == null
+                    ? new SplittableRandom()
+                    : new SplittableRandom(mix(Long.parseLong(seed) + task * GOLDEN_GAMMA)));
+        } else {
+            long hash = seed == null ? 0 : Long.parseLong(seed);
+            if (source != null) {
+                for (int i = 0; i < source.length(); i++) {
+                    hash = 31 * hash + source.charAt(i);
+                }
+            }
+            return new HashPlacement(mix(hash));
+        }
+    }
+
+    /**
+     * Place a tuple to a row or a column of the matrix.
+     * @param a The join attribute of the tuple
+     * @param position The position of the tuple in the input (e.g. the
+     * offset of its line)
+     * @param cardinality The number of rows or columns
+     * @return A row or column in [1, cardinality]
+     */
+    public abstract int place(int a, long position, int cardinality);
+
+    /**
+     * The finalizer of the SplitMix64 generator, that turns a sequence of
+     * numbers (or a seed) into well-distributed 64-bit hashes.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Uniform random placement, from a generator of the task.
+     */
+    private static final class RandomPlacement extends TuplePlacement {
+
+        private final SplittableRandom random;
+
+        RandomPlacement(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public int place(int a, long position, int cardinality) {
+            return random.nextInt(cardinality) + 1;
+        }
+    }
+
+    /**
+     * Deterministic placement, from the hash of the position of the tuple.
+     */
+    private static final class HashPlacement extends TuplePlacement {
+
+        private final long seed;
+
+        HashPlacement(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public int place(int a, long position, int cardinality) {
+            //The high 31 bits of the hash are scaled to [0, cardinality),
+            //which needs no division and no rejection
+            long hash = mix(seed + position * GOLDEN_GAMMA) >>> 33;
+            return (int) ((hash * cardinality) >>> 31) + 1;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.lefteris008.hadooptheta.query;
+
+/**
+ * The aggregate function of the query, which is calculated over the S.x
+ * attributes of all the S-tuples that a R.a attribute joins with (SUM by
+ * default).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1430
+ */
+public enum ThetaAggregate {
+
+    SUM("sum"),
+    COUNT("count"),
+    MIN("min"),
+    MAX("max"),
+    AVG("avg");
+
+    private final String name;
+
+    private ThetaAggregate(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Return the name of the aggregate function, as it is set in the
+     * Configuration.
+     * @return A String representing the name.
+     */
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Find an aggregate function by its name.
+     * @param name The name of the aggregate function (case insensitive)
+     * @return The aggregate function
+     * @throws IllegalArgumentException If there is no such function
+     */
+    public static ThetaAggregate fromName(String name) {
+        for (ThetaAggregate aggregate : values()) {
+            if (aggregate.name.equalsIgnoreCase(name.trim())) {
+                return aggregate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown aggregate function: " + name);
+    }
+}
@@ -0,0 +1,90 @@
+package com.lefteris008.hadooptheta.query;
+
+/**
+ * The join condition of the query, as a comparison of the R.a attribute with
+ * the S.a attribute (R.a &lt; S.a by default). The BAND predicate joins the
+ * tuples whose attributes differ by at most a configured width k, that is
+ * |R.a - S.a| &lt;= k.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1430
+ */
+public enum ThetaPredicate {
+
+    LT("lt"), //R.a < S.a
+    LE("le"), //R.a <= S.a
+    GT("gt"), //R.a > S.a
+    GE("ge"), //R.a >= S.a
+    NE("ne"), //R.a != S.a
+    BAND("band"); //|R.a - S.a| <= k
+
+    private final String name;
+
+    private ThetaPredicate(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Return the name of the predicate, as it is set in the Configuration.
+     * @return A String representing the name.
+     */
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Find a predicate by its name.
+     * @param name The name of the predicate (case insensitive)
+     * @return The predicate
+     * @throws IllegalArgumentException If there is no such predicate
+     */
+    public static ThetaPredicate fromName(String name) {
+        for (ThetaPredicate predicate : values()) {
+            if (predicate.name.equalsIgnoreCase(name.trim())) {
+                return predicate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown join predicate: " + name);
+    }
+
+    /**
+     * Return true if a R-tuple joins with a S-tuple.
+     * @param rA The R.a attribute
+     * @param sA The S.a attribute
+     * @param band The width k of the BAND predicate
+     * @return A boolean flag.
+     */
+    public final boolean matches(int rA, int sA, int band) {
+        return mayMatch(rA, rA, sA, sA, band);
+    }
+
+    /**
+     * Return true if some R-tuple with a R.a attribute in [rLow, rHigh] can
+     * join with some S-tuple with a S.a attribute in [sLow, sHigh]. This is
+     * used to prune the tuples (and the cells of the matrix) that can never
+     * produce any output.
+     * @param rLow The lowest R.a attribute
+     * @param rHigh The highest R.a attribute
+     * @param sLow The lowest S.a attribute
+     * @param sHigh The highest S.a attribute
+     * @param band The width k of the BAND predicate
+     * @return A boolean flag.
+     */
+    public final boolean mayMatch(long rLow, long rHigh, long sLow, long sHigh, int band) {
+        switch (this) {
+            case LT:
+                return rLow < sHigh;
+            case LE:
+                return rLow <= sHigh;
+            case GT:
+                return rHigh > sLow;
+            case GE:
+                return rHigh >= sLow;
+            case NE:
+                return !(rLow == rHigh && sLow == sHigh && rLow == sLow);
+            default: //BAND
+                return rLow - band <= sHigh && rHigh + band >= sLow;
+        }
+    }
+}
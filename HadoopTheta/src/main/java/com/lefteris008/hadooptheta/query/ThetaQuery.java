@@ -0,0 +1,129 @@
+package com.lefteris008.hadooptheta.query;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * The query that is answered by the Theta-Join, that is
+ * SELECT R.a, AGGREGATE(S.x) FROM R, S WHERE R.a PREDICATE S.a AND R.a &gt; FILTER
+ * GROUP BY R.a
+ * (every R.a attribute that passes the filter is output, even if it does not
+ * join with any S-tuple). All the parts of the query are read from the job's
+ * Configuration and default to the original query of the project,
+ * SUM(S.x) with R.a &lt; S.a and R.a &gt; 10.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2100
+ */
+public final class ThetaQuery {
+
+    //Configuration properties of the query
+    public static final String PREDICATE_KEY = "hadooptheta.query.predicate";
+    public static final String BAND_KEY = "hadooptheta.query.band";
+    public static final String AGGREGATE_KEY = "hadooptheta.query.aggregate";
+    public static final String FILTER_KEY = "hadooptheta.query.filter";
+
+    //The filter of the original query (R.a > 10)
+    public static final int DEFAULT_FILTER = 10;
+
+    private final ThetaPredicate predicate;
+    private final int band;
+    private final ThetaAggregate aggregate;
+    private final int filter;
+
+    /**
+     * Parametrized constructor.
+     * @param predicate The join condition
+     * @param band The width k of the BAND predicate (ignored by the others)
+     * @param aggregate The aggregate function
+     * @param filter The filter of the R.a attribute (R.a &gt; filter)
+     */
+    public ThetaQuery(ThetaPredicate predicate, int band, ThetaAggregate aggregate, int filter) {
+        if (band < 0) {
+            throw new IllegalArgumentException("The width of the band must not be negative");
+        }
+        this.predicate = predicate;
+        this.band = band;
+        this.aggregate = aggregate;
+        this.filter = filter;
+    }
+
+    /**
+     * Read the query from a Configuration.
+     * @param conf The Configuration of the job
+     * @return The query
+     */
+    public static ThetaQuery fromConfiguration(Configuration conf) {
+        return new ThetaQuery(
+                ThetaPredicate.fromName(conf.get(PREDICATE_KEY, ThetaPredicate.LT.getName())),
+                conf.getInt(BAND_KEY, 0),
+                ThetaAggregate.fromName(conf.get(AGGREGATE_KEY, ThetaAggregate.SUM.getName())),
+                conf.getInt(FILTER_KEY, DEFAULT_FILTER));
+    }
+
+    public final ThetaPredicate getPredicate() {
+        return predicate;
+    }
+
+    public final int getBand() {
+        return band;
+    }
+
+    public final ThetaAggregate getAggregate() {
+        return aggregate;
+    }
+
+    public final int getFilter() {
+        return filter;
+    }
+
+    /**
+     * Return true if a R-tuple passes the filter of the query.
+     * @param rA The R.a attribute
+     * @return A boolean flag.
+     */
+    public final boolean selectsR(int rA) {
+        return rA > filter;
+    }
+
+    /**
+     * Return true if a S-tuple can join with some R-tuple that passes the
+     * filter of the query. The filter only applies to the R.a attribute, but
+     * combined with the join condition it also prunes S-tuples (e.g. R.a &gt; 10
+     * and R.a &lt; S.a give S.a &gt; 11).
+     * @param sA The S.a attribute
+     * @return A boolean flag.
+     */
+    public final boolean selectsS(int sA) {
+        return predicate.mayMatch((long) filter + 1, Integer.MAX_VALUE, sA, sA, band);
+    }
+
+    /**
+     * Return true if some R.a attribute in a range passes the filter of the
+     * query (e.g. the range of a block of a columnar file).
+     * @param low The lowest R.a attribute of the range
+     * @param high The highest R.a attribute of the range
+     * @return A boolean flag.
+     */
+    public final boolean selectsAnyR(int low, int high) {
+        return high > filter;
+    }
+
+    /**
+     * Return true if some S.a attribute in a range can join with some R-tuple
+     * that passes the filter of the query (see selectsS).
+     * @param low The lowest S.a attribute of the range
+     * @param high The highest S.a attribute of the range
+     * @return A boolean flag.
+     */
+    public final boolean selectsAnyS(int low, int high) {
+        return predicate.mayMatch((long) filter + 1, Integer.MAX_VALUE, low, high, band);
+    }
+
+    @Override
+    public String toString() {
+        return "R.a " + predicate.getName() 
+                + (predicate == ThetaPredicate.BAND ? "(" + band + ")" : "")
+                + " S.a, " + aggregate.getName() + "(S.x), R.a > " + filter;
+    }
+}
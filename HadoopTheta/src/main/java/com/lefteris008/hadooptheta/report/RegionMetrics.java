@@ -0,0 +1,196 @@
+package com.lefteris008.hadooptheta.report;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * The metrics of the join of a single region, as measured by the reducer of
+ * the region (ThetaJoinReduce or the LocalThetaJoin): the number of its
+ * S-tuples and R-tuples, the number of its distinct S.a attributes, the
+ * time of its probe (from the located R-tuples to their semi-aggregates)
+ * and the bytes of its tuples that were buffered in memory at most. The
+ * metrics of every region are written as a tab-separated line, which the
+ * driver reads into the RunReport.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2000
+ */
+public final class RegionMetrics {
+
+    //The prefix of the files of the metrics in the output of the Theta-Join
+    //phase (hidden from the FileInputFormat of the second phase)
+    public static final String FILE_PREFIX = "_regions-";
+
+    private final int region;
+    private long tuplesOfS = 0;
+    private long tuplesOfR = 0;
+    private long distinctS = 0;  //-1 if the region was joined from disk
+    private long probeNanos = 0;
+    private long peakBufferedBytes = 0;
+
+    /**
+     * Parametrized constructor.
+     * @param region The region (from 1 to the number of regions)
+     */
+    public RegionMetrics(int region) {
+        this.region = region;
+    }
+
+    /**
+     * Set the sizes of the region.
+     * @param tuplesOfS The number of S-tuples
+     * @param tuplesOfR The number of R-tuples (with their multiplicities)
+     * @param distinctS The number of distinct S.a attributes (-1 if unknown)
+     */
+    public void setSizes(long tuplesOfS, long tuplesOfR, long distinctS) {
+        this.tuplesOfS = tuplesOfS;
+        this.tuplesOfR = tuplesOfR;
+        this.distinctS = distinctS;
+    }
+
+    /**
+     * Add to the time of the probe.
+     * @param nanos The time in nanoseconds
+     */
+    public void addProbeNanos(long nanos) {
+        probeNanos += nanos;
+    }
+
+    /**
+     * Raise the peak of the buffered bytes.
+     * @param bytes The bytes that are currently buffered
+     */
+    public void updatePeakBufferedBytes(long bytes) {
+        peakBufferedBytes = Math.max(peakBufferedBytes, bytes);
+    }
+
+    /**
+     * Return the region (from 1 to the number of regions).
+     * @return The region
+     */
+    public int getRegion() {
+        return region;
+    }
+
+    /**
+     * Return the number of S-tuples.
+     * @return The number of S-tuples
+     */
+    public long getTuplesOfS() {
+        return tuplesOfS;
+    }
+
+    /**
+     * Return the number of R-tuples (with their multiplicities).
+     * @return The number of R-tuples
+     */
+    public long getTuplesOfR() {
+        return tuplesOfR;
+    }
+
+    /**
+     * Return the number of distinct S.a attributes (-1 if unknown).
+     * @return The number of distinct S.a attributes
+     */
+    public long getDistinctS() {
+        return distinctS;
+    }
+
+    /**
+     * Return the time of the probe in nanoseconds.
+     * @return The time in nanoseconds
+     */
+    public long getProbeNanos() {
+        return probeNanos;
+    }
+
+    /**
+     * Return the bytes that were buffered at most.
+     * @return The number of bytes
+     */
+    public long getPeakBufferedBytes() {
+        return peakBufferedBytes;
+    }
+
+    /**
+     * Return the input of the region (the tuples of both relations).
+     * @return The number of tuples
+     */
+    public long getInput() {
+        return tuplesOfS + tuplesOfR;
+    }
+
+    /**
+     * Format the metrics as a line.
+     * @return region, |S|, |R|, distinct S.a, probe time (ns) and peak bytes,
+     * separated by tabs
+     */
+    public String toLine() {
+        return region + "\t" + tuplesOfS + "\t" + tuplesOfR + "\t" + distinctS
+                + "\t" + probeNanos + "\t" + peakBufferedBytes;
+    }
+
+    /**
+     * Parse a line of toLine().
+     * @param line The line
+     * @return The metrics of the line
+     * @throws IOException If the line is malformed
+     */
+    public static RegionMetrics parse(String line) throws IOException {
+        String[] fields = line.split("\t");
+        if (fields.length != 6) {
+            throw new IOException("Malformed region metrics: " + line);
+        }
+        try {
+            RegionMetrics metrics = new RegionMetrics(Integer.parseInt(fields[0]));
+            metrics.setSizes(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    Long.parseLong(fields[3]));
+            metrics.probeNanos = Long.parseLong(fields[4]);
+            metrics.peakBufferedBytes = Long.parseLong(fields[5]);
+            return metrics;
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed region metrics: " + line, e);
+        }
+    }
+
+    /**
+     * Read the metrics of all the regions from the files of a directory.
+     * @param fs The FileSystem of the directory
+     * @param directory The output directory of the Theta-Join phase
+     * @return The metrics, sorted by region
+     * @throws IOException
+     */
+    public static List<RegionMetrics> readAll(FileSystem fs, Path directory) 
+            throws IOException {
+        List<RegionMetrics> regions = new ArrayList<RegionMetrics>();
+        FileStatus[] files = fs.globStatus(new Path(directory, FILE_PREFIX + "*"));
+        if (files == null) {
+            return regions;
+        }
+        for (FileStatus file : files) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    fs.open(file.getPath()), StandardCharsets.UTF_8));
+            try {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (!line.isEmpty()) {
+                        regions.add(parse(line));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        Collections.sort(regions, (x, y) -> Integer.compare(x.region, y.region));
+        return regions;
+    }
+}
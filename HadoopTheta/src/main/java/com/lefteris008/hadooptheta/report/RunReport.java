@@ -0,0 +1,263 @@
+package com.lefteris008.hadooptheta.report;
+
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+
+/**
+ * Machine-readable report of a run of the Theta-Join, written by the driver
+ * as a JSON file (by default "_report.json" in the output directory, which
+ * the FileInputFormat ignores, or hadooptheta.report.path). It holds:
+ * - the query and the plan (the partitioning, |S|, |R|, r and the regions),
+ * - every phase with its start, its duration in milliseconds and all the
+ *   counters of its job (the Hadoop counters and the ones of this project),
+ * - the replication of every relation (the copies that the mappers emitted
+ *   per tuple that passed the filter), and
+ * - the metrics of every region (RegionMetrics), tagged with the phase that
+ *   joined it, and the skew ratios (maximum / mean) of the regions of every
+ *   phase, which point to the stragglers. The phases of an incremental run
+ *   number their regions from 1 each, so their regions are kept apart.
+ * The same keys are written on every run, so the reports of different runs
+ * can be compared by a script.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public final class RunReport {
+
+    //Configuration property for the path of the report
+    public static final String PATH_KEY = "hadooptheta.report.path";
+    public static final String DEFAULT_NAME = "_report.json";
+
+    private final StringBuilder plan = new StringBuilder();
+    private final List<String> phases = new ArrayList<String>();
+    private final String query;
+    private final String engine;
+    private long replicatedS = -1, selectedS = -1, replicatedR = -1, selectedR = -1;
+    private final Map<String, List<RegionMetrics>> regions =
+            new LinkedHashMap<String, List<RegionMetrics>>();
+
+    /**
+     * Parametrized constructor.
+     * @param query The query of the run
+     * @param engine The engine of the run ("hadoop" or "local")
+     */
+    public RunReport(ThetaQuery query, String engine) {
+        this.query = query.toString();
+        this.engine = engine;
+    }
+
+    /**
+     * Set the plan of the run.
+     * @param mtr The partitioning of the matrix
+     * @param partitioning The name of the partitioning
+     */
+    public void setPlan(MatrixToReducerPartitioning mtr, String partitioning) {
+        plan.setLength(0);
+        plan.append("{\"partitioning\": ").append(quote(partitioning))
+                .append(", \"cardinalityOfS\": ").append(mtr.getSCardinality())
+                .append(", \"cardinalityOfR\": ").append(mtr.getRCardinality())
+                .append(", \"reducers\": ").append(mtr.getNumberOfReducers())
+                .append(", \"regions\": ").append(mtr.getNumberOfRegions())
+                .append("}");
+    }
+
+    /**
+     * Add a phase of the run.
+     * @param name The name of the phase
+     * @param startMillis The start of the phase (epoch milliseconds)
+     * @param endMillis The end of the phase (epoch milliseconds)
+     * @param succeeded True if the phase completed successfully
+     * @param counters The counters of the phase (or null)
+     */
+    public void addPhase(String name, long startMillis, long endMillis, boolean succeeded,
+            Counters counters) {
+        StringBuilder phase = new StringBuilder();
+        phase.append("{\"name\": ").append(quote(name))
+                .append(", \"startMillis\": ").append(startMillis)
+                .append(", \"durationMillis\": ").append(endMillis - startMillis)
+                .append(", \"succeeded\": ").append(succeeded)
+                .append(", \"counters\": {");
+        if (counters != null) {
+            boolean firstGroup = true;
+            for (CounterGroup group : counters) {
+                phase.append(firstGroup ? "" : ", ").append(quote(group.getName())).append(": {");
+                boolean first = true;
+                for (Counter counter : group) {
+                    phase.append(first ? "" : ", ").append(quote(counter.getName()))
+                            .append(": ").append(counter.getValue());
+                    first = false;
+                }
+                phase.append("}");
+                firstGroup = false;
+            }
+        }
+        phase.append("}}");
+        phases.add(phase.toString());
+    }
+
+    /**
+     * Set the replication of both relations.
+     * @param selectedS The S-tuples that passed the filter
+     * @param emittedS The copies of them that were emitted
+     * @param selectedR The R-tuples that passed the filter
+     * @param emittedR The copies of them that were emitted
+     */
+    public void setReplication(long selectedS, long emittedS, long selectedR, long emittedR) {
+        this.selectedS = selectedS;
+        this.replicatedS = emittedS;
+        this.selectedR = selectedR;
+        this.replicatedR = emittedR;
+    }
+
+    /**
+     * Add the metrics of the regions of a phase.
+     * @param phase The name of the phase that joined the regions
+     * @param regions The metrics of every region of the phase
+     */
+    public void addRegions(String phase, List<RegionMetrics> regions) {
+        this.regions.put(phase, regions);
+    }
+
+    /**
+     * Format the report as JSON.
+     * @return The JSON document
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"query\": ").append(quote(query))
+                .append(",\n  \"engine\": ").append(quote(engine))
+                .append(",\n  \"plan\": ").append(plan.length() == 0 ? "null" : plan)
+                .append(",\n  \"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            json.append(i == 0 ? "\n    " : ",\n    ").append(phases.get(i));
+        }
+        json.append("\n  ],\n  \"replication\": {\"S\": ")
+                .append(ratio(replicatedS, selectedS))
+                .append(", \"R\": ").append(ratio(replicatedR, selectedR))
+                .append("},\n  \"skew\": {");
+        boolean first = true;
+        for (Map.Entry<String, List<RegionMetrics>> phase : regions.entrySet()) {
+            json.append(first ? "\n    " : ",\n    ").append(quote(phase.getKey()))
+                    .append(": ").append(skew(phase.getValue()));
+            first = false;
+        }
+        json.append(first ? "}" : "\n  }").append(",\n  \"regions\": [");
+        first = true;
+        for (Map.Entry<String, List<RegionMetrics>> phase : regions.entrySet()) {
+            for (RegionMetrics region : phase.getValue()) {
+                json.append(first ? "\n    " : ",\n    ")
+                        .append("{\"phase\": ").append(quote(phase.getKey()))
+                        .append(", \"region\": ").append(region.getRegion())
+                        .append(", \"tuplesOfS\": ").append(region.getTuplesOfS())
+                        .append(", \"tuplesOfR\": ").append(region.getTuplesOfR())
+                        .append(", \"distinctS\": ").append(region.getDistinctS())
+                        .append(", \"probeMillis\": ").append(millis(region.getProbeNanos()))
+                        .append(", \"peakBufferedBytes\": ")
+                        .append(region.getPeakBufferedBytes()).append("}");
+                first = false;
+            }
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * The skew ratios (maximum / mean) of the input, the probe time and the
+     * buffered bytes of the regions of a phase, along with the region of every
+     * maximum.
+     */
+    private static String skew(List<RegionMetrics> regions) {
+        if (regions.isEmpty()) {
+            return "null";
+        }
+        RegionMetrics maxInput = regions.get(0);
+        RegionMetrics maxProbe = regions.get(0);
+        RegionMetrics maxBuffered = regions.get(0);
+        double input = 0, probe = 0, buffered = 0;
+        for (RegionMetrics region : regions) {
+            input += region.getInput();
+            probe += region.getProbeNanos();
+            buffered += region.getPeakBufferedBytes();
+            if (region.getInput() > maxInput.getInput()) {
+                maxInput = region;
+            }
+            if (region.getProbeNanos() > maxProbe.getProbeNanos()) {
+                maxProbe = region;
+            }
+            if (region.getPeakBufferedBytes() > maxBuffered.getPeakBufferedBytes()) {
+                maxBuffered = region;
+            }
+        }
+        int n = regions.size();
+        return "{\"input\": " + ratio(maxInput.getInput() * n, input)
+                + ", \"maxInputRegion\": " + maxInput.getRegion()
+                + ", \"probe\": " + ratio(maxProbe.getProbeNanos() * n, probe)
+                + ", \"maxProbeRegion\": " + maxProbe.getRegion()
+                + ", \"peakBufferedBytes\": "
+                + ratio(maxBuffered.getPeakBufferedBytes() * n, buffered)
+                + ", \"maxPeakBufferedBytesRegion\": " + maxBuffered.getRegion() + "}";
+    }
+
+    /**
+     * Write the report.
+     * @param conf The Configuration of the run
+     * @param outputFileLocation The output of the run
+     * @return The path of the report
+     * @throws IOException
+     */
+    public Path write(Configuration conf, String outputFileLocation) throws IOException {
+        String location = conf.get(PATH_KEY);
+        Path path = location != null
+                ? new Path(location) : new Path(outputFileLocation, DEFAULT_NAME);
+        FileSystem fs = path.getFileSystem(conf);
+        OutputStream out = fs.create(path, true);
+        try {
+            out.write(toJson().getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        return path;
+    }
+
+    private static String ratio(double numerator, double denominator) {
+        if (numerator < 0 || denominator <= 0) {
+            return "null";
+        }
+        return String.format(Locale.ROOT, "%.4f", numerator / denominator);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
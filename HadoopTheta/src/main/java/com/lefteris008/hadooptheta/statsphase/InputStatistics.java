@@ -0,0 +1,157 @@
+package com.lefteris008.hadooptheta.statsphase;
+
+import com.lefteris008.hadooptheta.io.ThetaJoinInputFormat;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+
+/**
+ * The statistics of both relations of the input, as computed by a map-only
+ * Map/Reduce phase (StatisticsMap) that precedes the Theta-Join phase. They 
+ * replace the cardinalities of S and R that the user would otherwise have to
+ * supply and they feed the MatrixToReducerPartitioning directly.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2100
+ */
+public class InputStatistics {
+
+    private final RelationStatistics statisticsOfS;
+    private final RelationStatistics statisticsOfR;
+
+    /**
+     * Empty constructor
+     */
+    public InputStatistics() {
+        this(0);
+    }
+
+    /**
+     * Parametrized constructor, for the statistics of a part of the input
+     * that are gathered outside of the statistics phase (e.g. by the
+     * LocalThetaJoin).
+     * @param sampleSize The maximum sample size of every relation
+     */
+    public InputStatistics(int sampleSize) {
+        statisticsOfS = new RelationStatistics(sampleSize);
+        statisticsOfR = new RelationStatistics(sampleSize);
+    }
+
+    /**
+     * Run the statistics phase over the input and merge the statistics that
+     * every Mapper output.
+     * @param conf The Configuration of the statistics phase
+     * @param inputFileLocation The input of the Theta-Join (one or more 
+     * comma-separated paths)
+     * @param tempFileLocation The (temporary) output of the statistics phase
+     * @return The statistics of both relations
+     * @throws IOException
+     * @throws ClassNotFoundException
+     * @throws InterruptedException 
+     */
+    public static InputStatistics compute(Configuration conf, String inputFileLocation,
+            String tempFileLocation) throws IOException, ClassNotFoundException,
+            InterruptedException {
+
+        //Set the job as 'statistics' (map-only)
+        //(The tuples that fail the filter of the query are counted too)
+        conf.setBoolean(ThetaJoinInputFormat.FILTER_KEY, false);
+        Job job = new Job(conf, "statistics");
+        job.setNumReduceTasks(0);
+        job.setJarByClass(InputStatistics.class);
+        job.setMapperClass(StatisticsMap.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(RelationStatistics.class);
+        job.setInputFormatClass(ThetaJoinInputFormat.class);
+        job.setOutputFormatClass(SequenceFileOutputFormat.class);
+
+        FileInputFormat.addInputPaths(job, inputFileLocation);
+        Path tempPath = new Path(tempFileLocation);
+        FileSystem fs = tempPath.getFileSystem(conf);
+        fs.delete(tempPath, true);
+        FileOutputFormat.setOutputPath(job, tempPath);
+
+        if (!job.waitForCompletion(true)) {
+            throw new IOException("The statistics phase failed");
+        }
+
+        //Merge the statistics of all the Mappers
+        InputStatistics statistics = new InputStatistics();
+        Text relation = new Text();
+        RelationStatistics part = new RelationStatistics();
+        for (FileStatus file : fs.listStatus(tempPath)) {
+            if (!file.getPath().getName().startsWith("part-")) {
+                continue;
+            }
+            SequenceFile.Reader reader = new SequenceFile.Reader(fs, file.getPath(), conf);
+            try {
+                while (reader.next(relation, part)) {
+                    if (relation.toString().equals("S")) {
+                        statistics.statisticsOfS.merge(part);
+                    } else {
+                        statistics.statisticsOfR.merge(part);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        fs.delete(tempPath, true);
+        return statistics;
+    }
+
+    /**
+     * Merge the statistics of another part of the input into these.
+     * @param other The statistics of the other part
+     */
+    public final void merge(InputStatistics other) {
+        statisticsOfS.merge(other.statisticsOfS);
+        statisticsOfR.merge(other.statisticsOfR);
+    }
+
+    /**
+     * Return the statistics of the S relation.
+     * @return The statistics of S
+     */
+    public final RelationStatistics getS() {
+        return statisticsOfS;
+    }
+
+    /**
+     * Return the statistics of the R relation.
+     * @return The statistics of R
+     */
+    public final RelationStatistics getR() {
+        return statisticsOfR;
+    }
+
+    /**
+     * Return the number of the tuples of a relation that pass the filter, 
+     * as the cardinality of the relation in the MatrixToReducerPartitioning.
+     * Note that a relation with no such tuples still has a cardinality of 1.
+     * @param statistics The statistics of the relation
+     * @return The cardinality of the relation
+     */
+    public static int cardinalityOf(RelationStatistics statistics) {
+        if (statistics.getCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The cardinality " + statistics.getCount()
+                    + " exceeds the limit of the MatrixToReducerPartitioning");
+        }
+        return (int) Math.max(1, statistics.getCount());
+    }
+
+    @Override
+    public String toString() {
+        return "S: " + statisticsOfS + "\nR: " + statisticsOfR;
+    }
+}
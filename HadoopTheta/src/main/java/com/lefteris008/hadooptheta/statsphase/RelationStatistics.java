@@ -0,0 +1,234 @@
+package com.lefteris008.hadooptheta.statsphase;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Statistics of a single relation (S or R), as gathered by the StatisticsMap.
+ * It holds the number of all the tuples of the relation, the number of the
+ * tuples that pass the filter of the query (the ones that are actually joined),
+ * the minimum and the maximum join attribute of the latter and a uniform
+ * (reservoir) sample of their join attributes, from which an approximate
+ * equi-depth histogram is built.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1300
+ */
+public class RelationStatistics implements Writable {
+
+    private long total = 0;     //All the tuples
+    private long count = 0;     //The tuples that pass the filter
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    //Reservoir sample of the join attributes of the tuples that pass the filter
+    private int[] sample = new int[0];
+    private int sampleSize = 0;
+    private int capacity;
+    private Random random = null;
+
+    /**
+     * Empty constructor
+     */
+    public RelationStatistics() {
+        this(0);
+    }
+
+    /**
+     * Parametrized constructor.
+     * @param capacity The maximum size of the sample
+     */
+    public RelationStatistics(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Count a tuple that does not pass the filter of the query.
+     */
+    public final void addFiltered() {
+        total++;
+    }
+
+    /**
+     * Count a tuple that passes the filter of the query.
+     * @param a The join attribute of the tuple
+     */
+    public final void add(int a) {
+        total++;
+        count++;
+        min = Math.min(min, a);
+        max = Math.max(max, a);
+
+        //Reservoir sampling (every tuple is kept with probability capacity/count)
+        if (sampleSize < capacity) {
+            if (sampleSize == sample.length) {
+                sample = Arrays.copyOf(sample, Math.min(capacity, Math.max(16, 2 * sampleSize)));
+            }
+            sample[sampleSize++] = a;
+        } else if (capacity > 0) {
+            long slot = (long) (random().nextDouble() * count);
+            if (slot < capacity) {
+                sample[(int) slot] = a;
+            }
+        }
+    }
+
+    /**
+     * Merge the statistics of another part of the same relation into these.
+     * The two samples are merged with weights proportional to the number of
+     * tuples they represent, so that the result is still a uniform sample.
+     * @param other The statistics of the other part
+     */
+    public final void merge(RelationStatistics other) {
+        capacity = Math.max(capacity, other.capacity);
+        int[] merged = new int[Math.min(capacity, sampleSize + other.sampleSize)];
+        if (sampleSize + other.sampleSize <= capacity) {
+            System.arraycopy(sample, 0, merged, 0, sampleSize);
+            System.arraycopy(other.sample, 0, merged, sampleSize, other.sampleSize);
+        } else {
+            //Weighted sampling without replacement (Efraimidis-Spirakis), where
+            //every sampled attribute stands for count / sampleSize tuples
+            int all = sampleSize + other.sampleSize;
+            double[] keys = new double[all];
+            Integer[] order = new Integer[all];
+            for (int i = 0; i < all; i++) {
+                double weight = i < sampleSize
+                        ? (double) count / sampleSize
+                        : (double) other.count / other.sampleSize;
+                //log(u) / weight ranks the same as u^(1 / weight) without
+                //losing precision for large weights
+                keys[i] = Math.log(random().nextDouble()) / weight;
+                order[i] = i;
+            }
+            Arrays.sort(order, (i, j) -> Double.compare(keys[j], keys[i]));
+            for (int i = 0; i < merged.length; i++) {
+                int k = order[i];
+                merged[i] = k < sampleSize ? sample[k] : other.sample[k - sampleSize];
+            }
+        }
+        sample = merged;
+        sampleSize = merged.length;
+
+        total += other.total;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Return the number of all the tuples of the relation.
+     * @return A long representing the number of tuples.
+     */
+    public final long getTotal() {
+        return total;
+    }
+
+    /**
+     * Return the number of the tuples that pass the filter of the query.
+     * @return A long representing the number of tuples.
+     */
+    public final long getCount() {
+        return count;
+    }
+
+    /**
+     * Return the minimum join attribute of the tuples that pass the filter.
+     * @return The minimum join attribute (Integer.MAX_VALUE if there are none)
+     */
+    public final int getMin() {
+        return min;
+    }
+
+    /**
+     * Return the maximum join attribute of the tuples that pass the filter.
+     * @return The maximum join attribute (Integer.MIN_VALUE if there are none)
+     */
+    public final int getMax() {
+        return max;
+    }
+
+    /**
+     * Return the sorted sample of the join attributes.
+     * @return A new, sorted int array.
+     */
+    public final int[] getSortedSample() {
+        int[] sorted = Arrays.copyOf(sample, sampleSize);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Build an approximate equi-depth histogram of the join attributes from
+     * the sample. Bucket 'i' holds the join attributes in
+     * (bounds[i - 1], bounds[i]], the first bucket starts at the minimum and
+     * the last one ends at the maximum, and every bucket holds approximately
+     * getCount() / buckets tuples.
+     * @param buckets The number of buckets
+     * @return The upper bounds of the buckets (fewer than 'buckets' if the
+     * sample has fewer distinct join attributes)
+     */
+    public final int[] getHistogram(int buckets) {
+        int[] sorted = getSortedSample();
+        if (sorted.length == 0 || buckets <= 0) {
+            return new int[0];
+        }
+        int[] bounds = new int[buckets];
+        int size = 0;
+        for (int i = 1; i <= buckets; i++) {
+            int index = (int) ((long) i * sorted.length / buckets) - 1;
+            int bound = i == buckets ? max : sorted[Math.max(index, 0)];
+            if (size == 0 || bound > bounds[size - 1]) {
+                bounds[size++] = bound;
+            }
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+
+    private Random random() {
+        if (random == null) {
+            random = new Random();
+        }
+        return random;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVLong(out, total);
+        WritableUtils.writeVLong(out, count);
+        WritableUtils.writeVInt(out, min);
+        WritableUtils.writeVInt(out, max);
+        WritableUtils.writeVInt(out, capacity);
+        WritableUtils.writeVInt(out, sampleSize);
+        for (int i = 0; i < sampleSize; i++) {
+            WritableUtils.writeVInt(out, sample[i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        total = WritableUtils.readVLong(in);
+        count = WritableUtils.readVLong(in);
+        min = WritableUtils.readVInt(in);
+        max = WritableUtils.readVInt(in);
+        capacity = WritableUtils.readVInt(in);
+        sampleSize = WritableUtils.readVInt(in);
+        sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = WritableUtils.readVInt(in);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "tuples=" + total + ", selected=" + count
+                + (count > 0 ? ", min=" + min + ", max=" + max : "")
+                + ", sample=" + sampleSize;
+    }
+}
@@ -0,0 +1,101 @@
+package com.lefteris008.hadooptheta.statsphase;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2100
+ */
+public class StatisticsMap 
+        extends Mapper<LongWritable, TaggedTupleWritable, Text, RelationStatistics> {
+
+    //Configuration property for the maximum sample size of every Mapper
+    public static final String SAMPLE_SIZE_KEY = "hadooptheta.stats.sampleSize";
+
+    /**
+     * Counters of the tuples read by the statistics phase.
+     */
+    public static enum StatisticsCounter {
+        S_TUPLES, S_SELECTED, R_TUPLES, R_SELECTED
+    }
+
+    private RelationStatistics statisticsOfS;
+    private RelationStatistics statisticsOfR;
+    private Counter sTuples, sSelected, rTuples, rSelected;
+    private ThetaQuery query;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        int sampleSize = context.getConfiguration().getInt(SAMPLE_SIZE_KEY, 10000);
+        statisticsOfS = new RelationStatistics(sampleSize);
+        statisticsOfR = new RelationStatistics(sampleSize);
+        sTuples = context.getCounter(StatisticsCounter.S_TUPLES);
+        sSelected = context.getCounter(StatisticsCounter.S_SELECTED);
+        rTuples = context.getCounter(StatisticsCounter.R_TUPLES);
+        rSelected = context.getCounter(StatisticsCounter.R_SELECTED);
+        query = ThetaQuery.fromConfiguration(context.getConfiguration());
+    }
+
+    /**
+     * This Mapper reads the input file (tuple by tuple) and gathers the 
+     * statistics of both relations (the number of their tuples, the range of 
+     * their join attributes and a sample of them), applying the same filter 
+     * with the ThetaJoinMap. Nothing is output for every single tuple; the 
+     * statistics of the Mapper are output once, in its cleanup.
+     * The tuples are read by the ThetaJoinInputFormat (from text or columnar
+     * files) with its filter disabled, so that the tuples that fail the
+     * filter are counted too; the malformed lines are reported by its
+     * RecordReader.
+     * 
+     * @param key A LongWritable key for the mapping process
+     * @param value A TaggedTupleWritable value (the tuple) for the mapping process
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    @Override
+    protected void map(LongWritable key, TaggedTupleWritable value, Context context) 
+            throws IOException, InterruptedException {
+        int a = value.getJoinAttribute();
+        if (value.isFromS()) {
+            sTuples.increment(1);
+            if (!query.selectsS(a)) {
+                statisticsOfS.addFiltered();
+            } else {
+                sSelected.increment(1);
+                statisticsOfS.add(a);
+            }
+        } else { //R relation
+            rTuples.increment(1);
+            if (!query.selectsR(a)) {
+                statisticsOfR.addFiltered();
+            } else {
+                rSelected.increment(1);
+                statisticsOfR.add(a);
+            }
+        }
+    }
+
+    /**
+     * Output the statistics of both relations, with the name of the relation
+     * as the key.
+     * 
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        context.write(new Text("S"), statisticsOfS);
+        context.write(new Text("R"), statisticsOfR);
+    }
+}
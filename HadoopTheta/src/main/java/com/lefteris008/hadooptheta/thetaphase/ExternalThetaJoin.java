@@ -0,0 +1,556 @@
+package com.lefteris008.hadooptheta.thetaphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The join of a region that does not fit in the memory of the reducer. The
+ * S-tuples and the R-tuples are buffered up to a number of tuples; every time
+ * the buffers are full, they are sorted by the join attribute and written to
+ * a run (a file of the local disk). The join merges the sorted runs of both
+ * relations in a single sweep, in which the S-tuples that a R-tuple joins
+ * with are always a prefix of the S-tuples (or, for the other predicates, the
+ * difference of two prefixes), so only the aggregates of the prefixes are
+ * kept in memory:
+ * - for R.a > S.a and R.a >= S.a, the runs are merged in ascending order and
+ *   the S-tuples before R.a are aggregated,
+ * - for R.a < S.a and R.a <= S.a, the runs are merged in descending order
+ *   (the join attributes are stored complemented, ~a, which reverses their
+ *   order without overflowing) and the same is done,
+ * - for R.a != S.a, the aggregate of all the S-tuples (built while they are
+ *   buffered) is reduced by the group S.a == R.a, and for MIN/MAX the two
+ *   least/greatest S.x attributes of different S.a attributes are kept,
+ * - for the BAND predicate, the S-tuples in [R.a - k, R.a + k] are the
+ *   difference of two prefixes read by two merges of the S runs, and for
+ *   MIN/MAX a monotonic queue of the S-tuples of the range is kept (so its
+ *   memory depends on the width of the band).
+ * So the memory of the join is the buffers plus one read buffer per run, and
+ * not the size of the region. The runs are deleted by clear() and close().
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1700
+ */
+public class ExternalThetaJoin {
+
+    /**
+     * Receives the semi-aggregate of every R-tuple of the region.
+     */
+    public static interface Output {
+        void write(int rA, AggregateWritable aggregate) throws IOException, InterruptedException;
+    }
+
+    private static final int RECORD_SIZE = 4 + 8; //The join attribute and the payload
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+    private final int capacity;
+    private ThetaPredicate predicate;
+    private int band;
+    private ThetaAggregate aggregate;
+    private boolean descending;
+
+    //Buffered tuples, not spilled yet (the join attributes as they are stored)
+    private int[] keysS = new int[1024];
+    private long[] valuesS = new long[1024];
+    private int sizeS = 0;
+    private int[] keysR = new int[1024];
+    private long[] valuesR = new long[1024];
+    private int sizeR = 0;
+
+    //The sorted runs of every relation on the local disk
+    private final List<File> runsS = new ArrayList<File>();
+    private final List<File> runsR = new ArrayList<File>();
+    private long spilledTuples = 0;
+
+    //Aggregate of all the S-tuples and, for MIN/MAX, the least/greatest S.x
+    //attribute (best) and the least/greatest S.x attribute of the S-tuples
+    //with another S.a attribute than the best one (secondBest), for R.a != S.a
+    private final AggregateWritable total = new AggregateWritable();
+    private boolean hasBest, hasSecondBest;
+    private int bestKey;
+    private long best, secondBest;
+
+    private final AggregateWritable result = new AggregateWritable();
+
+    /**
+     * Parametrized constructor.
+     * @param directory The directory of the runs
+     * @param capacity The number of tuples (of both relations) that are
+     * buffered before they are spilled to a run
+     */
+    public ExternalThetaJoin(File directory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Start the join of a new region, deleting the runs of the previous one.
+     * @param query The query that is answered
+     */
+    public final void clear(ThetaQuery query) {
+        deleteRuns();
+        predicate = query.getPredicate();
+        band = query.getBand();
+        aggregate = query.getAggregate();
+        descending = predicate == ThetaPredicate.LT || predicate == ThetaPredicate.LE;
+        sizeS = 0;
+        sizeR = 0;
+        spilledTuples = 0;
+        total.clear(aggregate);
+        hasBest = false;
+        hasSecondBest = false;
+    }
+
+    /**
+     * Add a S-tuple of the region.
+     * @param a The S.a attribute
+     * @param x The S.x attribute
+     * @throws IOException
+     */
+    public final void addS(int a, long x) throws IOException {
+        if (sizeS == keysS.length) {
+            keysS = Arrays.copyOf(keysS, 2 * sizeS);
+            valuesS = Arrays.copyOf(valuesS, 2 * sizeS);
+        }
+        keysS[sizeS] = descending ? ~a : a;
+        valuesS[sizeS] = x;
+        sizeS++;
+        if (predicate == ThetaPredicate.NE) {
+            total(a, x);
+        }
+        if (sizeS + sizeR >= capacity) {
+            spill();
+        }
+    }
+
+    /**
+     * Add a R-tuple of the region.
+     * @param a The R.a attribute
+     * @param multiplicity The number of R-tuples with this R.a attribute
+     * @throws IOException
+     */
+    public final void addR(int a, long multiplicity) throws IOException {
+        if (sizeR == keysR.length) {
+            keysR = Arrays.copyOf(keysR, 2 * sizeR);
+            valuesR = Arrays.copyOf(valuesR, 2 * sizeR);
+        }
+        keysR[sizeR] = descending ? ~a : a;
+        valuesR[sizeR] = multiplicity;
+        sizeR++;
+        if (sizeS + sizeR >= capacity) {
+            spill();
+        }
+    }
+
+    /**
+     * Return the number of the tuples of the region that were written to runs.
+     * @return A long representing the number of spilled tuples.
+     */
+    public final long getSpilledTuples() {
+        return spilledTuples;
+    }
+
+    /**
+     * Return the number of the runs of the region.
+     * @return An integer representing the number of runs.
+     */
+    public final int getRuns() {
+        return runsS.size() + runsR.size();
+    }
+
+    /**
+     * Join all the tuples of the region and output the semi-aggregate of
+     * every R-tuple, in the order of the merge (not in the order of arrival).
+     * @param output The receiver of the semi-aggregates
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public final void join(Output output) throws IOException, InterruptedException {
+        //The last buffers are merged from memory, along with the runs
+        Utilities.sortByKey(keysS, valuesS, 0, sizeS);
+        Utilities.sortByKey(keysR, valuesR, 0, sizeR);
+
+        Merge r = new Merge(runsR, keysR, valuesR, sizeR);
+        try {
+            switch (predicate) {
+                case NE:
+                    joinNotEqual(r, output);
+                    break;
+                case BAND:
+                    if (aggregate == ThetaAggregate.MIN || aggregate == ThetaAggregate.MAX) {
+                        joinBandExtreme(r, output);
+                    } else {
+                        joinBand(r, output);
+                    }
+                    break;
+                default: //LT, LE, GT, GE
+                    joinPrefix(r, output);
+            }
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * Delete the runs of the region.
+     */
+    public final void close() {
+        deleteRuns();
+    }
+
+    /**
+     * R.a > S.a, R.a >= S.a, and (in descending order) R.a < S.a, R.a <= S.a.
+     */
+    private void joinPrefix(Merge r, Output output) throws IOException, InterruptedException {
+        boolean inclusive = predicate == ThetaPredicate.LE || predicate == ThetaPredicate.GE;
+        AggregateWritable prefix = new AggregateWritable(aggregate);
+        Merge s = new Merge(runsS, keysS, valuesS, sizeS);
+        try {
+            for (; r.hasCurrent(); r.advance()) {
+                int key = r.key();
+                while (s.hasCurrent() && (s.key() < key || (inclusive && s.key() == key))) {
+                    prefix.add(s.value());
+                    s.advance();
+                }
+                write(r, prefix, null, output);
+            }
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * R.a != S.a: all the S-tuples except the group S.a == R.a.
+     */
+    private void joinNotEqual(Merge r, Output output) throws IOException, InterruptedException {
+        boolean extreme = aggregate == ThetaAggregate.MIN || aggregate == ThetaAggregate.MAX;
+        AggregateWritable group = new AggregateWritable(aggregate);
+        Merge s = new Merge(runsS, keysS, valuesS, sizeS);
+        try {
+            boolean hasGroup = false;
+            int groupKey = 0;
+            for (; r.hasCurrent(); r.advance()) {
+                int key = r.key();
+                if (extreme) {
+                    result.clear(aggregate);
+                    if (hasBest && bestKey != key) {
+                        result.setExtreme(best);
+                    } else if (hasSecondBest) {
+                        result.setExtreme(secondBest);
+                    }
+                    output.write(key, result);
+                    continue;
+                }
+                if (!hasGroup || groupKey != key) {
+                    group.clear(aggregate);
+                    while (s.hasCurrent() && s.key() < key) {
+                        s.advance();
+                    }
+                    while (s.hasCurrent() && s.key() == key) {
+                        group.add(s.value());
+                        s.advance();
+                    }
+                    hasGroup = true;
+                    groupKey = key;
+                }
+                write(r, total, group, output);
+            }
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * R.a - k <= S.a <= R.a + k, for SUM, COUNT and AVG: the S-tuples up to
+     * R.a + k, minus the S-tuples before R.a - k.
+     */
+    private void joinBand(Merge r, Output output) throws IOException, InterruptedException {
+        AggregateWritable upper = new AggregateWritable(aggregate);
+        AggregateWritable lower = new AggregateWritable(aggregate);
+        Merge to = new Merge(runsS, keysS, valuesS, sizeS);
+        Merge from = new Merge(runsS, keysS, valuesS, sizeS);
+        try {
+            for (; r.hasCurrent(); r.advance()) {
+                long first = (long) r.key() - band;
+                long last = (long) r.key() + band;
+                while (to.hasCurrent() && to.key() <= last) {
+                    upper.add(to.value());
+                    to.advance();
+                }
+                while (from.hasCurrent() && from.key() < first) {
+                    lower.add(from.value());
+                    from.advance();
+                }
+                write(r, upper, lower, output);
+            }
+        } finally {
+            to.close();
+            from.close();
+        }
+    }
+
+    /**
+     * R.a - k <= S.a <= R.a + k, for MIN and MAX: a monotonic queue of the
+     * S-tuples up to R.a + k, whose head is the least/greatest S.x attribute
+     * after the S-tuples before R.a - k are removed.
+     */
+    private void joinBandExtreme(Merge r, Output output) throws IOException, InterruptedException {
+        boolean minimum = aggregate == ThetaAggregate.MIN;
+        int[] queueKeys = new int[1024];
+        long[] queueValues = new long[1024];
+        int head = 0;
+        int tail = 0;
+        Merge s = new Merge(runsS, keysS, valuesS, sizeS);
+        try {
+            for (; r.hasCurrent(); r.advance()) {
+                long first = (long) r.key() - band;
+                long last = (long) r.key() + band;
+                while (s.hasCurrent() && s.key() <= last) {
+                    long x = s.value();
+                    while (tail > head && (minimum
+                            ? queueValues[tail - 1] >= x : queueValues[tail - 1] <= x)) {
+                        tail--;
+                    }
+                    if (tail == queueKeys.length) {
+                        //Move the queue to the start of the arrays, or grow them
+                        int size = tail - head;
+                        if (size > queueKeys.length / 2) {
+                            queueKeys = Arrays.copyOf(queueKeys, 2 * queueKeys.length);
+                            queueValues = Arrays.copyOf(queueValues, 2 * queueValues.length);
+                        }
+                        System.arraycopy(queueKeys, head, queueKeys, 0, size);
+                        System.arraycopy(queueValues, head, queueValues, 0, size);
+                        head = 0;
+                        tail = size;
+                    }
+                    queueKeys[tail] = s.key();
+                    queueValues[tail] = x;
+                    tail++;
+                    s.advance();
+                }
+                while (tail > head && queueKeys[head] < first) {
+                    head++;
+                }
+                result.clear(aggregate);
+                if (tail > head) {
+                    result.setExtreme(queueValues[head]);
+                }
+                output.write(r.key(), result);
+            }
+        } finally {
+            s.close();
+        }
+    }
+
+    /**
+     * Output the semi-aggregate of the current R-tuple.
+     * @param r The merge of the R-tuples
+     * @param from The aggregate of the S-tuples up to the R-tuple
+     * @param minus The aggregate of the S-tuples to remove from it (or null)
+     * @param output The receiver of the semi-aggregates
+     */
+    private void write(Merge r, AggregateWritable from, AggregateWritable minus, Output output)
+            throws IOException, InterruptedException {
+        result.clear(aggregate);
+        result.merge(from);
+        if (minus != null) {
+            result.subtract(minus);
+        }
+        result.multiply(r.value());
+        output.write(descending ? ~r.key() : r.key(), result);
+    }
+
+    /**
+     * Add a S-tuple to the aggregates of all the S-tuples (R.a != S.a).
+     */
+    private void total(int a, long x) {
+        if (aggregate != ThetaAggregate.MIN && aggregate != ThetaAggregate.MAX) {
+            total.add(x);
+            return;
+        }
+        boolean minimum = aggregate == ThetaAggregate.MIN;
+        if (!hasBest || (minimum ? x < best : x > best)) {
+            if (hasBest && bestKey != a) {
+                //The old best is the best of all the other S.a attributes
+                secondBest = best;
+                hasSecondBest = true;
+            }
+            best = x;
+            bestKey = a;
+            hasBest = true;
+        } else if (bestKey != a && (!hasSecondBest || (minimum ? x < secondBest : x > secondBest))) {
+            secondBest = x;
+            hasSecondBest = true;
+        }
+    }
+
+    /**
+     * Sort the buffers and write each of them to a new run.
+     * @throws IOException
+     */
+    private void spill() throws IOException {
+        if (sizeS > 0) {
+            runsS.add(writeRun("S", keysS, valuesS, sizeS));
+            spilledTuples += sizeS;
+            sizeS = 0;
+        }
+        if (sizeR > 0) {
+            runsR.add(writeRun("R", keysR, valuesR, sizeR));
+            spilledTuples += sizeR;
+            sizeR = 0;
+        }
+    }
+
+    private File writeRun(String relation, int[] keys, long[] values, int size)
+            throws IOException {
+        Utilities.sortByKey(keys, values, 0, size);
+        File run = File.createTempFile("theta-" + relation + "-", ".run", directory);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(run), IO_BUFFER_SIZE));
+        try {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(keys[i]);
+                out.writeLong(values[i]);
+            }
+        } finally {
+            out.close();
+        }
+        return run;
+    }
+
+    private void deleteRuns() {
+        for (File run : runsS) {
+            run.delete();
+        }
+        for (File run : runsR) {
+            run.delete();
+        }
+        runsS.clear();
+        runsR.clear();
+    }
+
+    /**
+     * A sorted sequence of tuples, from a run or from a sorted buffer.
+     */
+    private static final class Run {
+
+        private final DataInputStream in;
+        private long remaining;
+        private final int[] keys;
+        private final long[] values;
+        private int next;
+
+        int key;
+        long value;
+
+        Run(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file), IO_BUFFER_SIZE));
+            this.remaining = file.length() / RECORD_SIZE;
+            this.keys = null;
+            this.values = null;
+        }
+
+        Run(int[] keys, long[] values, int size) {
+            this.in = null;
+            this.remaining = size;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            if (in != null) {
+                key = in.readInt();
+                value = in.readLong();
+            } else {
+                key = keys[next];
+                value = values[next];
+                next++;
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * A k-way merge of sorted runs, in ascending order of the stored join
+     * attributes. The current tuple is the head of the queue.
+     */
+    private static final class Merge {
+
+        private final PriorityQueue<Run> queue;
+
+        Merge(List<File> runs, int[] keys, long[] values, int size) throws IOException {
+            queue = new PriorityQueue<Run>(runs.size() + 1,
+                    (first, second) -> Integer.compare(first.key, second.key));
+            try {
+                for (File file : runs) {
+                    push(new Run(file));
+                }
+                push(new Run(keys, values, size));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void push(Run run) throws IOException {
+            if (run.next()) {
+                queue.add(run);
+            } else {
+                run.close();
+            }
+        }
+
+        boolean hasCurrent() {
+            return !queue.isEmpty();
+        }
+
+        int key() {
+            return queue.peek().key;
+        }
+
+        long value() {
+            return queue.peek().value;
+        }
+
+        void advance() throws IOException {
+            push(queue.poll());
+        }
+
+        void close() throws IOException {
+            for (Run run : queue) {
+                run.close();
+            }
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lefteris008.hadooptheta.thetaphase;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1730
+ */
+public class ThetaJoinCombine 
+        extends Reducer<WritableComparable<?>, TaggedTupleWritable, 
+                WritableComparable<?>, TaggedTupleWritable> {
+
+    //Configuration property to run this Combiner on the output of the Mappers
+    public static final String ENABLE_KEY = "hadooptheta.map.combine";
+
+    //Buffer of the R.a attributes (along with their multiplicity)
+    private int[] tuplesFromR = new int[1024];
+    private long[] multiplicityOfR = new long[1024];
+    private int sizeOfR = 0;
+
+    private final TaggedTupleWritable outputValue = new TaggedTupleWritable();
+
+    /**
+     * This Combiner runs on the output of a single Mapper and groups the 
+     * R-tuples of a region (key) by their R.a attribute. Every distinct R.a 
+     * attribute is output once, with the summary of their multiplicities, so 
+     * that the copies of R-tuples with the same R.a attribute are shuffled and 
+     * probed only once.
+     * The S-tuples are output unchanged. As the Combiner may run more than once,
+     * it also accepts R-tuples that are already grouped.
+     * With the secondary sort, the key is a RegionTupleKey and every call
+     * gets the tuples of a single (region, relation, join attribute) key, so 
+     * every group is output with the key it was read with.
+     * 
+     * @param key An IntWritable key (the region), or a RegionTupleKey, for the
+     * combining process
+     * @param values An Iterable of TaggedTupleWritable values for the combining process
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    @Override
+    public final void reduce(WritableComparable<?> key, Iterable<TaggedTupleWritable> values, 
+            Context context)
+            throws IOException, InterruptedException {
+
+        sizeOfR = 0;
+        for (TaggedTupleWritable value : values) {
+            if (value.isFromS()) {
+                context.write(key, value);
+            } else { //R relation
+                addR(value.getJoinAttribute(), value.getPayload());
+            }
+        }
+
+        //Group the R-tuples by the R.a attribute and output every group once
+        Utilities.sortByKey(tuplesFromR, multiplicityOfR, 0, sizeOfR);
+        int i = 0;
+        while (i < sizeOfR) {
+            int rA = tuplesFromR[i];
+            long multiplicity = 0;
+            while (i < sizeOfR && tuplesFromR[i] == rA) {
+                multiplicity += multiplicityOfR[i];
+                i++;
+            }
+            outputValue.set(TaggedTupleWritable.R, rA, multiplicity);
+            context.write(key, outputValue);
+        }
+    }
+
+    /**
+     * Buffer the R.a attribute of a R-tuple.
+     * @param a The R.a attribute
+     * @param multiplicity The number of R-tuples with this R.a attribute
+     */
+    private void addR(int a, long multiplicity) {
+        if (sizeOfR == tuplesFromR.length) {
+            tuplesFromR = Arrays.copyOf(tuplesFromR, 2 * sizeOfR);
+            multiplicityOfR = Arrays.copyOf(multiplicityOfR, 2 * sizeOfR);
+        }
+        tuplesFromR[sizeOfR] = a;
+        multiplicityOfR[sizeOfR] = multiplicity;
+        sizeOfR++;
+    }
+}
@@ -0,0 +1,647 @@
+package com.lefteris008.hadooptheta.thetaphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.PartialSumWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The join kernel of a single region (reducer). It buffers the S-tuples of the
+ * region in primitive arrays, sorts them by the S.a attribute and groups them
+ * by the distinct S.a values. For every join predicate, the S-tuples that a
+ * R-tuple joins with are a range of these groups (or, for R.a != S.a, all the
+ * groups except one), so the aggregate of their S.x attributes is answered
+ * from prefix/suffix aggregates that are built once per region:
+ * - SUM and AVG from the prefix sums of the S.x attributes,
+ * - COUNT (and AVG) from the first tuple of every group,
+ * - MIN and MAX from the prefix and suffix minimums/maximums, or, for the
+ *   ranges of the BAND predicate, from a sliding window over the groups.
+ * The range of every R-tuple is found by locate(), with a loop specialized for
+ * every predicate: a binary search for the inequalities and a two-pointer
+ * sweep over the sorted R.a attributes for the BAND predicate. So the cost of
+ * a region is O((|R| + |S|) log |S|), without any per-tuple dispatch on the
+ * predicate or the aggregate function.
+ *
+ * The kernel is meant to be reused for all the regions of a reducer, so that
+ * its arrays are allocated once and only grow when a larger region arrives.
+ * Once it is built, the R-tuples can also be located and aggregated by many
+ * threads, each one over its own range of R-tuples and with its own Window
+ * (see prepare() and locate(..., from, to)).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2000
+ */
+public class ThetaJoinKernel {
+
+    //Buffered S-tuples (S.a and S.x attributes)
+    private int[] keys = new int[1024];
+    private long[] values = new long[1024];
+    private int size = 0;
+
+    //Distinct S.a attributes (ascending) and the index of the first S-tuple
+    //of every group (groupStart[distinct] is the number of S-tuples), so the
+    //number of S-tuples of the groups [lo, hi) is groupStart[hi] - groupStart[lo]
+    private int[] distinctKeys = new int[0];
+    private int[] groupStart = new int[1];
+    private int distinct = 0;
+
+    //prefixSums[i] is the summary of the S.x attributes of the groups [0, i)
+    private long[] prefixSums = new long[1];
+    private BigInteger[] bigPrefixSums = null; //Used when a summary does not fit in a long
+    private boolean forceBigInteger = false;
+
+    //Minimum S.x attribute of every group, of the groups [0, i) and of the
+    //groups [i, distinct). For MAX the complement (~x) of every S.x attribute
+    //is stored, which reverses the order without overflowing
+    private long[] groupMinimum = new long[0];
+    private long[] prefixMinimum = new long[1];
+    private long[] suffixMinimum = new long[1];
+    private boolean maximum = false;
+
+    //The number of long aggregates of every group that build() computed
+    private int aggregatesPerGroup = 0;
+
+    //The groups that every R-tuple joins with, as found by locate(): the
+    //groups [lower[i], upper[i]), or all the other groups if complement is set
+    private int[] lower = new int[1024];
+    private int[] upper = new int[1024];
+    private boolean complement = false;
+
+    //Monotonic queue of groups, for the minimums of sliding ranges (used by
+    //extreme(i); every other thread has its own)
+    private final Window window = new Window();
+
+    /**
+     * Calculate the prefix sums with BigInteger, even if they fit in a long.
+     * @param forceBigInteger A boolean flag.
+     */
+    public final void setForceBigInteger(boolean forceBigInteger) {
+        this.forceBigInteger = forceBigInteger;
+    }
+
+    /**
+     * Remove all the buffered S-tuples, so that the kernel can be used for the
+     * next region.
+     */
+    public final void clear() {
+        size = 0;
+        distinct = 0;
+        bigPrefixSums = null;
+    }
+
+    /**
+     * Buffer a S-tuple of the region.
+     * @param a The S.a attribute
+     * @param x The S.x attribute
+     */
+    public final void add(int a, long x) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        keys[size] = a;
+        values[size] = x;
+        size++;
+    }
+
+    /**
+     * Return the number of the buffered S-tuples.
+     * @return An integer representing the number of S-tuples.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of the groups of the S-tuples, that is the number of
+     * their distinct S.a attributes (after build()).
+     * @return The number of groups
+     */
+    public final int groups() {
+        return distinct;
+    }
+
+    /**
+     * Return the bytes that the S-tuples of the region and their groups take
+     * in the arrays of the kernel (after build()): the S.a and S.x attributes
+     * of every S-tuple and, for every group, its S.a attribute, its start and
+     * its aggregates. The spare capacity of the arrays is not counted.
+     * @return The number of bytes
+     */
+    public final long bufferedBytes() {
+        return 12L * size + (4L + 4L + 8L * aggregatesPerGroup) * (distinct + 1);
+    }
+
+    /**
+     * Return the S.a attribute of the i-th buffered S-tuple (in the order
+     * they were added, before build()).
+     * @param i The index of the S-tuple
+     * @return The S.a attribute
+     */
+    final int keyAt(int i) {
+        return keys[i];
+    }
+
+    /**
+     * Return the S.x attribute of the i-th buffered S-tuple (in the order
+     * they were added, before build()).
+     * @param i The index of the S-tuple
+     * @return The S.x attribute
+     */
+    final long valueAt(int i) {
+        return values[i];
+    }
+
+    /**
+     * Sort the buffered S-tuples, group them by the S.a attribute and build
+     * the prefix/suffix aggregates that the aggregate function needs. Must be
+     * called after all the S-tuples of the region are added and before
+     * locate(). The S-tuples are not sorted again if they were added in
+     * ascending S.a order (e.g. by the secondary sort of the shuffle).
+     * @param aggregate The aggregate function of the query
+     */
+    public final void build(ThetaAggregate aggregate) {
+        if (!isSorted()) {
+            Utilities.sortByKey(keys, values, 0, size);
+        }
+
+        if (groupStart.length <= size) {
+            distinctKeys = new int[keys.length];
+            groupStart = new int[keys.length + 1];
+        }
+
+        //Group the S-tuples by their S.a attribute
+        distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || distinctKeys[distinct - 1] != keys[i]) {
+                distinctKeys[distinct] = keys[i];
+                groupStart[distinct] = i;
+                distinct++;
+            }
+        }
+        groupStart[distinct] = size;
+
+        switch (aggregate) {
+            case SUM:
+            case AVG:
+                buildSums();
+                aggregatesPerGroup = 1;
+                break;
+            case MIN:
+                buildMinimums(false);
+                aggregatesPerGroup = 3;
+                break;
+            case MAX:
+                buildMinimums(true);
+                aggregatesPerGroup = 3;
+                break;
+            default: //COUNT only needs the groups
+                aggregatesPerGroup = 0;
+        }
+    }
+
+    /**
+     * Return true if the buffered S-tuples are in ascending S.a order.
+     */
+    private boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (keys[i] < keys[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the prefix sums of the S.x attributes over the groups.
+     */
+    private void buildSums() {
+        if (prefixSums.length <= distinct) {
+            prefixSums = new long[groupStart.length];
+        }
+        if (forceBigInteger) {
+            buildBigSums();
+            return;
+        }
+        try {
+            long sum = 0;
+            for (int g = 0; g < distinct; g++) {
+                prefixSums[g] = sum;
+                for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+                    sum = Math.addExact(sum, values[i]);
+                }
+            }
+            prefixSums[distinct] = sum;
+        } catch (ArithmeticException e) {
+            buildBigSums();
+        }
+    }
+
+    /**
+     * Build the prefix sums with BigInteger, for regions whose summaries
+     * exceed the limit of the long type.
+     */
+    private void buildBigSums() {
+        BigInteger[] sums = new BigInteger[distinct + 1];
+        BigInteger sum = BigInteger.ZERO;
+        for (int g = 0; g < distinct; g++) {
+            sums[g] = sum;
+            for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+                sum = sum.add(BigInteger.valueOf(values[i]));
+            }
+        }
+        sums[distinct] = sum;
+        bigPrefixSums = sums;
+    }
+
+    /**
+     * Build the minimum S.x attribute of every group and the prefix and
+     * suffix minimums over the groups.
+     * @param complement If true, the minimums of ~S.x (the maximums) are built
+     */
+    private void buildMinimums(boolean complement) {
+        maximum = complement;
+        if (prefixMinimum.length <= distinct) {
+            groupMinimum = new long[groupStart.length];
+            prefixMinimum = new long[groupStart.length];
+            suffixMinimum = new long[groupStart.length];
+        }
+        long mask = complement ? -1L : 0L; //x ^ -1 == ~x
+        for (int g = 0; g < distinct; g++) {
+            long minimum = Long.MAX_VALUE;
+            for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+                minimum = Math.min(minimum, values[i] ^ mask);
+            }
+            groupMinimum[g] = minimum;
+        }
+        prefixMinimum[0] = Long.MAX_VALUE;
+        for (int g = 0; g < distinct; g++) {
+            prefixMinimum[g + 1] = Math.min(prefixMinimum[g], groupMinimum[g]);
+        }
+        suffixMinimum[distinct] = Long.MAX_VALUE;
+        for (int g = distinct - 1; g >= 0; g--) {
+            suffixMinimum[g] = Math.min(groupMinimum[g], suffixMinimum[g + 1]);
+        }
+    }
+
+    /**
+     * Find the groups of S-tuples that every R-tuple joins with.
+     * @param predicate The join predicate (R.a PREDICATE S.a)
+     * @param band The width k of the BAND predicate
+     * @param tuplesFromR The R.a attributes (ascending, for the BAND predicate)
+     * @param sizeOfR The number of R.a attributes
+     */
+    public final void locate(ThetaPredicate predicate, int band, int[] tuplesFromR, int sizeOfR) {
+        prepare(predicate, sizeOfR);
+        locate(predicate, band, tuplesFromR, 0, sizeOfR);
+        window.reset();
+    }
+
+    /**
+     * Prepare the kernel for locating a number of R-tuples by ranges, which
+     * may be located by different threads.
+     * @param predicate The join predicate (R.a PREDICATE S.a)
+     * @param sizeOfR The number of R.a attributes
+     */
+    public final void prepare(ThetaPredicate predicate, int sizeOfR) {
+        if (lower.length < sizeOfR) {
+            lower = new int[Math.max(sizeOfR, 2 * lower.length)];
+            upper = new int[lower.length];
+        }
+        complement = predicate == ThetaPredicate.NE;
+    }
+
+    /**
+     * Find the groups of S-tuples that the R-tuples [from, to) join with. 
+     * Must be called after prepare(); the ranges of different calls must not
+     * overlap.
+     * @param predicate The join predicate (R.a PREDICATE S.a)
+     * @param band The width k of the BAND predicate
+     * @param tuplesFromR The R.a attributes (ascending, for the BAND predicate)
+     * @param from The first R.a attribute of the range
+     * @param to The next R.a attribute after the range
+     */
+    public final void locate(ThetaPredicate predicate, int band, int[] tuplesFromR, 
+            int from, int to) {
+        switch (predicate) {
+            case LT: //S.a > R.a
+                for (int i = from; i < to; i++) {
+                    lower[i] = upperBound(tuplesFromR[i]);
+                    upper[i] = distinct;
+                }
+                break;
+            case LE: //S.a >= R.a
+                for (int i = from; i < to; i++) {
+                    lower[i] = lowerBound(tuplesFromR[i]);
+                    upper[i] = distinct;
+                }
+                break;
+            case GT: //S.a < R.a
+                for (int i = from; i < to; i++) {
+                    lower[i] = 0;
+                    upper[i] = lowerBound(tuplesFromR[i]);
+                }
+                break;
+            case GE: //S.a <= R.a
+                for (int i = from; i < to; i++) {
+                    lower[i] = 0;
+                    upper[i] = upperBound(tuplesFromR[i]);
+                }
+                break;
+            case NE: //All the groups except S.a == R.a
+                for (int i = from; i < to; i++) {
+                    lower[i] = lowerBound(tuplesFromR[i]);
+                    upper[i] = upperBound(tuplesFromR[i]);
+                }
+                break;
+            default: //BAND, R.a - k <= S.a <= R.a + k
+                //Both ends of the range only move forward, as R.a increases,
+                //from the groups of the first R.a attribute of the range
+                int first = 0;
+                int last = 0;
+                if (from < to) {
+                    first = lowerBound(clamp((long) tuplesFromR[from] - band));
+                    last = upperBound(clamp((long) tuplesFromR[from] + band));
+                }
+                for (int i = from; i < to; i++) {
+                    if (i > from && tuplesFromR[i] < tuplesFromR[i - 1]) {
+                        throw new IllegalArgumentException(
+                                "The R.a attributes of a band join must be sorted");
+                    }
+                    long low = (long) tuplesFromR[i] - band;
+                    long high = (long) tuplesFromR[i] + band;
+                    while (first < distinct && distinctKeys[first] < low) {
+                        first++;
+                    }
+                    while (last < distinct && distinctKeys[last] <= high) {
+                        last++;
+                    }
+                    lower[i] = first;
+                    upper[i] = last;
+                }
+        }
+    }
+
+    /**
+     * Set the semi-aggregates of the R-tuples [from, to) after they are 
+     * located (results[i - offset] for the i-th R-tuple), multiplied by the
+     * number of their R-tuples. Every aggregate function has its own loop.
+     * @param aggregate The aggregate function of the query
+     * @param multiplicityOfR The number of R-tuples of every R.a attribute
+     * @param from The first R-tuple
+     * @param to The next R-tuple after the last one
+     * @param results The semi-aggregates to set
+     * @param offset The R-tuple of results[0]
+     * @param window The Window of the thread, reset before the range
+     */
+    public final void aggregate(ThetaAggregate aggregate, long[] multiplicityOfR, int from, 
+            int to, AggregateWritable[] results, int offset, Window window) {
+        switch (aggregate) {
+            case SUM:
+                for (int i = from; i < to; i++) {
+                    AggregateWritable result = results[i - offset];
+                    result.clear(aggregate);
+                    setSum(result.getSum(), i, multiplicityOfR[i]);
+                }
+                break;
+            case COUNT:
+                for (int i = from; i < to; i++) {
+                    AggregateWritable result = results[i - offset];
+                    result.clear(aggregate);
+                    setCount(result.getCount(), i, multiplicityOfR[i]);
+                }
+                break;
+            case AVG:
+                for (int i = from; i < to; i++) {
+                    AggregateWritable result = results[i - offset];
+                    result.clear(aggregate);
+                    setSum(result.getSum(), i, multiplicityOfR[i]);
+                    setCount(result.getCount(), i, multiplicityOfR[i]);
+                }
+                break;
+            default: //MIN, MAX (the multiplicity does not change them)
+                for (int i = from; i < to; i++) {
+                    AggregateWritable result = results[i - offset];
+                    result.clear(aggregate);
+                    if (matches(i)) {
+                        result.setExtreme(extreme(i, window));
+                    }
+                }
+        }
+    }
+
+    /**
+     * Set the summary of the S.x attributes that the i-th R-tuple joins with,
+     * multiplied by its multiplicity.
+     * @param target The summary to set
+     * @param i The index of the R-tuple
+     * @param multiplicity The number of R-tuples with its R.a attribute
+     */
+    private void setSum(PartialSumWritable target, int i, long multiplicity) {
+        if (isExact()) {
+            try {
+                target.set(Math.multiplyExact(sum(i), multiplicity));
+                return;
+            } catch (ArithmeticException e) {
+                //Handled below with BigInteger
+            }
+        }
+        target.set(bigSum(i).multiply(BigInteger.valueOf(multiplicity)));
+    }
+
+    /**
+     * Set the number of the S-tuples that the i-th R-tuple joins with,
+     * multiplied by its multiplicity.
+     * @param target The number to set
+     * @param i The index of the R-tuple
+     * @param multiplicity The number of R-tuples with its R.a attribute
+     */
+    private void setCount(PartialSumWritable target, int i, long multiplicity) {
+        try {
+            target.set(Math.multiplyExact(count(i), multiplicity));
+        } catch (ArithmeticException e) {
+            target.set(BigInteger.valueOf(count(i))
+                    .multiply(BigInteger.valueOf(multiplicity)));
+        }
+    }
+
+    /**
+     * Return true if the i-th R-tuple of locate() joins with any S-tuple.
+     * @param i The index of the R-tuple
+     * @return A boolean flag.
+     */
+    public final boolean matches(int i) {
+        return complement ? lower[i] > 0 || upper[i] < distinct : lower[i] < upper[i];
+    }
+
+    /**
+     * Return the number of the S-tuples that the i-th R-tuple joins with.
+     * @param i The index of the R-tuple
+     * @return The number of S-tuples
+     */
+    public final long count(int i) {
+        int joined = groupStart[upper[i]] - groupStart[lower[i]];
+        return complement ? size - joined : joined;
+    }
+
+    /**
+     * Return true if the summaries of the region fit in a long, so that
+     * sum() can be used instead of bigSum().
+     * @return A boolean flag.
+     */
+    public final boolean isExact() {
+        return bigPrefixSums == null;
+    }
+
+    /**
+     * Return the summary of the S.x attributes of all the S-tuples that the
+     * i-th R-tuple joins with (0 if there are none).
+     * @param i The index of the R-tuple
+     * @return The summary of the S.x attributes
+     * @throws ArithmeticException If the summary does not fit in a long
+     */
+    public final long sum(int i) {
+        long joined = Math.subtractExact(prefixSums[upper[i]], prefixSums[lower[i]]);
+        return complement ? Math.subtractExact(prefixSums[distinct], joined) : joined;
+    }
+
+    /**
+     * Same as sum(), for regions whose summaries do not fit in a long.
+     * @param i The index of the R-tuple
+     * @return The summary of the S.x attributes
+     */
+    public final BigInteger bigSum(int i) {
+        BigInteger total = prefixSum(distinct);
+        BigInteger joined = prefixSum(upper[i]).subtract(prefixSum(lower[i]));
+        return complement ? total.subtract(joined) : joined;
+    }
+
+    private BigInteger prefixSum(int g) {
+        return bigPrefixSums != null ? bigPrefixSums[g] : BigInteger.valueOf(prefixSums[g]);
+    }
+
+    /**
+     * Return the minimum (MIN) or maximum (MAX) S.x attribute of all the
+     * S-tuples that the i-th R-tuple joins with. Must only be used if
+     * matches(i) is true.
+     * @param i The index of the R-tuple
+     * @return The minimum/maximum S.x attribute
+     */
+    public final long extreme(int i) {
+        return extreme(i, window);
+    }
+
+    /**
+     * Same as extreme(), for a thread that aggregates its own range of 
+     * R-tuples (in ascending order) with its own Window.
+     * @param i The index of the R-tuple
+     * @param window The Window of the thread, reset before its range
+     * @return The minimum/maximum S.x attribute
+     */
+    public final long extreme(int i, Window window) {
+        int from = lower[i];
+        int to = upper[i];
+        long minimum;
+        if (complement) {
+            minimum = Math.min(prefixMinimum[from], suffixMinimum[to]);
+        } else if (from == 0) {
+            minimum = prefixMinimum[to];
+        } else if (to == distinct) {
+            minimum = suffixMinimum[from];
+        } else {
+            minimum = window.minimum(from, to);
+        }
+        return maximum ? ~minimum : minimum;
+    }
+
+    private static int clamp(long a) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, a));
+    }
+
+    /**
+     * Binary search the first distinct S.a attribute that is greater than 'a'.
+     * @param a The R.a attribute
+     * @return The index of that S.a attribute (distinct, if there is none)
+     */
+    private int upperBound(int a) {
+        int low = 0;
+        int high = distinct;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distinctKeys[middle] <= a) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search the first distinct S.a attribute that is greater than or
+     * equal to 'a'.
+     * @param a The R.a attribute
+     * @return The index of that S.a attribute (distinct, if there is none)
+     */
+    private int lowerBound(int a) {
+        int low = 0;
+        int high = distinct;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distinctKeys[middle] < a) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Monotonic queue of groups, for the minimums of the ranges [from, to)
+     * where both 'from' and 'to' never decrease from one call to the next 
+     * (the ranges of the BAND predicate over sorted R.a attributes).
+     */
+    public final class Window {
+
+        private int[] queue = new int[0];
+        private int head, tail;
+        private int next = -1;
+
+        /**
+         * Empty the queue, before the first R-tuple of a (new) range.
+         */
+        public void reset() {
+            head = 0;
+            tail = 0;
+            next = -1;
+        }
+
+        /**
+         * Return the minimum of the groups [from, to).
+         */
+        long minimum(int from, int to) {
+            if (next < 0) {
+                //The groups before the first range are never needed
+                next = from;
+                if (queue.length < distinct) {
+                    queue = new int[groupStart.length];
+                }
+            }
+            while (next < to) {
+                while (tail > head && groupMinimum[queue[tail - 1]] >= groupMinimum[next]) {
+                    tail--;
+                }
+                queue[tail++] = next++;
+            }
+            while (queue[head] < from) {
+                head++;
+            }
+            return groupMinimum[queue[head]];
+        }
+    }
+}
@@ -1,36 +1,93 @@
 package com.lefteris008.hadooptheta.thetaphase;
 
-import com.lefteris008.hadooptheta.utilities.Utilities;
+import com.lefteris008.hadooptheta.io.RegionTupleKey;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
 import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
-import java.io.FileInputStream;
+import com.lefteris008.hadooptheta.partitioner.TuplePlacement;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.util.ArrayList;
-import java.util.List;
 
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 
 /**
  * 
  * @author  Lefteris Paraskevas
  * @author  Alexandros Tzanakas
- * @version 2016.05.14_0034
+ * @version 2026.10.17_2330
  */
-public class ThetaJoinMap extends Mapper<LongWritable, Text, Text, Text> {
+public class ThetaJoinMap 
+        extends Mapper<LongWritable, TaggedTupleWritable, WritableComparable<?>, TaggedTupleWritable> {
+
+    //Configuration property to serialize a tuple once for all of its regions,
+    //instead of once for every region it is output to
+    public static final String RAW_EMIT_KEY = "hadooptheta.map.rawEmit";
+
+    /**
+     * Counters of the tuples of every relation: the tuples that were read and
+     * the ones that the filter pruned (counted by the ThetaJoinRecordReader),
+     * and the copies that were output to the regions (by this Mapper).
+     */
+    public static enum MapCounter {
+        S_READ, S_FILTERED, S_EMITTED, R_READ, R_FILTERED, R_EMITTED
+    }
 
     //Global MatrixPartitoner object that will contain
     //the partitioned matrix for use inside the Mapper method
     private MatrixToReducerPartitioning mtr;
 
+    //The placement of the S-tuples to rows and of the R-tuples to columns
+    //(random or by hash for 1-Bucket-Theta, by value for M-Bucket)
+    private TuplePlacement rowPlacement;
+    private TuplePlacement columnPlacement;
+
+    //The key is reused for every output record: the region, or the region
+    //along with the relation and the join attribute for the secondary sort
+    private final IntWritable region = new IntWritable();
+    private final RegionTupleKey sortedKey = new RegionTupleKey();
+    private boolean rawEmit;
+    private boolean secondarySort;
+
+    //The copies of the tuples that were output, added to the counters once
+    //in the cleanup instead of for every tuple
+    private long emittedS = 0;
+    private long emittedR = 0;
+
     /**
-     * This Mapper reads from the input file (line by line) supplied by the Main class
-     * a tuple, assigns it to a specific random index in the Matrix created by 
-     * the MatrixPartioner class (to a row if it is a R-tuple or to a column if 
-     * it is a S-tuple), stores all the regions (aka reducers) that are assigned 
-     * to that row/column previously and outputs that tuple to the specific reducers 
-     * found previously (after applying it to the querry's filter [S.a > 10])
+     * Load the MatrixToReducerPartitioning object that the Main class stored in
+     * the job's Configuration. This happens once per map task, instead of once
+     * for every input line. The TuplePlacement of the task is created here too,
+     * from the number of the task and the file of its split, and the
+     * partitioning decides the placement of the rows and the columns.
+     * 
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        this.mtr = MatrixToReducerPartitioning.loadFromConfiguration(
+                context.getConfiguration());
+        InputSplit split = context.getInputSplit();
+        TuplePlacement placement = TuplePlacement.create(context.getConfiguration(),
+                context.getTaskAttemptID().getTaskID().getId(),
+                split instanceof FileSplit ? ((FileSplit) split).getPath().toString() : null);
+        this.rowPlacement = mtr.getRowPlacement(placement);
+        this.columnPlacement = mtr.getColumnPlacement(placement);
+        this.rawEmit = context.getConfiguration().getBoolean(RAW_EMIT_KEY, false);
+        this.secondarySort = context.getConfiguration()
+                .getBoolean(ThetaJoinReduce.SECONDARY_SORT_KEY, false);
+    }
+
+    /**
+     * This Mapper gets a tuple of the input file supplied by the Main class, 
+     * as the ThetaJoinRecordReader parsed it, assigns it to an index in the 
+     * Matrix created by the MatrixPartioner class (to a row if it is a S-tuple
+     * or to a column if it is a R-tuple), finds all the regions (aka reducers)
+     * that are assigned to that row/column and outputs the tuple to them
      * 
      * ==Optimization==
      * The filter of the query applies to the R.a attribute only and prunes the 
@@ -40,102 +97,94 @@ public class ThetaJoinMap extends Mapper<LongWritable, Text, Text, Text> {
      * up with the statement that the S.a must be greater than 10 too (R.a > 10 
      * and R.a < S.a => S.a > 10). So, we applied the filter to the S-tuples too 
      * in order to reduce the amount of them that it is supplied to the reducer
+     * For any other join predicate of the ThetaQuery, the S-tuples that cannot 
+     * join with any R-tuple that passes the filter are pruned in the same way
+     * (ThetaQuery.selectsS)
+     * The filter is applied by the ThetaJoinRecordReader, on the bytes of 
+     * every line, so the tuples that fail it never reach this Mapper
+     * 
+     * The region is output as an IntWritable key and the tuple as a binary
+     * TaggedTupleWritable value, so that the Reducer does not parse any text.
+     * The same key object is set to every region, and with the raw emit 
+     * option (hadooptheta.map.rawEmit) the tuple is serialized once and its
+     * bytes are copied to the output buffer of every region.
+     * With the secondary sort (ThetaJoinReduce.SECONDARY_SORT_KEY), the key
+     * is a RegionTupleKey instead, so that the shuffle sorts the tuples of
+     * every region for the Reducer.
+     * 
+     * The placement of the partitioning chooses the row/column of the tuple:
+     * with 1-Bucket-Theta a random one, or one from the offset of the tuple's
+     * line (the key) if the placement is by hash; with M-Bucket the one of
+     * the bucket of its join attribute, and the tuple is not output at all if
+     * that row/column has no candidate region.
      * 
      * @param key A LongWritable key for the mapping process
-     * @param value A Text value for the mapping process
+     * @param value A TaggedTupleWritable value (the tuple) for the mapping process
      * @param context
      * @throws IOException
      * @throws InterruptedException 
      */
-    protected void map(LongWritable key, Text value, Context context) 
+    protected void map(LongWritable key, TaggedTupleWritable value, Context context) 
             throws IOException, InterruptedException {
 
-        //Key is not used
-        //Get a line of the file
-        String line = value.toString();
-        List<String> tuple = new ArrayList<>();
-
-        //Extract the tuple of the line, ignoring the commas
-        tuple = Utilities.extractTupleFromLine(line);
-
-        //Deserialize the MatrixToReducerPartitioning object created from Main class
-        try {
-            FileInputStream fileIn = new FileInputStream("/tmp/matrixpartitioner.ser");
-            ObjectInputStream in = new ObjectInputStream(fileIn);
-            this.mtr = (MatrixToReducerPartitioning) in.readObject();
-            in.close();
-            fileIn.close();
-        } catch (IOException i) {
-            i.printStackTrace();
-            return;
-        } catch (ClassNotFoundException c) {
-            System.out.println("MatrixToReducerPartitioning class not found");
-            c.printStackTrace();
-            return;
-        }
+        //The tuple already passed the filter of the query
+        //(See the optimization note at the top)
+        int a = value.getJoinAttribute();
 
         int cardinality;
-        List<Integer> regionIDs = new ArrayList<>();
+        int[] regionIDs;
         int tupleLocationInMatrix;
 
         //Find if the tuple is either from S or R relation
-        if (tuple.get(0).equals("S")) {
+        if (value.isFromS()) {
 
             //Get the cardinality of the tuple's relation
             cardinality = mtr.getSCardinality();
 
-            //Calculate a random number between 1 and the cardinality
+            //Place the tuple to a row between 1 and the cardinality
             //(The correct index bounds [0 - (cardinality-1)] are defined
             //in the MatrixtoReducerPartitioner class)
-            tupleLocationInMatrix = Utilities.randInt(1, (cardinality));
+            tupleLocationInMatrix = rowPlacement.place(a, key.get(), cardinality);
 
             //Store all regions that intersect with that column
             regionIDs = mtr.getIntersectingRows(tupleLocationInMatrix);
         } else { //R relation
             cardinality = mtr.getRCardinality();
-            tupleLocationInMatrix = Utilities.randInt(1, (cardinality));
+            tupleLocationInMatrix = columnPlacement.place(a, key.get(), cardinality);
             regionIDs = mtr.getIntersectingColumns(tupleLocationInMatrix);
         }
 
-        Text outputKey = null;
-        Text outputValue = null;
-        boolean filterFail = false;
-
-        //Create the outputValue
-        if (tuple.get(0).equals("S")) {
-            //Set a boolean flag to true, if the aforementioned S-tuple fails
-            //to pass the filter (is lower than or equal to 10) and do not create
-            //any outputValue instance
-            //(See the optimization note at the top)
-            if (Integer.parseInt(tuple.get(1)) <= 10) {
-                filterFail = true;
-            } else {
-                //If the tuple belongs to the S relation, then we have to store three
-                //values, the origin, the S.a and the S.x
-                outputValue = new Text(tuple.get(0) + "," + tuple.get(1) + "," + tuple.get(2));
-            }
-        } else { //R relation
-            //As with the S-tuple, if the aforementioned R-tuple fails
-            //to pass the filter, do not output it to the reducer
-            if (Integer.parseInt(tuple.get(1)) <= 10) {
-                filterFail = true;
-            } else {
-                //If the tuple belongs to the R relation, we have to only store two
-                //values, the origin and S.a
-                outputValue = new Text(tuple.get(0) + "," + tuple.get(1));
-            }
+        //Count the copies of the tuple (the replication of its relation)
+        if (value.isFromS()) {
+            emittedS += regionIDs.length;
+        } else {
+            emittedR += regionIDs.length;
+        }
+
+        //Iteration to output regionIDs.length copies of the tuple
+        //to regionIDs.length reducers. The key is set to the
+        //specific regionID in every iteration (the value is the tuple as it
+        //was parsed: the origin, the S.a and the S.x for a S-tuple, or the 
+        //origin, the R.a and a multiplicity of 1 for a R-tuple)
+        if (rawEmit && regionIDs.length > 1) {
+            value.serialize();
         }
-        //If the tuple passes the filter then and only *then* output it to the reducer.
-        //The boolean flag is already defined as 'false' (the tuple passes the filter)
-        //so if it will pass the filter, it will normally be output to the reducer
-        if (!filterFail) {
-            //Iteration to output regionIDs.size() copies of the tuple
-            //to regionIDs.size() reducers. The key is set to the
-            //specific regionID in every iteration
-            for (int i = 0; i < regionIDs.size(); i++) {
-                outputKey = new Text(String.valueOf(regionIDs.get(i)));
-                context.write(outputKey, outputValue);
+        if (secondarySort) {
+            for (int i = 0; i < regionIDs.length; i++) {
+                sortedKey.set(regionIDs[i], value.getRelation(), a);
+                context.write(sortedKey, value);
+            }
+        } else {
+            for (int i = 0; i < regionIDs.length; i++) {
+                region.set(regionIDs[i]);
+                context.write(region, value);
             }
         }
     }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        context.getCounter(MapCounter.S_EMITTED).increment(emittedS);
+        context.getCounter(MapCounter.R_EMITTED).increment(emittedR);
+    }
 }
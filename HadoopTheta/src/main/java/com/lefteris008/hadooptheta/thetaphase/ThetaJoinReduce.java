@@ -1,40 +1,206 @@
 package com.lefteris008.hadooptheta.thetaphase;
 
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.io.RegionTupleKey;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.report.RegionMetrics;
 import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 /**
  *
  * @author Lefteris Paraskevas
  * @author Alexandros Tzanakas
- * @version 2016.05.14_0038
+ * @version 2026.10.17_2330
  */
-public class ThetaJoinReduce extends Reducer<Text, Text, Text, Text> {
+public class ThetaJoinReduce 
+        extends Reducer<WritableComparable<?>, TaggedTupleWritable, IntWritable, Writable> {
+
+    //Configuration property to collapse the R-tuples of a region by their
+    //R.a attribute before the join, so that every distinct R.a is probed
+    //once and output once per region, with a semi-aggregate multiplied by
+    //the number of its R-tuples (R-tuples may also arrive already grouped by
+    //the ThetaJoinCombine, with a multiplicity greater than 1)
+    public static final String COLLAPSE_R_KEY = "hadooptheta.reduce.collapseR";
+
+    //Configuration property that selects how the semi-summaries are passed to
+    //the second Map/Reduce phase: as a binary SequenceFile of (R.a, semi-summary)
+    //pairs (default) or as text lines "R.a,semi-summary" (see
+    //AggregateWritable.toPartialString() for the format of the other
+    //aggregate functions)
+    public static final String PIPELINE_KEY = "hadooptheta.pipeline";
+    public static final String PIPELINE_BINARY = "binary";
+    public static final String PIPELINE_TEXT = "text";
+
+    //Configuration property to sort the tuples of every region in the shuffle
+    //(by a RegionTupleKey), so that the S-tuples arrive sorted by S.a before 
+    //the R-tuples, which arrive sorted by R.a and are not buffered: the kernel
+    //does not sort the S-tuples, the R-tuples with the same R.a attribute are
+    //grouped as they arrive and joined in chunks of the R buffer, so the
+    //memory of a region is its S-tuples only
+    public static final String SECONDARY_SORT_KEY = "hadooptheta.secondarySort";
+
+    //Configuration property for the number of threads that join the R-tuples
+    //of a region (1 by default); the built kernel, which the join does not
+    //modify, is shared by the threads, which join different chunks of the
+    //R-tuples, and the semi-aggregates are still output by the task thread,
+    //in the same order as with one thread
+    public static final String THREADS_KEY = "hadooptheta.reduce.threads";
+
+    //Configuration properties for the regions that do not fit in memory: the
+    //number of buffered tuples (S and R) after which a region is joined by
+    //the ExternalThetaJoin (0, the default, never spills), and the directory
+    //of its sorted runs (the temporary directory of the task by default).
+    //The buffered tuples and all the following ones of the region are sorted
+    //into runs on the local disk and joined by merging the runs, so a skewed
+    //region is joined at the cost of writing and reading it once, instead of
+    //failing the task
+    public static final String SPILL_THRESHOLD_KEY = "hadooptheta.reduce.spillThreshold";
+    public static final String SPILL_DIRECTORY_KEY = "hadooptheta.reduce.spillDirectory";
+
+    /**
+     * Counters of the regions that were joined on the local disk.
+     */
+    public static enum SpillCounter {
+        SPILLED_REGIONS, SPILLED_TUPLES, SPILLED_RUNS
+    }
+
+    /**
+     * Counters of the joined regions: their number, their tuples and the
+     * total time of their probes (in microseconds).
+     */
+    public static enum ReduceCounter {
+        REGIONS, S_TUPLES, R_TUPLES, PROBE_MICROS
+    }
+
+    //The bytes of a buffered R-tuple: its R.a attribute, its multiplicity and
+    //the range of the groups of S-tuples that it joins with
+    private static final int BYTES_OF_R = 4 + 8 + 4 + 4;
+
+    //Join kernel and buffer of the R.a attributes (along with their 
+    //multiplicity), reused for every region
+    private final ThetaJoinKernel kernel = new ThetaJoinKernel();
+    private int[] tuplesFromR = new int[1024];
+    private long[] multiplicityOfR = new long[1024];
+    private int sizeOfR = 0;
+    private boolean collapseR;
+    private boolean binaryOutput;
+    private ThetaQuery query;
+    private int spillThreshold;
+    private ExternalThetaJoin external = null;
+    private boolean secondarySort;
+
+    private final Text outputValue = new Text();
+    private final IntWritable outputKey = new IntWritable();
+
+    //The semi-aggregates of a round of R-tuples, a chunk for every thread,
+    //and the Window of every thread (see ThetaJoinKernel)
+    private static final int CHUNK = 4096;
+    private AggregateWritable[] results;
+    private ThetaJoinKernel.Window[] windows;
+    private ExecutorService pool = null;
+
+    //The metrics of the current region (its S-tuples and R-tuples, its
+    //distinct S.a attributes, the time of its probe and the bytes it
+    //buffered), which are added to the ReduceCounter counters and written to
+    //a side file of the task for the RunReport (see RegionMetrics) after the
+    //region is joined
+    private RegionMetrics metrics;
+    private Writer metricsFile = null;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        collapseR = context.getConfiguration().getBoolean(COLLAPSE_R_KEY, false);
+        kernel.setForceBigInteger(context.getConfiguration()
+                .getBoolean(Utilities.BIG_INTEGER_SUM_KEY, false));
+        binaryOutput = !PIPELINE_TEXT.equals(
+                context.getConfiguration().get(PIPELINE_KEY, PIPELINE_BINARY));
+        query = ThetaQuery.fromConfiguration(context.getConfiguration());
+        spillThreshold = context.getConfiguration().getInt(SPILL_THRESHOLD_KEY, 0);
+        secondarySort = context.getConfiguration().getBoolean(SECONDARY_SORT_KEY, false);
+
+        int threads = context.getConfiguration().getInt(THREADS_KEY, 1);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        results = new AggregateWritable[threads * CHUNK];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new AggregateWritable();
+        }
+        windows = new ThetaJoinKernel.Window[threads];
+        for (int t = 0; t < threads; t++) {
+            windows[t] = kernel.new Window();
+        }
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+        if (spillThreshold > 0) {
+            File directory = new File(context.getConfiguration().get(SPILL_DIRECTORY_KEY,
+                    System.getProperty("java.io.tmpdir")));
+            directory.mkdirs();
+            external = new ExternalThetaJoin(directory, spillThreshold);
+        }
+        if (context.getOutputCommitter() instanceof FileOutputCommitter) {
+            //The file is committed along with the output of the task
+            Path path = new Path(FileOutputFormat.getWorkOutputPath(context), 
+                    RegionMetrics.FILE_PREFIX + String.format("r-%05d",
+                            context.getTaskAttemptID().getTaskID().getId()));
+            metricsFile = new BufferedWriter(new OutputStreamWriter(
+                    path.getFileSystem(context.getConfiguration()).create(path, false),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (external != null) {
+            external.close();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (metricsFile != null) {
+            metricsFile.close();
+        }
+    }
 
     /**
      * This Reducer gets a single key and a list of values which are R-tuples, 
      * S-tuples or both. It then divides them in two separate data structures, 
      * one for the R-tuples and one for the S-tuples. After the division, it 
-     * joins them. More specifically, it compares every R-tuple with all the
-     * S-tuples in the tuplesFromS TreeMap and if a R.a attribute is lower than 
-     * a S.a attribute, it sums the S.x attribute of the S-tuple. At the end, it 
-     * outputs the R.a attribute and the summary of the S.x attribute as the value 
-     * (the key is set to 'null'). Because the algorithm of the Mapper can (and has 
-     * to) pass more than one copies of a single R-tuple to more than one reducers, 
-     * this local summary of the S.x attribute doesn't represent the full summary, 
-     * but only a partial one (semi-summary) that will be output from the reducer 
-     * to the file and it will be used to the second Map/Reduce phase.
+     * joins them. More specifically, for every R-tuple it finds all the
+     * S-tuples with a S.a attribute greater than the R.a attribute and sums 
+     * their S.x attributes. At the end, it outputs the R.a attribute and the 
+     * summary of the S.x attribute as the value (the key is set to 'null'). 
+     * Because the algorithm of the Mapper can (and has to) pass more than one 
+     * copies of a single R-tuple to more than one reducers, this local summary 
+     * of the S.x attribute doesn't represent the full summary, but only a 
+     * partial one (semi-summary) that will be output from the reducer to the 
+     * file and it will be used to the second Map/Reduce phase.
      * [By creation, a specific R-tuple cannot be joined with a specific S-tuple 
      * more than once in *all* the reducers. So, the summary that is calculated 
      * to a single reducer instance for a specific R-tuple, is different from 
@@ -43,109 +209,320 @@ public class ThetaJoinReduce extends Reducer<Text, Text, Text, Text> {
      * all the S-tuples that a specific R-tuple is going to be joined]
      * 
      * ==Optimization==
-     * We optimized the execution by creating a TreeMap that contains the S.a 
-     * attribute as the key and all the corresponding S.x attributes of this S.a, 
-     * as values. We used the TreeMap structure because it is sorted. Now, every 
-     * R.a attribute is compared with the KeySet of this TreeMap which contains 
-     * the grouped S.a attributes. Because this KeySet is sorted by descending 
-     * order, when we find a S.a attribute which is lower than or equal the R.a 
-     * attribute, we break the iteration because all of the other S.a attributes 
-     * in this KeySet are going to be greater than or equal also. Note that this 
-     * optimization lowers the final number of comparisons for a large number of 
-     * S-tuples only (because the number of the S-tuples is large, the possibility 
-     * of more than one S-tuples having the same S.a attribute is high, so we 
-     * group them and we are only comparing them with a single R.a attribute
-     * once), while for "normal" numbers it may has the same number of comparisons 
-     * with the no-TreeMap implementation (comparing every R.a attribute with 
-     * every S.a attribute)
+     * The S-tuples are stored in primitive arrays of the ThetaJoinKernel, 
+     * which sorts them by the S.a attribute and computes, for every distinct 
+     * S.a attribute, the summary of the S.x attributes of all the S-tuples 
+     * with a greater than or equal S.a (suffix sums). The R.a attributes are 
+     * stored in a primitive array. Every R.a attribute is then 
+     * answered with a single binary search for the first S.a attribute that 
+     * is greater than it, instead of comparing it with every distinct S.a 
+     * attribute, so the cost of a region is O((|R| + |S|) log |S|).
+     * 
+     * The join predicate and the aggregate function are set in the
+     * Configuration (see ThetaQuery); the above describes the default query
+     * (R.a < S.a, SUM). For every other predicate the joined S-tuples are a 
+     * range of the sorted S-tuples too (found with a binary search, or with 
+     * a two-pointer sweep over the sorted R.a attributes for the BAND 
+     * predicate) and every aggregate function has its own loop below, so the 
+     * query is not interpreted for every single tuple. How the tuples of a
+     * region are buffered and joined can be changed with the COLLAPSE_R_KEY,
+     * SECONDARY_SORT_KEY, THREADS_KEY and SPILL_THRESHOLD_KEY properties.
      * 
      * ==Note==
-     * BigInteger is used to support large datasets (in terms of GBs) that will 
-     * normally exceed the limit of the int type.
-     * @param key A Text key for the reducing process
-     * @param values An Iterable of Text values for the reducing process
+     * The summaries are calculated with the long type and BigInteger is only
+     * used for the regions whose summaries exceed its limit (or if the 
+     * Utilities.BIG_INTEGER_SUM_KEY property is set). In the binary
+     * pipeline (default) the R.a attribute and the semi-summary are output as
+     * an IntWritable key and an AggregateWritable value, otherwise as a text
+     * line "R.a,semi-summary".
+     * @param key An IntWritable key (the region), or a RegionTupleKey, for the
+     * reducing process
+     * @param values An Iterable of TaggedTupleWritable values for the reducing process
      * @param context
      * @throws IOException
      * @throws InterruptedException 
      */
-    public final void reduce(Text key, Iterable<Text> values, Context context) 
-            throws IOException, InterruptedException {
+    public final void reduce(WritableComparable<?> key, Iterable<TaggedTupleWritable> values, 
+            Context context) throws IOException, InterruptedException {
 
         //Initialize data structures for the tuples of relation R and S
-        List<String> tuplesFromR = new ArrayList<>();
-        Map<Integer, ArrayList<String>> tuplesFromS_Hash = new TreeMap<>(Collections.reverseOrder());
-
-        //Secondary data structures
-        String testTuple = null;
-        String[] testTupleArray = null;
+        kernel.clear();
+        sizeOfR = 0;
+        metrics = new RegionMetrics(key instanceof RegionTupleKey
+                ? ((RegionTupleKey) key).getRegion() : ((IntWritable) key).get());
+        long tuplesOfS = 0;
+        long tuplesOfR = 0;
 
         //Iterate through the input tuples
-        while (values.iterator().hasNext()) {
-
-            //For every tuple
-            testTuple = values.iterator().next().toString();
-            testTupleArray = testTuple.split(",");
+        boolean spilling = false;
+        boolean built = false;
+        for (TaggedTupleWritable value : values) {
+            if (value.isFromS()) {
+                tuplesOfS++;
+            } else {
+                tuplesOfR += value.getPayload();
+            }
+            if (spilling) {
+                if (value.isFromS()) {
+                    external.addS(value.getJoinAttribute(), value.getPayload());
+                } else {
+                    external.addR(value.getJoinAttribute(), value.getPayload());
+                }
+                continue;
+            }
             //Check if it's from the 'R' or from the 'S' relation
             //and store it to the specific data structure
-            if (testTuple.charAt(0) == 'S') {
-                //Check if the tuplesFromS_Hash has already stored values for
-                //a specific S.a attribute key and either initialize it or add the
-                //new S.x attribute as value
-                if (tuplesFromS_Hash.containsKey(Integer.parseInt(testTupleArray[1]))) {
-                    tuplesFromS_Hash.get(Integer.parseInt(testTupleArray[1])).add(testTupleArray[2]);
-                } else {
-                    tuplesFromS_Hash.put(Integer.parseInt(testTupleArray[1]), 
-                            new ArrayList<String>(Arrays.asList(testTupleArray[2])));
+            if (value.isFromS()) {
+                kernel.add(value.getJoinAttribute(), value.getPayload());
+            } else if (secondarySort) {
+                //All the S-tuples are already read (and sorted)
+                if (!built) {
+                    kernel.build(query.getAggregate());
+                    built = true;
                 }
+                addSortedR(value.getJoinAttribute(), value.getPayload(), context);
+                continue;
             } else { //R relation
-                tuplesFromR.add(testTuple);
+                addR(value.getJoinAttribute(), value.getPayload());
+            }
+            if (spillThreshold > 0 && kernel.size() + sizeOfR > spillThreshold) {
+                startSpilling();
+                spilling = true;
             }
         }
 
-        //Calculate the join result
-        List<String> tupleFromR = new ArrayList<>();
-        List<String> tupleFromS = new ArrayList<>();
-
-        BigInteger countX = new BigInteger("0");
-        Text outputValue = null;
-        Iterator<Integer> it = null;
-        for (int i = 0; i < tuplesFromR.size(); i++) {
-            //For every single R-tuple in tuplesFromR
-            tupleFromR = Utilities.extractTupleFromLine(tuplesFromR.get(i));
-
-            it = tuplesFromS_Hash.keySet().iterator();
-            int hash_key;
-            int j;
-            BigInteger tempSum;
-            //Compare it with all the S-tuples in tuplesFromS_Hash TreeMap
-            while (it.hasNext()) {
-                hash_key = (int) it.next(); //Store the key (S.a attribute)
-
-                //Get the S.x attributes of this S.a key
-                //(The ArrayList will contain either a single or more than one
-                //S.x attributes, regarding the number of the S-tuples)
-                tupleFromS = new ArrayList<>(tuplesFromS_Hash.get(hash_key));
-
-                // Join condition (note that the filter is already applied in the Mapper)
-                if (Integer.parseInt(tupleFromR.get(1)) < hash_key) {
-                    //Calculate the sum of the S.X attribute which will be
-                    //used to the second Map/Reduce phase
-                    for (j = 0; j < tupleFromS.size(); j++) {
-                        tempSum = new BigInteger(tupleFromS.get(j));
-                        countX = countX.add(tempSum);
-                    }
-
-                } else { //R.a is greater than or equal a single S.a attribute
-                    //Break the iteration, because all the remaining
-                    //S.a attributes in the KeySet, will be lower than R.a
-                    //(The KeySet is sorted in descenting order)
-                    break;
-                }
+        if (spilling) {
+            //The buffer of the ExternalThetaJoin holds the threshold at most
+            metrics.updatePeakBufferedBytes(12L * spillThreshold);
+            long start = System.nanoTime();
+            external.join((rA, aggregate) -> write(rA, aggregate, context));
+            metrics.addProbeNanos(System.nanoTime() - start);
+            context.getCounter(SpillCounter.SPILLED_REGIONS).increment(1);
+            context.getCounter(SpillCounter.SPILLED_TUPLES).increment(external.getSpilledTuples());
+            context.getCounter(SpillCounter.SPILLED_RUNS).increment(external.getRuns());
+            external.clear(query);
+            finishRegion(tuplesOfS, tuplesOfR, -1, context);
+            return;
+        }
+
+        if (secondarySort) {
+            if (!built) {
+                //A region without R-tuples
+                kernel.build(query.getAggregate());
             }
-            outputValue = new Text(tupleFromR.get(1) + "," + String.valueOf(countX));
-            //Output only R.a attribute and the S.x semi-summary
+            if (sizeOfR > 0) {
+                join(context);
+            }
+            finishRegion(tuplesOfS, tuplesOfR, kernel.groups(), context);
+            return;
+        }
+
+        if (collapseR) {
+            collapseTuplesFromR();
+        } else if (query.getPredicate() == ThetaPredicate.BAND) {
+            //The two-pointer sweep of the kernel needs the R.a attributes sorted
+            Utilities.sortByKey(tuplesFromR, multiplicityOfR, 0, sizeOfR);
+        }
+
+        //Sort the S-tuples and build the aggregates of the S.x attribute
+        kernel.build(query.getAggregate());
+        join(context);
+        finishRegion(tuplesOfS, tuplesOfR, kernel.groups(), context);
+    }
+
+    /**
+     * Complete the metrics of the joined region, add them to the counters
+     * and write them to the side file of the task.
+     * @param tuplesOfS The number of S-tuples
+     * @param tuplesOfR The number of R-tuples
+     * @param distinctS The number of distinct S.a attributes (-1 if unknown)
+     * @param context
+     * @throws IOException 
+     */
+    private void finishRegion(long tuplesOfS, long tuplesOfR, long distinctS, Context context)
+            throws IOException {
+        metrics.setSizes(tuplesOfS, tuplesOfR, distinctS);
+        context.getCounter(ReduceCounter.REGIONS).increment(1);
+        context.getCounter(ReduceCounter.S_TUPLES).increment(tuplesOfS);
+        context.getCounter(ReduceCounter.R_TUPLES).increment(tuplesOfR);
+        context.getCounter(ReduceCounter.PROBE_MICROS).increment(metrics.getProbeNanos() / 1000);
+        if (metricsFile != null) {
+            metricsFile.write(metrics.toLine());
+            metricsFile.write('\n');
+        }
+    }
+
+    /**
+     * Join the buffered R-tuples with the S-tuples of the kernel (which must
+     * be built) and output their semi-aggregates. The R-tuples are joined in
+     * rounds; the chunks of a round are joined by the threads of the pool 
+     * (if there is one) into their own semi-aggregates, which are then output
+     * in the order of the R-tuples, so the output does not depend on the
+     * number of threads.
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    private void join(Context context) throws IOException, InterruptedException {
+        metrics.updatePeakBufferedBytes(kernel.bufferedBytes() + (long) BYTES_OF_R * sizeOfR);
+        kernel.prepare(query.getPredicate(), sizeOfR);
+        for (int start = 0; start < sizeOfR; start += results.length) {
+            int end = Math.min(start + results.length, sizeOfR);
+            long probeStart = System.nanoTime();
+            if (pool == null || end - start <= CHUNK) {
+                join(start, end, start, windows[0]);
+            } else {
+                joinInParallel(start, end);
+            }
+            metrics.addProbeNanos(System.nanoTime() - probeStart);
+            for (int i = start; i < end; i++) {
+                write(tuplesFromR[i], results[i - start], context);
+            }
+        }
+    }
+
+    /**
+     * Join a round of R-tuples in chunks, one task per chunk.
+     * @param start The first R-tuple of the round
+     * @param end The next R-tuple after the round
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    private void joinInParallel(int start, int end) throws IOException, InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(windows.length);
+        for (int from = start, t = 0; from < end; from += CHUNK, t++) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(from + CHUNK, end);
+            ThetaJoinKernel.Window window = windows[t];
+            tasks.add(() -> {
+                join(chunkFrom, chunkTo, start, window);
+                return null;
+            });
+        }
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IOException("The join of a chunk of R-tuples failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Find the S-tuples that the R-tuples [from, to) join with and set their
+     * semi-aggregates (results[i - offset] for the i-th R-tuple). Different
+     * ranges can be joined by different threads, each with its own Window.
+     * @param from The first R-tuple
+     * @param to The next R-tuple after the last one
+     * @param offset The R-tuple of results[0]
+     * @param window The Window of the thread
+     */
+    private void join(int from, int to, int offset, ThetaJoinKernel.Window window) {
+        kernel.locate(query.getPredicate(), query.getBand(), tuplesFromR, from, to);
+        window.reset();
+
+        //Calculate the join result (note that the filter is already applied 
+        //in the Mapper) and set only the S.x semi-aggregate of the R.a attribute
+        kernel.aggregate(query.getAggregate(), multiplicityOfR, from, to, results, offset,
+                window);
+    }
+
+    /**
+     * Move the buffered tuples of the region to the ExternalThetaJoin.
+     * @throws IOException
+     */
+    private void startSpilling() throws IOException {
+        external.clear(query);
+        for (int i = 0; i < kernel.size(); i++) {
+            external.addS(kernel.keyAt(i), kernel.valueAt(i));
+        }
+        for (int i = 0; i < sizeOfR; i++) {
+            external.addR(tuplesFromR[i], multiplicityOfR[i]);
+        }
+        kernel.clear();
+        sizeOfR = 0;
+    }
+
+    /**
+     * Output a R.a attribute along with its semi-aggregate.
+     * @param rA The R.a attribute
+     * @param aggregate The semi-aggregate
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    private void write(int rA, AggregateWritable aggregate, Context context) 
+            throws IOException, InterruptedException {
+        if (binaryOutput) {
+            outputKey.set(rA);
+            context.write(outputKey, aggregate);
+        } else {
+            outputValue.set(rA + "," + aggregate.toPartialString());
             context.write(null, outputValue);
-            countX = new BigInteger("0");
         }
     }
+
+    /**
+     * Buffer the R.a attribute of a R-tuple that arrives sorted (secondary 
+     * sort), grouping it with the previous one if they have the same R.a
+     * attribute. When the buffer holds a round of R-tuples (a chunk for every
+     * thread), its R-tuples are joined and output.
+     * @param a The R.a attribute
+     * @param multiplicity The number of R-tuples with this R.a attribute
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException 
+     */
+    private void addSortedR(int a, long multiplicity, Context context) 
+            throws IOException, InterruptedException {
+        if (sizeOfR > 0 && tuplesFromR[sizeOfR - 1] == a) {
+            multiplicityOfR[sizeOfR - 1] += multiplicity;
+            return;
+        }
+        if (sizeOfR == results.length) {
+            join(context);
+            sizeOfR = 0;
+        }
+        if (sizeOfR == tuplesFromR.length) {
+            tuplesFromR = Arrays.copyOf(tuplesFromR, 2 * sizeOfR);
+            multiplicityOfR = Arrays.copyOf(multiplicityOfR, 2 * sizeOfR);
+        }
+        tuplesFromR[sizeOfR] = a;
+        multiplicityOfR[sizeOfR] = multiplicity;
+        sizeOfR++;
+    }
+
+    /**
+     * Buffer the R.a attribute of a R-tuple.
+     * @param a The R.a attribute
+     * @param multiplicity The number of R-tuples with this R.a attribute
+     */
+    private void addR(int a, long multiplicity) {
+        if (sizeOfR == tuplesFromR.length) {
+            tuplesFromR = Arrays.copyOf(tuplesFromR, 2 * sizeOfR);
+            multiplicityOfR = Arrays.copyOf(multiplicityOfR, 2 * sizeOfR);
+        }
+        tuplesFromR[sizeOfR] = a;
+        multiplicityOfR[sizeOfR] = multiplicity;
+        sizeOfR++;
+    }
+
+    /**
+     * Group the buffered R-tuples by their R.a attribute, summing their 
+     * multiplicities, so that every distinct R.a attribute is stored once.
+     */
+    private void collapseTuplesFromR() {
+        Utilities.sortByKey(tuplesFromR, multiplicityOfR, 0, sizeOfR);
+        int distinct = 0;
+        for (int i = 0; i < sizeOfR; i++) {
+            if (distinct > 0 && tuplesFromR[distinct - 1] == tuplesFromR[i]) {
+                multiplicityOfR[distinct - 1] += multiplicityOfR[i];
+            } else {
+                tuplesFromR[distinct] = tuplesFromR[i];
+                multiplicityOfR[distinct] = multiplicityOfR[i];
+                distinct++;
+            }
+        }
+        sizeOfR = distinct;
+    }
 }
@@ -0,0 +1,285 @@
+package com.lefteris008.hadooptheta.utilities;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Parser of the "S,a,x" and "R,a" tuples of the input files. It reads the
+ * fields directly from the bytes of a line (e.g. the backing array of a Text)
+ * into primitive fields that are reused for every line, so parsing a line
+ * does not create any object. A line is parsed in two steps, the relation and
+ * the join attribute first (parseJoinAttribute) and the rest of the line next
+ * (parseRemainder), so that a caller can apply the filter of the query before
+ * parsing the S.x attribute.
+ *
+ * The fields are separated by one or more delimiters, which are configurable
+ * (hadooptheta.input.delimiters, a set of single-byte characters, "," by
+ * default). As in the original parser of the lines, the first character of a
+ * line is the relation (a tuple is from the S relation if it is 'S', from the
+ * R relation otherwise) and the fields after the last attribute of the tuple
+ * are ignored. The S.a/R.a attribute is an int and the S.x attribute a long;
+ * a missing, non-numeric or out-of-range attribute makes the line malformed.
+ * A malformed line is not an exception; the parse methods return false and
+ * getError() tells what is wrong with the line.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public final class TupleParser {
+
+    //Configuration property for the characters that separate the fields of a
+    //line (any of them; "\t" stands for a tab)
+    public static final String DELIMITERS_KEY = "hadooptheta.input.delimiters";
+    public static final String DEFAULT_DELIMITERS = ",";
+
+    //Configuration property to skip (and count) the malformed lines of the
+    //input, instead of failing the task
+    public static final String SKIP_MALFORMED_KEY = "hadooptheta.input.skipMalformed";
+
+    /**
+     * Counters of the lines that could not be parsed.
+     */
+    public static enum InputCounter {
+        MALFORMED_LINES
+    }
+
+    /**
+     * What is wrong with a malformed line.
+     */
+    public static enum Error {
+        NONE, EMPTY_LINE, MISSING_DELIMITER, MISSING_FIELD, INVALID_NUMBER,
+        NUMBER_OUT_OF_RANGE
+    }
+
+    private static final byte S = 'S';
+    private static final byte R = 'R';
+
+    private final boolean[] delimiter = new boolean[256];
+
+    //The line that is parsed
+    private byte[] bytes;
+    private int start;
+    private int position;
+    private int end;
+
+    //The fields of the last parsed line
+    private byte relation;
+    private int joinAttribute;
+    private long payload;
+    private Error error = Error.NONE;
+    private long number; //The last parsed number
+
+    /**
+     * Empty constructor (fields separated by commas)
+     */
+    public TupleParser() {
+        this(DEFAULT_DELIMITERS);
+    }
+
+    /**
+     * Parametrized constructor.
+     * @param delimiters The characters that separate the fields of a line
+     */
+    public TupleParser(String delimiters) {
+        String unescaped = delimiters.replace("\\t", "\t");
+        if (unescaped.isEmpty()) {
+            throw new IllegalArgumentException("No delimiter is set");
+        }
+        for (int i = 0; i < unescaped.length(); i++) {
+            char c = unescaped.charAt(i);
+            if (c >= 128 || c == '-' || (c >= '0' && c <= '9') || c == S || c == R) {
+                throw new IllegalArgumentException("Invalid delimiter: '" + c + "'");
+            }
+            delimiter[c] = true;
+        }
+    }
+
+    /**
+     * Create a parser with the delimiters of a Configuration.
+     * @param conf The Configuration of the job
+     * @return A new TupleParser
+     */
+    public static TupleParser fromConfiguration(Configuration conf) {
+        return new TupleParser(conf.get(DELIMITERS_KEY, DEFAULT_DELIMITERS));
+    }
+
+    /**
+     * Parse a whole line.
+     * @param line The line (without its terminator)
+     * @return True if the line is a valid tuple
+     */
+    public boolean parse(Text line) {
+        return parse(line.getBytes(), 0, line.getLength());
+    }
+
+    /**
+     * Parse a whole line.
+     * @param bytes The bytes of the line
+     * @param offset The first byte of the line
+     * @param length The length of the line
+     * @return True if the line is a valid tuple
+     */
+    public boolean parse(byte[] bytes, int offset, int length) {
+        return parseJoinAttribute(bytes, offset, length) && parseRemainder();
+    }
+
+    /**
+     * Parse the relation and the join attribute of a line.
+     * @param bytes The bytes of the line
+     * @param offset The first byte of the line
+     * @param length The length of the line
+     * @return True if both fields are valid
+     */
+    public boolean parseJoinAttribute(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.start = offset;
+        this.position = offset;
+        this.end = offset + length;
+        this.error = Error.NONE;
+        this.payload = 1L; //The multiplicity of a R-tuple
+
+        if (length == 0) {
+            return fail(Error.EMPTY_LINE);
+        }
+        relation = bytes[position] == S ? S : R;
+        position++;
+        if (!skipDelimiters()) {
+            return false;
+        }
+        if (!parseNumber(Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            return false;
+        }
+        joinAttribute = (int) number;
+        return true;
+    }
+
+    /**
+     * Parse the rest of a line after parseJoinAttribute(), that is the S.x
+     * attribute of a S-tuple (any further fields are ignored).
+     * @return True if the rest of the line is valid
+     */
+    public boolean parseRemainder() {
+        if (error != Error.NONE) {
+            return false;
+        }
+        if (relation == S) {
+            if (!skipDelimiters() || !parseNumber(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                return false;
+            }
+            payload = number;
+        }
+        return true;
+    }
+
+    /**
+     * Parse a decimal number at the current position, checking for overflow
+     * the way Long.parseLong does. The number must be the whole field, that is
+     * followed by a delimiter or the end of the line.
+     * @param min The lowest valid number
+     * @param max The highest valid number
+     * @return True if there is a valid number in [min, max]
+     */
+    private boolean parseNumber(long min, long max) {
+        int i = position;
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end || bytes[i] < '0' || bytes[i] > '9') {
+            position = i;
+            return fail(Error.INVALID_NUMBER);
+        }
+
+        //The number is accumulated negatively, so that 'min' does not overflow
+        long limit = negative ? min : -max;
+        long multiplyLimit = limit / 10;
+        long value = 0;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            int digit = bytes[i] - '0';
+            if (value < multiplyLimit || value * 10 < limit + digit) {
+                position = i;
+                return fail(Error.NUMBER_OUT_OF_RANGE);
+            }
+            value = value * 10 - digit;
+            i++;
+        }
+        position = i;
+        if (i < end && !delimiter[bytes[i] & 0xFF]) {
+            return fail(Error.INVALID_NUMBER);
+        }
+        number = negative ? value : -value;
+        return true;
+    }
+
+    /**
+     * Skip the delimiters before the next field (at least one).
+     * @return True if there is a next field
+     */
+    private boolean skipDelimiters() {
+        if (position == end || !delimiter[bytes[position] & 0xFF]) {
+            return fail(position == end ? Error.MISSING_FIELD : Error.MISSING_DELIMITER);
+        }
+        while (position < end && delimiter[bytes[position] & 0xFF]) {
+            position++;
+        }
+        return position < end || fail(Error.MISSING_FIELD);
+    }
+
+    private boolean fail(Error error) {
+        this.error = error;
+        return false;
+    }
+
+    /**
+     * Return true if the last parsed tuple comes from the S relation.
+     * @return A boolean flag.
+     */
+    public boolean isFromS() {
+        return relation == S;
+    }
+
+    /**
+     * Return the relation of the last parsed tuple.
+     * @return 'S' or 'R'
+     */
+    public byte getRelation() {
+        return relation;
+    }
+
+    /**
+     * Return the join attribute of the last parsed tuple.
+     * @return The S.a or R.a attribute
+     */
+    public int getJoinAttribute() {
+        return joinAttribute;
+    }
+
+    /**
+     * Return the payload of the last parsed tuple.
+     * @return The S.x attribute of a S-tuple or 1 for a R-tuple
+     */
+    public long getPayload() {
+        return payload;
+    }
+
+    /**
+     * Return what is wrong with the last parsed line.
+     * @return The error (NONE if the line is valid)
+     */
+    public Error getError() {
+        return error;
+    }
+
+    /**
+     * Describe what is wrong with the last parsed line. This creates a
+     * String, so it is only meant for reporting malformed lines.
+     * @return A String with the error, its column and the line.
+     */
+    public String describeError() {
+        return error + " at column " + (position - start + 1) + " of \""
+                + new String(bytes, start, end - start, StandardCharsets.UTF_8) + "\"";
+    }
+}
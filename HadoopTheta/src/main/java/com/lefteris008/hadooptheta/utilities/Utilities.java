@@ -6,31 +6,35 @@ package com.lefteris008.hadooptheta.utilities;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  *
  * @author Lefteris Paraskevas
  * @author Alexandros Tzanakas
- * @version 2016.05.14_0029
+ * @version 2026.10.17_1600
  */
 public class Utilities {
 
     private final static char SEPARATOR = ',';
 
+    //Configuration property that forces all the summaries of the S.x attribute
+    //to be calculated with BigInteger. Otherwise, they are calculated with the
+    //long type (Math.addExact) and BigInteger is only used on overflow
+    public final static String BIG_INTEGER_SUM_KEY = "hadooptheta.sum.bigInteger";
+
     /**
-     * Calculate a random integer between min and max.
+     * Calculate a random integer between min and max, from the generator of
+     * the current thread (no Random is created per call).
      *
      * @param min Lower bound
      * @param max Upper bound
      * @return An random integer [min, max]
      */
     public final static int randInt(int min, int max) {
-        Random rand = new Random();
-
         // nextInt is normally exclusive of the top value,
         // so add 1 to make it inclusive
-        int randomNum = rand.nextInt((max - min) + 1) + min;
+        int randomNum = ThreadLocalRandom.current().nextInt((max - min) + 1) + min;
 
         return randomNum;
     }
@@ -40,7 +44,11 @@ public class Utilities {
      * file) which finally stores it in an ArrayList and returns it
      * @param line A String containing a line from file
      * @return A List containing the extracted tuple
+     * @deprecated Creates a List, a boxed Character for every character and
+     * a String for every field of the line. Use the TupleParser instead (this
+     * method is only kept as the baseline of its benchmark).
      */
+    @Deprecated
     public static List<String> extractTupleFromLine(String line) {
         //Initialize ArrayList which will be returned to user
         //as also as character array temp that will contain
@@ -89,4 +97,59 @@ public class Utilities {
         }
         return builder.toString();
     }
+
+    /**
+     * Sort the pairs in [from, to) of two parallel arrays by their int key, 
+     * moving the long values along (e.g. the S.a and S.x attributes of the 
+     * S-tuples). It uses a three-way partitioning quicksort, because the join 
+     * attributes of a region contain many duplicates.
+     * @param keys The keys of the pairs
+     * @param values The values of the pairs
+     * @param from First index (inclusive)
+     * @param to Last index (exclusive)
+     */
+    public static void sortByKey(int[] keys, long[] values, int from, int to) {
+        while (to - from > 16) {
+            int pivot = median(keys[from], keys[(from + to) >>> 1], keys[to - 1]);
+            int lt = from;
+            int gt = to - 1;
+            int i = from;
+            while (i <= gt) {
+                if (keys[i] < pivot) {
+                    swap(keys, values, lt++, i++);
+                } else if (keys[i] > pivot) {
+                    swap(keys, values, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            //Recurse into the smaller part and loop over the larger one
+            if (lt - from < to - gt - 1) {
+                sortByKey(keys, values, from, lt);
+                from = gt + 1;
+            } else {
+                sortByKey(keys, values, gt + 1, to);
+                to = lt;
+            }
+        }
+        //Insertion sort for the small ranges
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && keys[j - 1] > keys[j]; j--) {
+                swap(keys, values, j - 1, j);
+            }
+        }
+    }
+
+    private static int median(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(int[] keys, long[] values, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
 }
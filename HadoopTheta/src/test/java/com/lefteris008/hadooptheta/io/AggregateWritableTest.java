@@ -0,0 +1,43 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the subtraction of the aggregates, which the ExternalThetaJoin uses
+ * for the R.a != S.a predicate.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public class AggregateWritableTest {
+
+    @Test
+    public void subtractsTheSummaryAndTheNumberOfTuples() {
+        AggregateWritable all = aggregate(ThetaAggregate.AVG, 4, 5, 9);
+        all.subtract(aggregate(ThetaAggregate.AVG, 5));
+        assertEquals("13/2", all.toPartialString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotSubtractFromMin() {
+        aggregate(ThetaAggregate.MIN, 4, 5).subtract(aggregate(ThetaAggregate.MIN, 4));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotSubtractFromMax() {
+        aggregate(ThetaAggregate.MAX, 4, 5).subtract(aggregate(ThetaAggregate.MAX, 5));
+    }
+
+    private static AggregateWritable aggregate(ThetaAggregate function, long... values) {
+        AggregateWritable aggregate = new AggregateWritable(function);
+        for (long x : values) {
+            aggregate.add(x);
+        }
+        return aggregate;
+    }
+}
@@ -0,0 +1,275 @@
+package com.lefteris008.hadooptheta.io;
+
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes the same tuples as a text file and as the columnar files of S and R,
+ * and checks that the ColumnarRecordReader returns exactly the tuples that
+ * the ThetaJoinRecordReader selects from the text file, for every predicate
+ * and however the columnar files are split, and that it skips every block
+ * that the query cannot select. The join attributes ascend through the
+ * files, so the range of every block is tight and a block can be skipped if
+ * and only if none of its tuples is selected.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class ColumnarRecordReaderTest {
+
+    private static final int TUPLES_OF_S = 300;
+    private static final int TUPLES_OF_R = 200;
+    private static final int BLOCK_SIZE = 16;
+    private static final int FILTER = 120;
+    private static final int BAND = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsTheTuplesThatTheTextReaderSelects() throws Exception {
+        Inputs inputs = write(TUPLES_OF_S, TUPLES_OF_R);
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            check(inputs, configuration(predicate, true));
+        }
+        //(The filter prunes whole blocks of both relations for R.a < S.a)
+        Configuration conf = configuration(ThetaPredicate.LT, true);
+        assertTrue(emptyBlocks(inputs.columnarS, conf) > 0);
+        assertTrue(emptyBlocks(inputs.columnarR, conf) > 0);
+    }
+
+    @Test
+    public void readsEveryTupleWithoutTheFilter() throws Exception {
+        Inputs inputs = write(TUPLES_OF_S, TUPLES_OF_R);
+        Configuration conf = configuration(ThetaPredicate.LT, false);
+        check(inputs, conf);
+        assertEquals(TUPLES_OF_S + TUPLES_OF_R, read(inputs.text, conf).size());
+    }
+
+    @Test
+    public void readsAnEmptyFile() throws Exception {
+        Inputs inputs = write(TUPLES_OF_S, 0);
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            check(inputs, configuration(predicate, true));
+        }
+    }
+
+    private static Configuration configuration(ThetaPredicate predicate, boolean filter) {
+        Configuration conf = new Configuration(false);
+        conf.set(ThetaQuery.PREDICATE_KEY, predicate.getName());
+        conf.setInt(ThetaQuery.BAND_KEY, BAND);
+        conf.setInt(ThetaQuery.FILTER_KEY, FILTER);
+        conf.setBoolean(ThetaJoinInputFormat.FILTER_KEY, filter);
+        return conf;
+    }
+
+    /**
+     * The text file of the tuples and their columnar files.
+     */
+    private static final class Inputs {
+        private File text;
+        private File columnarS;
+        private File columnarR;
+    }
+
+    /**
+     * Write the tuples, with ascending join attributes, in both formats.
+     */
+    private Inputs write(int tuplesOfS, int tuplesOfR) throws IOException {
+        Random random = new Random(42);
+        Inputs inputs = new Inputs();
+        File directory = folder.newFolder();
+        inputs.text = new File(directory, "input.csv");
+        inputs.columnarS = new File(directory, "S" + ColumnarTupleFile.EXTENSION);
+        inputs.columnarR = new File(directory, "R" + ColumnarTupleFile.EXTENSION);
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        ColumnarTupleFile.Writer writerOfS = new ColumnarTupleFile.Writer(
+                fs.create(new Path(inputs.columnarS.getPath())), TaggedTupleWritable.S,
+                BLOCK_SIZE);
+        ColumnarTupleFile.Writer writerOfR = new ColumnarTupleFile.Writer(
+                fs.create(new Path(inputs.columnarR.getPath())), TaggedTupleWritable.R,
+                BLOCK_SIZE);
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (int i = 0; i < tuplesOfS; i++) {
+                int a = i - tuplesOfS / 4;
+                long x = random.nextInt(2001) - 1000;
+                writerOfS.append(a, x);
+                lines.append("S,").append(a).append(',').append(x).append('\n');
+            }
+            for (int i = 0; i < tuplesOfR; i++) {
+                int a = i - tuplesOfR / 10 + random.nextInt(3);
+                writerOfR.append(a, 0);
+                lines.append("R,").append(a).append('\n');
+            }
+        } finally {
+            writerOfS.close();
+            writerOfR.close();
+        }
+        Files.write(inputs.text.toPath(), lines.toString().getBytes(StandardCharsets.US_ASCII));
+        return inputs;
+    }
+
+    /**
+     * Compare the tuples of the columnar files, read whole and in small
+     * splits, with the ones of the text file, and the skipped blocks with
+     * the blocks that hold no selected tuple.
+     */
+    private static void check(Inputs inputs, Configuration conf) throws Exception {
+        String query = ThetaQuery.fromConfiguration(conf).toString();
+        List<String> expected = read(inputs.text, conf);
+        for (long splitSize : new long[] {Long.MAX_VALUE, 100, 7 * BLOCK_SIZE}) {
+            Counters counters = new Counters();
+            List<String> actual = new ArrayList<String>();
+            actual.addAll(read(inputs.columnarS, conf, splitSize, counters));
+            actual.addAll(read(inputs.columnarR, conf, splitSize, counters));
+            assertEquals(query + ", splits of " + splitSize, expected, actual);
+            assertEquals(query + ", splits of " + splitSize,
+                    emptyBlocks(inputs.columnarS, conf) + emptyBlocks(inputs.columnarR, conf),
+                    counters.findCounter(ColumnarRecordReader.BlockCounter.BLOCKS_SKIPPED)
+                            .getValue());
+        }
+    }
+
+    /**
+     * Return the blocks of a columnar file that hold no tuple that the query
+     * selects (none if the filter is disabled).
+     */
+    private static long emptyBlocks(File file, Configuration conf) throws IOException {
+        if (!conf.getBoolean(ThetaJoinInputFormat.FILTER_KEY, true)) {
+            return 0;
+        }
+        ThetaQuery query = ThetaQuery.fromConfiguration(conf);
+        ColumnarTupleFile.Reader reader = new ColumnarTupleFile.Reader(
+                FileSystem.getLocal(new Configuration()), new Path(file.getPath()));
+        long blocks = 0;
+        try {
+            int[] joinAttributes = new int[BLOCK_SIZE];
+            long[] payloads = new long[BLOCK_SIZE];
+            boolean fromS = reader.getRelation() == TaggedTupleWritable.S;
+            for (int block = 0; block < reader.getBlocks(); block++) {
+                reader.readBlock(block, joinAttributes, payloads);
+                boolean selected = false;
+                for (int i = 0; i < reader.getCount(block); i++) {
+                    int a = joinAttributes[i];
+                    selected |= fromS ? query.selectsS(a) : query.selectsR(a);
+                }
+                blocks += selected ? 0 : 1;
+            }
+        } finally {
+            reader.close();
+        }
+        return blocks;
+    }
+
+    /**
+     * Read the tuples of a text file with the ThetaJoinRecordReader.
+     */
+    private static List<String> read(File file, Configuration conf)
+            throws IOException, InterruptedException {
+        TaskAttemptContext context = new TaskAttemptContext(conf,
+                new TaskAttemptID("test", 1, true, 0, 0));
+        return read(new ThetaJoinRecordReader(),
+                new FileSplit(new Path(file.getPath()), 0, file.length(), null), context);
+    }
+
+    /**
+     * Read the tuples of a columnar file with the ColumnarRecordReader, in
+     * splits of a size, and add its counters to the given ones.
+     */
+    private static List<String> read(File file, Configuration conf, long splitSize,
+            Counters counters) throws IOException, InterruptedException {
+        List<String> tuples = new ArrayList<String>();
+        for (long start = 0; start < file.length(); start += splitSize) {
+            FileSplit split = new FileSplit(new Path(file.getPath()), start,
+                    Math.min(splitSize, file.length() - start), null);
+            TaskAttemptContext context = new MapContext<LongWritable, TaggedTupleWritable,
+                    Object, Object>(conf, new TaskAttemptID("test", 1, true, 0, 0), null, null,
+                    null, new Reporter(counters), split);
+            tuples.addAll(read(new ColumnarRecordReader(), split, context));
+        }
+        return tuples;
+    }
+
+    /**
+     * Return the tuples of a split, as "relation,a,payload".
+     */
+    private static List<String> read(RecordReader<LongWritable, TaggedTupleWritable> reader,
+            FileSplit split, TaskAttemptContext context)
+            throws IOException, InterruptedException {
+        List<String> tuples = new ArrayList<String>();
+        reader.initialize(split, context);
+        try {
+            while (reader.nextKeyValue()) {
+                tuples.add(reader.getCurrentValue().toString());
+            }
+        } finally {
+            reader.close();
+        }
+        return tuples;
+    }
+
+    /**
+     * A StatusReporter of the given counters.
+     */
+    private static final class Reporter extends StatusReporter {
+
+        private final Counters counters;
+
+        Reporter(Counters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+            ///
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+            ///
+        }
+    }
+}
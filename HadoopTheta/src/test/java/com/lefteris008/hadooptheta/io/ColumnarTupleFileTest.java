@@ -0,0 +1,113 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes columnar files of both relations and checks that they are read
+ * back block by block, with the index of every block, whether the blocks
+ * are full, the last one is partial or the file has no tuples at all.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class ColumnarTupleFileTest {
+
+    private static final int BLOCK_SIZE = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsSWithAPartialLastBlock() throws IOException {
+        check(TaggedTupleWritable.S, 6 * BLOCK_SIZE + 3);
+    }
+
+    @Test
+    public void roundTripsRWithFullBlocks() throws IOException {
+        check(TaggedTupleWritable.R, 6 * BLOCK_SIZE);
+    }
+
+    @Test
+    public void roundTripsAFileWithoutTuples() throws IOException {
+        check(TaggedTupleWritable.S, 0);
+        check(TaggedTupleWritable.R, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAFileThatIsNotColumnar() throws IOException {
+        File file = folder.newFile("S" + ColumnarTupleFile.EXTENSION);
+        Files.write(file.toPath(),
+                "S,1,2\nR,3\nR,4\nS,5,6\n".getBytes(StandardCharsets.US_ASCII));
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        new ColumnarTupleFile.Reader(fs, new Path(file.getPath())).close();
+    }
+
+    /**
+     * Write random tuples of a relation (with the extreme attributes first)
+     * and read them back.
+     */
+    private void check(byte relation, int tuples) throws IOException {
+        Random random = new Random(42);
+        int[] joinAttributes = new int[tuples];
+        long[] payloads = new long[tuples];
+        for (int i = 0; i < tuples; i++) {
+            joinAttributes[i] = i == 0 ? Integer.MIN_VALUE
+                    : i == 1 ? Integer.MAX_VALUE : random.nextInt(2001) - 1000;
+            payloads[i] = i == 0 ? Long.MIN_VALUE
+                    : i == 1 ? Long.MAX_VALUE : random.nextLong();
+        }
+
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        Path path = new Path(folder.newFolder().getPath(),
+                (char) relation + ColumnarTupleFile.EXTENSION);
+        ColumnarTupleFile.Writer writer = new ColumnarTupleFile.Writer(fs.create(path),
+                relation, BLOCK_SIZE);
+        for (int i = 0; i < tuples; i++) {
+            writer.append(joinAttributes[i], payloads[i]);
+        }
+        writer.close();
+
+        ColumnarTupleFile.Reader reader = new ColumnarTupleFile.Reader(fs, path);
+        try {
+            assertEquals(relation, reader.getRelation());
+            assertEquals((tuples + BLOCK_SIZE - 1) / BLOCK_SIZE, reader.getBlocks());
+            int[] blockOfA = new int[BLOCK_SIZE];
+            long[] blockOfX = new long[BLOCK_SIZE];
+            int i = 0;
+            for (int block = 0; block < reader.getBlocks(); block++) {
+                int count = reader.getCount(block);
+                assertEquals("Block " + block, Math.min(BLOCK_SIZE, tuples - i), count);
+                reader.readBlock(block, blockOfA, blockOfX);
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int j = 0; j < count; j++, i++) {
+                    assertEquals("Tuple " + i, joinAttributes[i], blockOfA[j]);
+                    if (relation == TaggedTupleWritable.S) {
+                        assertEquals("Tuple " + i, payloads[i], blockOfX[j]);
+                    }
+                    min = Math.min(min, blockOfA[j]);
+                    max = Math.max(max, blockOfA[j]);
+                }
+                assertEquals("Block " + block, min, reader.getMin(block));
+                assertEquals("Block " + block, max, reader.getMax(block));
+            }
+            assertEquals(tuples, i);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.lefteris008.hadooptheta.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableComparator;
+import org.junit.Test;
+
+/**
+ * Checks the raw comparators of the RegionTupleKey on serialized keys: the
+ * Comparator orders them like compareTo() (so the S-tuples of a region come
+ * before its R-tuples, even with negative join attributes), and the
+ * GroupingComparator groups them by their region only.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class RegionTupleKeyTest {
+
+    private static final int[] ATTRIBUTES = {
+        Integer.MIN_VALUE, -70000, -256, -1, 0, 1, 255, 256, 70000, Integer.MAX_VALUE
+    };
+
+    @Test
+    public void rawComparatorOrdersLikeCompareTo() throws IOException {
+        List<RegionTupleKey> keys = keys();
+        Serialized serialized = new Serialized(keys);
+        WritableComparator comparator = new RegionTupleKey.Comparator();
+        for (int i = 0; i < keys.size(); i++) {
+            for (int j = 0; j < keys.size(); j++) {
+                assertEquals(keys.get(i) + " and " + keys.get(j),
+                        Integer.signum(keys.get(i).compareTo(keys.get(j))),
+                        Integer.signum(serialized.compare(comparator, i, j)));
+            }
+        }
+    }
+
+    @Test
+    public void rawComparatorIsTheRegisteredOne() {
+        assertEquals(RegionTupleKey.Comparator.class,
+                WritableComparator.get(RegionTupleKey.class).getClass());
+    }
+
+    @Test
+    public void sortsTheSTuplesOfARegionBeforeItsRTuples() {
+        RegionTupleKey s = key(2, TaggedTupleWritable.S, Integer.MAX_VALUE);
+        RegionTupleKey r = key(2, TaggedTupleWritable.R, Integer.MIN_VALUE);
+        assertEquals(-1, Integer.signum(s.compareTo(r)));
+        assertEquals(1, Integer.signum(r.compareTo(key(1, TaggedTupleWritable.S, 0))));
+        assertEquals(-1, Integer.signum(r.compareTo(key(3, TaggedTupleWritable.S, 0))));
+        assertEquals(0, s.compareTo(key(2, TaggedTupleWritable.S, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void groupingComparatorGroupsByTheRegionOnly() throws IOException {
+        List<RegionTupleKey> keys = keys();
+        Serialized serialized = new Serialized(keys);
+        WritableComparator grouping = new RegionTupleKey.GroupingComparator();
+        for (int i = 0; i < keys.size(); i++) {
+            for (int j = 0; j < keys.size(); j++) {
+                RegionTupleKey a = keys.get(i);
+                RegionTupleKey b = keys.get(j);
+                int expected = Integer.signum(Integer.compare(a.getRegion(), b.getRegion()));
+                assertEquals(a + " and " + b, expected,
+                        Integer.signum(serialized.compare(grouping, i, j)));
+                assertEquals(a + " and " + b, expected, Integer.signum(grouping.compare(a, b)));
+            }
+        }
+    }
+
+    /**
+     * Keys of both relations in several regions (the negative ones too), with
+     * equal join attributes across the relations of a region, and random
+     * ones.
+     */
+    private static List<RegionTupleKey> keys() {
+        Random random = new Random(42);
+        List<RegionTupleKey> keys = new ArrayList<RegionTupleKey>();
+        for (int region : new int[] {-1, 1, 2, 256, Integer.MAX_VALUE}) {
+            for (int a : ATTRIBUTES) {
+                keys.add(key(region, TaggedTupleWritable.S, a));
+                keys.add(key(region, TaggedTupleWritable.R, a));
+            }
+            for (int i = 0; i < 10; i++) {
+                keys.add(key(region, random.nextBoolean() ? TaggedTupleWritable.S
+                        : TaggedTupleWritable.R, random.nextInt()));
+            }
+        }
+        return keys;
+    }
+
+    private static RegionTupleKey key(int region, byte relation, int joinAttribute) {
+        RegionTupleKey key = new RegionTupleKey();
+        key.set(region, relation, joinAttribute);
+        return key;
+    }
+
+    /**
+     * The keys serialized one after the other into a single buffer (after a
+     * byte, so that no key starts at the start of the buffer), as in the
+     * sort buffer of a map task.
+     */
+    private static final class Serialized {
+
+        private final byte[] bytes;
+        private final int[] starts;
+        private final int[] lengths;
+
+        Serialized(List<RegionTupleKey> keys) throws IOException {
+            DataOutputBuffer out = new DataOutputBuffer();
+            out.writeByte(0x7f);
+            starts = new int[keys.size()];
+            lengths = new int[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                starts[i] = out.getLength();
+                keys.get(i).write(out);
+                lengths[i] = out.getLength() - starts[i];
+            }
+            bytes = out.getData();
+        }
+
+        int compare(WritableComparator comparator, int i, int j) {
+            return comparator.compare(bytes, starts[i], lengths[i], bytes, starts[j], lengths[j]);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lefteris008.hadooptheta.local;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.partitioner.MBucketPartitioning;
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the local engine on a fixed input, split into many small splits, and
+ * compares its output with a brute-force (nested loops) join, for every
+ * predicate and aggregate function.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public class LocalThetaJoinTest {
+
+    private static final int TUPLES_OF_S = 300;
+    private static final int TUPLES_OF_R = 200;
+    private static final int REDUCERS = 4;
+    private static final int BAND = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<int[]> tuplesOfS = new ArrayList<int[]>();
+    private final List<Integer> tuplesOfR = new ArrayList<Integer>();
+    private File input;
+
+    @Before
+    public void writeInput() throws IOException {
+        Random random = new Random(42);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < TUPLES_OF_S + TUPLES_OF_R; i++) {
+            if (i % 5 < 3 && tuplesOfS.size() < TUPLES_OF_S) {
+                int a = random.nextInt(40);
+                int x = random.nextInt(2001) - 1000;
+                tuplesOfS.add(new int[] {a, x});
+                lines.append("S,").append(a).append(',').append(x).append('\n');
+            } else {
+                int a = random.nextInt(40);
+                tuplesOfR.add(a);
+                lines.append("R,").append(a).append('\n');
+            }
+        }
+        input = folder.newFile("input.csv");
+        Files.write(input.toPath(), lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void joinsLikeNestedLoopsWith1BucketTheta() throws IOException {
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            for (ThetaAggregate aggregate : ThetaAggregate.values()) {
+                Configuration conf = configuration(predicate, aggregate);
+                LocalThetaJoin local = new LocalThetaJoin(conf);
+                try {
+                    MatrixToReducerPartitioning mtr = new MatrixToReducerPartitioning(
+                            TUPLES_OF_S, TUPLES_OF_R, REDUCERS);
+                    mtr.Partitioner();
+                    check(conf, local, mtr);
+                } finally {
+                    local.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void joinsLikeNestedLoopsWithMBucket() throws IOException {
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            for (ThetaAggregate aggregate : ThetaAggregate.values()) {
+                Configuration conf = configuration(predicate, aggregate);
+                LocalThetaJoin local = new LocalThetaJoin(conf);
+                try {
+                    MatrixToReducerPartitioning mtr = new MBucketPartitioning(
+                            local.computeStatistics(input.getPath()), REDUCERS,
+                            4 * REDUCERS, ThetaQuery.fromConfiguration(conf));
+                    mtr.Partitioner();
+                    check(conf, local, mtr);
+                } finally {
+                    local.close();
+                }
+            }
+        }
+    }
+
+    private Configuration configuration(ThetaPredicate predicate, ThetaAggregate aggregate) {
+        Configuration conf = new Configuration(false);
+        conf.set(ThetaQuery.PREDICATE_KEY, predicate.getName());
+        conf.setInt(ThetaQuery.BAND_KEY, BAND);
+        conf.set(ThetaQuery.AGGREGATE_KEY, aggregate.getName());
+        conf.setInt(LocalThetaJoin.THREADS_KEY, 3);
+        //About 60 lines per split
+        conf.setLong(LocalThetaJoin.SPLIT_SIZE_KEY, 512);
+        return conf;
+    }
+
+    private void check(Configuration conf, LocalThetaJoin local, MatrixToReducerPartitioning mtr)
+            throws IOException {
+        ThetaQuery query = ThetaQuery.fromConfiguration(conf);
+        File output = new File(folder.getRoot(), "output");
+        local.run(mtr, input.getPath(), output.getPath());
+        String actual = new String(Files.readAllBytes(new File(output, "part-r-00000").toPath()),
+                StandardCharsets.UTF_8);
+        assertEquals(query.toString(), nestedLoops(query), actual);
+    }
+
+    /**
+     * The output of the query, from every pair of tuples.
+     */
+    private String nestedLoops(ThetaQuery query) {
+        TreeMap<Integer, Long> multiplicities = new TreeMap<Integer, Long>();
+        for (int rA : tuplesOfR) {
+            if (query.selectsR(rA)) {
+                Long previous = multiplicities.get(rA);
+                multiplicities.put(rA, (previous == null ? 0 : previous) + 1);
+            }
+        }
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<Integer, Long> entry : multiplicities.entrySet()) {
+            AggregateWritable aggregate = new AggregateWritable(query.getAggregate());
+            for (int[] s : tuplesOfS) {
+                if (query.getPredicate().matches(entry.getKey(), s[0], query.getBand())) {
+                    aggregate.add(s[1]);
+                }
+            }
+            aggregate.multiply(entry.getValue());
+            output.append(entry.getKey()).append('\t').append(aggregate).append('\n');
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.lefteris008.hadooptheta.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that the splits of a file read every line exactly once, whatever
+ * the terminators of the lines, wherever a split ends and however far a
+ * line crosses the mapping of its split.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class MappedLineReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void splitOnALineBoundary() throws IOException {
+        //The lines start at 0, 6 and 10
+        File file = write("S,1,2\nR,3\nR,4\n");
+        assertEquals(Arrays.asList("0:S,1,2"), read(file, 0, 6));
+        assertEquals(Arrays.asList("6:R,3", "10:R,4"), read(file, 6, 14));
+    }
+
+    @Test
+    public void crlfSplitAcrossTwoSplits() throws IOException {
+        //The second split starts between the '\r' and the '\n' of the first line
+        File file = write("R,1\r\nR,2\r\n");
+        assertEquals(Arrays.asList("0:R,1"), read(file, 0, 4));
+        assertEquals(Arrays.asList("5:R,2"), read(file, 4, 10));
+    }
+
+    @Test
+    public void everySplitPointReadsEveryLineOnce() throws IOException {
+        String text = "S,1,2\r\nR,3\nR,40\rS,5,6\r\n\r\nR,7";
+        File file = write(text);
+        List<String> whole = read(file, 0, text.length());
+        assertEquals(Arrays.asList("0:S,1,2", "7:R,3", "11:R,40", "16:S,5,6", "23:", "25:R,7"),
+                whole);
+        for (int split = 0; split <= text.length(); split++) {
+            List<String> lines = new ArrayList<String>(read(file, 0, split));
+            lines.addAll(read(file, split, text.length()));
+            assertEquals("Split at byte " + split, whole, lines);
+        }
+    }
+
+    @Test
+    public void linesLongerThanTheSlackAreReadWhole() throws IOException {
+        //The mapping of [0, 5) ends at the '\r' of the long line, and the
+        //long line crosses the mapping of every split that starts in it
+        StringBuilder longLine = new StringBuilder("S,1,");
+        while (longLine.length() < MappedLineReader.SLACK) {
+            longLine.append((char) ('0' + longLine.length() % 10));
+        }
+        String text = "R,1\n" + longLine + "\r\n" + longLine + longLine + "\nR,2";
+        File file = write(text);
+        List<String> whole = read(file, 0, text.length());
+        assertEquals(Arrays.asList("0:R,1", "4:" + longLine,
+                (6 + longLine.length()) + ":" + longLine + longLine,
+                (7 + 3 * longLine.length()) + ":R,2"), whole);
+        int[] splits = {1, 5, 6, longLine.length(), longLine.length() + 5,
+            longLine.length() + 6, longLine.length() + 7, 2 * longLine.length(),
+            3 * longLine.length() + 6, 3 * longLine.length() + 7, text.length() - 1};
+        for (int split : splits) {
+            List<String> lines = new ArrayList<String>(read(file, 0, split));
+            lines.addAll(read(file, split, text.length()));
+            assertEquals("Split at byte " + split, whole, lines);
+        }
+    }
+
+    private File write(String text) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    /**
+     * Read the lines of a split, as "offset:line".
+     */
+    private static List<String> read(File file, long start, long end) throws IOException {
+        MappedLineReader reader = new MappedLineReader(file, start, end);
+        List<String> lines = new ArrayList<String>();
+        while (reader.next()) {
+            lines.add(reader.getOffset() + ":"
+                    + new String(reader.getBytes(), 0, reader.getLength(), StandardCharsets.US_ASCII));
+        }
+        return lines;
+    }
+}
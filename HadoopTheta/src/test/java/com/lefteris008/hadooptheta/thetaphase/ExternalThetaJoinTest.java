@@ -0,0 +1,126 @@
+package com.lefteris008.hadooptheta.thetaphase;
+
+import com.lefteris008.hadooptheta.io.AggregateWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks the ExternalThetaJoin against the in-memory ThetaJoinKernel, with a
+ * capacity small enough for every region to be spilled to several runs.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2230
+ */
+public class ExternalThetaJoinTest {
+
+    private static final int CAPACITY = 16;
+    private static final int BAND = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void joinsLikeTheKernelForEveryPredicateAndAggregate() throws Exception {
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            for (ThetaAggregate aggregate : ThetaAggregate.values()) {
+                check(new ThetaQuery(predicate, BAND, aggregate, ThetaQuery.DEFAULT_FILTER));
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheRunsOfTheRegionUntilItIsCleared() throws Exception {
+        ExternalThetaJoin external = new ExternalThetaJoin(folder.newFolder(), CAPACITY);
+        try {
+            external.clear(new ThetaQuery(ThetaPredicate.LT, 0, ThetaAggregate.SUM, 0));
+            for (int i = 0; i < 10 * CAPACITY; i++) {
+                external.addS(i, i);
+            }
+            assertEquals(10, external.getRuns());
+            assertEquals(10 * CAPACITY, external.getSpilledTuples());
+
+            external.clear(new ThetaQuery(ThetaPredicate.LT, 0, ThetaAggregate.SUM, 0));
+            assertEquals(0, external.getRuns());
+        } finally {
+            external.close();
+        }
+    }
+
+    /**
+     * Join the same random region with both joins and compare the
+     * semi-aggregates of every R.a attribute.
+     */
+    private void check(ThetaQuery query) throws IOException, InterruptedException {
+        Random random = new Random(query.toString().hashCode());
+        ExternalThetaJoin external = new ExternalThetaJoin(folder.newFolder(), CAPACITY);
+        ThetaJoinKernel kernel = new ThetaJoinKernel();
+        TreeMap<Integer, Long> multiplicities = new TreeMap<Integer, Long>();
+        try {
+            external.clear(query);
+            for (int i = 0; i < 400; i++) {
+                //Both relations are interleaved, as they arrive at a reducer
+                if (random.nextBoolean()) {
+                    int a = random.nextInt(60) - 20;
+                    long x = random.nextInt(2001) - 1000;
+                    external.addS(a, x);
+                    kernel.add(a, x);
+                } else {
+                    int a = random.nextInt(60) - 20;
+                    long multiplicity = 1 + random.nextInt(3);
+                    external.addR(a, multiplicity);
+                    Long previous = multiplicities.get(a);
+                    multiplicities.put(a, (previous == null ? 0 : previous) + multiplicity);
+                }
+            }
+            assertTrue(query + " was not spilled", external.getRuns() > 2);
+
+            final Map<Integer, AggregateWritable> actual = new TreeMap<Integer, AggregateWritable>();
+            external.join((rA, aggregate) -> {
+                AggregateWritable merged = actual.get(rA);
+                if (merged == null) {
+                    merged = new AggregateWritable(aggregate.getFunction());
+                    actual.put(rA, merged);
+                }
+                merged.merge(aggregate);
+            });
+
+            int sizeOfR = multiplicities.size();
+            int[] tuplesFromR = new int[sizeOfR];
+            long[] multiplicityOfR = new long[sizeOfR];
+            AggregateWritable[] results = new AggregateWritable[sizeOfR];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : multiplicities.entrySet()) {
+                tuplesFromR[i] = entry.getKey();
+                multiplicityOfR[i] = entry.getValue();
+                results[i] = new AggregateWritable();
+                i++;
+            }
+            kernel.build(query.getAggregate());
+            kernel.locate(query.getPredicate(), query.getBand(), tuplesFromR, sizeOfR);
+            kernel.aggregate(query.getAggregate(), multiplicityOfR, 0, sizeOfR, results, 0,
+                    kernel.new Window());
+
+            assertEquals(query.toString(), multiplicities.keySet(), actual.keySet());
+            for (i = 0; i < sizeOfR; i++) {
+                assertEquals(query + ", R.a = " + tuplesFromR[i], results[i].toPartialString(),
+                        actual.get(tuplesFromR[i]).toPartialString());
+            }
+        } finally {
+            external.close();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.lefteris008.hadooptheta.thetaphase;
+
+import com.lefteris008.hadooptheta.io.RegionTupleKey;
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.util.Progress;
+import org.junit.Test;
+
+/**
+ * Runs ThetaJoinReduce outside of a Map/Reduce task (as the ReduceBenchmark
+ * does) and checks that a region is joined into the same output with one
+ * and with several threads, both when the tuples of the region are buffered
+ * and when they arrive sorted (secondary sort). The region has enough
+ * distinct R.a attributes for several rounds of chunks of every thread.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_2330
+ */
+public class ThetaJoinReduceTest {
+
+    private static final int TUPLES_OF_S = 20000;
+    private static final int TUPLES_OF_R = 60000;
+
+    @Test
+    public void bufferedRegionIsJoinedTheSameWithMoreThreads() throws Exception {
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            for (ThetaAggregate aggregate : ThetaAggregate.values()) {
+                assertEquals(predicate + ", " + aggregate,
+                        reduce(predicate, aggregate, false, 1),
+                        reduce(predicate, aggregate, false, 4));
+            }
+        }
+    }
+
+    @Test
+    public void sortedRegionIsJoinedTheSameWithMoreThreads() throws Exception {
+        for (ThetaPredicate predicate : ThetaPredicate.values()) {
+            for (ThetaAggregate aggregate : ThetaAggregate.values()) {
+                assertEquals(predicate + ", " + aggregate,
+                        reduce(predicate, aggregate, true, 1),
+                        reduce(predicate, aggregate, true, 4));
+            }
+        }
+    }
+
+    /**
+     * Join a random region and return its output, as "R.a,semi-aggregate".
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<String> reduce(ThetaPredicate predicate, ThetaAggregate aggregate,
+            boolean secondarySort, int threads) throws IOException, InterruptedException {
+        Random random = new Random(42);
+        List<TaggedTupleWritable> tuplesOfS = new ArrayList<TaggedTupleWritable>();
+        for (int i = 0; i < TUPLES_OF_S; i++) {
+            tuplesOfS.add(new TaggedTupleWritable(TaggedTupleWritable.S,
+                    random.nextInt(200000) - 100000, random.nextInt(2001) - 1000));
+        }
+        List<TaggedTupleWritable> tuplesOfR = new ArrayList<TaggedTupleWritable>();
+        for (int i = 0; i < TUPLES_OF_R; i++) {
+            tuplesOfR.add(new TaggedTupleWritable(TaggedTupleWritable.R,
+                    random.nextInt(200000) - 100000, 1 + random.nextInt(3)));
+        }
+        List<TaggedTupleWritable> values = new ArrayList<TaggedTupleWritable>();
+        WritableComparable<?> key;
+        if (secondarySort) {
+            //The S-tuples sorted by S.a, then the R-tuples sorted by R.a
+            Collections.sort(tuplesOfS, (a, b) -> Integer.compare(a.getJoinAttribute(),
+                    b.getJoinAttribute()));
+            Collections.sort(tuplesOfR, (a, b) -> Integer.compare(a.getJoinAttribute(),
+                    b.getJoinAttribute()));
+            values.addAll(tuplesOfS);
+            values.addAll(tuplesOfR);
+            RegionTupleKey regionKey = new RegionTupleKey();
+            regionKey.set(1, TaggedTupleWritable.S, tuplesOfS.get(0).getJoinAttribute());
+            key = regionKey;
+        } else {
+            values.addAll(tuplesOfS);
+            values.addAll(tuplesOfR);
+            Collections.shuffle(values, random);
+            key = new IntWritable(1);
+        }
+
+        Configuration conf = new Configuration(false);
+        conf.set(ThetaQuery.PREDICATE_KEY, predicate.getName());
+        conf.setInt(ThetaQuery.BAND_KEY, 50);
+        conf.set(ThetaQuery.AGGREGATE_KEY, aggregate.getName());
+        conf.setBoolean(ThetaJoinReduce.SECONDARY_SORT_KEY, secondarySort);
+        conf.setInt(ThetaJoinReduce.THREADS_KEY, threads);
+
+        TestReduce reducer = new TestReduce();
+        OutputWriter output = new OutputWriter();
+        Counters counters = new Counters();
+        ThetaJoinReduce.Context context = reducer.new Context(conf,
+                new TaskAttemptID("test", 1, false, 0, 0), new EmptyInput(),
+                counters.findCounter("test", "keys"), counters.findCounter("test", "values"),
+                output, null, new Reporter(),
+                (WritableComparator) WritableComparator.get(IntWritable.class),
+                (Class) IntWritable.class, TaggedTupleWritable.class);
+        reducer.open(context);
+        try {
+            reducer.reduce(key, values, context);
+        } finally {
+            reducer.close(context);
+        }
+        return output.records;
+    }
+
+    /**
+     * The ThetaJoinReduce, with its setup() and cleanup() open to the test.
+     */
+    private static final class TestReduce extends ThetaJoinReduce {
+
+        void open(Context context) throws IOException, InterruptedException {
+            setup(context);
+        }
+
+        void close(Context context) throws IOException, InterruptedException {
+            cleanup(context);
+        }
+    }
+
+    /**
+     * Keeps every output record as a String (the Reducer reuses its objects).
+     */
+    private static final class OutputWriter extends RecordWriter<IntWritable, Writable> {
+
+        private final List<String> records = new ArrayList<String>();
+
+        @Override
+        public void write(IntWritable key, Writable value) {
+            records.add(key + "," + value);
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) {
+            ///
+        }
+    }
+
+    /**
+     * A StatusReporter with counters that are kept in memory.
+     */
+    private static final class Reporter extends StatusReporter {
+
+        private final Counters counters = new Counters();
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+            ///
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+            ///
+        }
+    }
+
+    /**
+     * The input of a Reducer that has no records (the values are passed to
+     * reduce() directly).
+     */
+    private static final class EmptyInput implements RawKeyValueIterator {
+
+        @Override
+        public DataInputBuffer getKey() {
+            return null;
+        }
+
+        @Override
+        public DataInputBuffer getValue() {
+            return null;
+        }
+
+        @Override
+        public boolean next() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            ///
+        }
+
+        @Override
+        public Progress getProgress() {
+            return new Progress();
+        }
+    }
+}
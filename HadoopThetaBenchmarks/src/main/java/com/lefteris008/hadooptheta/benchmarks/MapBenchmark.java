@@ -0,0 +1,128 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.partitioner.MBucketPartitioning;
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinMap;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of ThetaJoinMap.map() per tuple (already parsed, as the
+ * ThetaJoinRecordReader passes it), including the serialization of its
+ * copies into an output buffer, for both partitionings and with and without
+ * the raw emit option. Half of the tuples come from S and half from R.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1930
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    private static final int TUPLES = 4096;
+
+    @Param({"uniform", "zipf"})
+    public String distribution;
+
+    @Param({"1bucket", "mbucket"})
+    public String partitioning;
+
+    @Param({"4", "64"})
+    public int reducers;
+
+    @Param({"false", "true"})
+    public boolean rawEmit;
+
+    private final TaggedTupleWritable[] tuples = new TaggedTupleWritable[TUPLES];
+    private final LongWritable[] offsets = new LongWritable[TUPLES];
+    private final BenchmarkMap mapper = new BenchmarkMap();
+    private ThetaJoinMap.Context context;
+
+    /**
+     * The ThetaJoinMap, with its setup() and map() open to the benchmark.
+     */
+    private static final class BenchmarkMap extends ThetaJoinMap {
+
+        void open(Context context) throws IOException, InterruptedException {
+            setup(context);
+        }
+
+        void mapTuple(LongWritable key, TaggedTupleWritable value, Context context)
+                throws IOException, InterruptedException {
+            map(key, value, context);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        TupleGenerator generator = new TupleGenerator(distribution, 100000, 42);
+        TaggedTupleWritable[] tuplesOfS = generator.tuplesOfS(TUPLES / 2);
+        TaggedTupleWritable[] tuplesOfR = generator.tuplesOfR(TUPLES / 2);
+        for (int i = 0; i < TUPLES; i++) {
+            tuples[i] = i % 2 == 0 ? tuplesOfS[i / 2] : tuplesOfR[i / 2];
+            offsets[i] = new LongWritable(16L * i);
+        }
+
+        Configuration conf = new Configuration();
+        conf.setBoolean(ThetaJoinMap.RAW_EMIT_KEY, rawEmit);
+        MatrixToReducerPartitioning mtr;
+        if (partitioning.equals("mbucket")) {
+            InputStatistics statistics = new InputStatistics(10000);
+            for (TaggedTupleWritable tuple : tuplesOfS) {
+                statistics.getS().add(tuple.getJoinAttribute());
+            }
+            for (TaggedTupleWritable tuple : tuplesOfR) {
+                statistics.getR().add(tuple.getJoinAttribute());
+            }
+            mtr = new MBucketPartitioning(statistics, reducers, 4 * reducers, new ThetaQuery(
+                    ThetaPredicate.LT, 0, ThetaAggregate.SUM, ThetaQuery.DEFAULT_FILTER));
+        } else {
+            mtr = new MatrixToReducerPartitioning(1000000, 1000000, reducers);
+        }
+        mtr.Partitioner();
+        mtr.storeInConfiguration(conf);
+
+        context = mapper.new Context(conf, new TaskAttemptID("benchmark", 1, true, 0, 0),
+                null, new TaskContexts.BufferWriter<WritableComparable<?>, TaggedTupleWritable>(),
+                null, new TaskContexts.Reporter(),
+                new FileSplit(new Path("file:/benchmark/input.csv"), 0, 16L * TUPLES, null));
+        mapper.open(context);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TUPLES)
+    public void map() throws IOException, InterruptedException {
+        for (int i = 0; i < TUPLES; i++) {
+            mapper.mapTuple(offsets[i], tuples[i], context);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import com.lefteris008.hadooptheta.partitioner.MBucketPartitioning;
+import com.lefteris008.hadooptheta.partitioner.MatrixToReducerPartitioning;
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.statsphase.InputStatistics;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the construction of the partitioning of the matrix (constructor
+ * and Partitioner()), which the driver does once per query:
+ * - the 1-Bucket-Theta partitioning versus |S|, |R| and r, and
+ * - the M-Bucket partitioning versus r and the distribution of the join
+ *   attributes (from the statistics of generated relations).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1930
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionerBenchmark {
+
+    @State(Scope.Thread)
+    public static class OneBucket {
+
+        @Param({"1000000", "100000000"})
+        public int sizeOfS;
+
+        @Param({"1000000", "100000000"})
+        public int sizeOfR;
+
+        @Param({"4", "64", "1024"})
+        public int reducers;
+    }
+
+    @State(Scope.Thread)
+    public static class MBucket {
+
+        //The tuples of every generated relation
+        private static final int TUPLES = 200000;
+
+        @Param({"uniform", "zipf", "sorted"})
+        public String distribution;
+
+        @Param({"4", "64"})
+        public int reducers;
+
+        private InputStatistics statistics;
+        private final ThetaQuery query = new ThetaQuery(
+                ThetaPredicate.LT, 0, ThetaAggregate.SUM, ThetaQuery.DEFAULT_FILTER);
+
+        @Setup
+        public void setup() {
+            TupleGenerator generator = new TupleGenerator(distribution, 100000, 42);
+            statistics = new InputStatistics(10000);
+            for (int a : generator.joinAttributes(TUPLES)) {
+                statistics.getS().add(a);
+            }
+            for (int a : generator.joinAttributes(TUPLES)) {
+                statistics.getR().add(a);
+            }
+        }
+    }
+
+    @Benchmark
+    public MatrixToReducerPartitioning oneBucket(OneBucket state) {
+        MatrixToReducerPartitioning mtr = new MatrixToReducerPartitioning(
+                state.sizeOfS, state.sizeOfR, state.reducers);
+        mtr.Partitioner();
+        return mtr;
+    }
+
+    @Benchmark
+    public MatrixToReducerPartitioning mBucket(MBucket state) {
+        MatrixToReducerPartitioning mtr = new MBucketPartitioning(state.statistics,
+                state.reducers, Math.min(2000, 4 * state.reducers), state.query);
+        mtr.Partitioner();
+        return mtr;
+    }
+}
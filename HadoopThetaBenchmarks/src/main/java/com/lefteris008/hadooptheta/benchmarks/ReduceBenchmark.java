@@ -0,0 +1,122 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.thetaphase.ThetaJoinReduce;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the join of a single region by ThetaJoinReduce.reduce() (the
+ * time of a region, from its tuples to the output of its semi-aggregates)
+ * for the join predicates with different search patterns (binary search for
+ * LT, the complement for NE and the two-pointer sweep for BAND), the SUM and
+ * the MIN aggregate, the distributions of the join attributes and with one
+ * or more threads per region.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1930
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReduceBenchmark {
+
+    @Param({"uniform", "zipf", "sorted"})
+    public String distribution;
+
+    @Param({"lt", "ne", "band"})
+    public String predicate;
+
+    @Param({"sum", "min"})
+    public String aggregate;
+
+    @Param({"100000"})
+    public int sizeOfS;
+
+    @Param({"100000"})
+    public int sizeOfR;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private final List<TaggedTupleWritable> values = new ArrayList<TaggedTupleWritable>();
+    private final IntWritable region = new IntWritable(1);
+    private final BenchmarkReduce reducer = new BenchmarkReduce();
+    private ThetaJoinReduce.Context context;
+
+    /**
+     * The ThetaJoinReduce, with its setup() and cleanup() open to the benchmark.
+     */
+    private static final class BenchmarkReduce extends ThetaJoinReduce {
+
+        void open(Context context) throws IOException, InterruptedException {
+            setup(context);
+        }
+
+        void close(Context context) throws IOException, InterruptedException {
+            cleanup(context);
+        }
+    }
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setup() throws IOException, InterruptedException {
+        //The tuples of the region, as the shuffle passes them (in any order)
+        TupleGenerator generator = new TupleGenerator(distribution, 1000000, 42);
+        values.addAll(Arrays.asList(generator.tuplesOfS(sizeOfS)));
+        values.addAll(Arrays.asList(generator.tuplesOfR(sizeOfR)));
+
+        Configuration conf = new Configuration();
+        conf.set(ThetaQuery.PREDICATE_KEY, predicate);
+        conf.setInt(ThetaQuery.BAND_KEY, 100);
+        conf.set(ThetaQuery.AGGREGATE_KEY, aggregate);
+        conf.setInt(ThetaJoinReduce.THREADS_KEY, threads);
+        Counters counters = new Counters();
+        context = reducer.new Context(conf, new TaskAttemptID("benchmark", 1, false, 0, 0),
+                new TaskContexts.EmptyInput(), counters.findCounter("benchmark", "keys"),
+                counters.findCounter("benchmark", "values"),
+                new TaskContexts.BufferWriter<IntWritable, Writable>(), null,
+                new TaskContexts.Reporter(), (WritableComparator) WritableComparator.get(
+                        IntWritable.class), (Class) IntWritable.class,
+                TaggedTupleWritable.class);
+        reducer.open(context);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        reducer.close(context);
+    }
+
+    @Benchmark
+    public void reduce() throws IOException, InterruptedException {
+        reducer.reduce((WritableComparable<?>) region, values, context);
+    }
+}
@@ -0,0 +1,134 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.Progress;
+
+/**
+ * The parts of the contexts of the Mapper and the Reducer that the
+ * benchmarks run them with, outside of a Map/Reduce task: a StatusReporter
+ * with in-memory counters, a RecordWriter that serializes the output like
+ * the output buffer of a task and an empty input of the Reducer (whose
+ * values are passed to reduce() directly).
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1930
+ */
+public final class TaskContexts {
+
+    private TaskContexts() {
+        ///
+    }
+
+    /**
+     * A StatusReporter with counters that are kept in memory.
+     */
+    public static final class Reporter extends StatusReporter {
+
+        private final Counters counters = new Counters();
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+            ///
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+            ///
+        }
+    }
+
+    /**
+     * A RecordWriter that serializes every key and value into a buffer, which
+     * is emptied when it exceeds 1MB, like the (sort) buffer of a map task.
+     */
+    public static final class BufferWriter<K extends Writable, V extends Writable>
+            extends RecordWriter<K, V> {
+
+        private static final int LIMIT = 1 << 20;
+
+        private final DataOutputBuffer buffer = new DataOutputBuffer(LIMIT + 4096);
+        private long records = 0;
+
+        @Override
+        public void write(K key, V value) throws IOException {
+            if (buffer.getLength() > LIMIT) {
+                buffer.reset();
+            }
+            if (key != null) {
+                key.write(buffer);
+            }
+            value.write(buffer);
+            records++;
+        }
+
+        /**
+         * Return the number of the written records.
+         * @return The number of records
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) {
+            ///
+        }
+    }
+
+    /**
+     * The input of a Reducer that has no records.
+     */
+    public static final class EmptyInput implements RawKeyValueIterator {
+
+        @Override
+        public DataInputBuffer getKey() {
+            return null;
+        }
+
+        @Override
+        public DataInputBuffer getValue() {
+            return null;
+        }
+
+        @Override
+        public boolean next() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            ///
+        }
+
+        @Override
+        public Progress getProgress() {
+            return new Progress();
+        }
+    }
+}
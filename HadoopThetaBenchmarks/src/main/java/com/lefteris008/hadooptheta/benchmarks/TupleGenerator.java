@@ -0,0 +1,115 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import com.lefteris008.hadooptheta.io.TaggedTupleWritable;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generator of synthetic S and R relations for the benchmarks. The join
+ * attributes are drawn from [FIRST, FIRST + range), so that they all pass
+ * the default filter of the query, with one of three distributions:
+ * - "uniform": every attribute is equally likely,
+ * - "zipf": the i-th attribute of the range has a probability proportional
+ *   to 1 / i^s (s = 1), so a few attributes hold most of the tuples (skew),
+ * - "sorted": uniform, but in ascending order (e.g. a clustered input).
+ * The generators are seeded, so every fork of a benchmark joins the same
+ * relations.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1930
+ */
+public final class TupleGenerator {
+
+    //The lowest join attribute (the first one that passes the default filter)
+    public static final int FIRST = ThetaQuery.DEFAULT_FILTER + 1;
+
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    private final String distribution;
+    private final int range;
+    private final Random random;
+    private double[] zipfCdf = null;
+
+    /**
+     * Parametrized constructor.
+     * @param distribution "uniform", "zipf" or "sorted"
+     * @param range The number of distinct join attributes
+     * @param seed The seed of the generator
+     */
+    public TupleGenerator(String distribution, int range, long seed) {
+        if (!distribution.equals("uniform") && !distribution.equals("zipf")
+                && !distribution.equals("sorted")) {
+            throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        this.distribution = distribution;
+        this.range = range;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generate the join attributes of a relation.
+     * @param size The number of tuples
+     * @return The join attributes, in the order of the distribution
+     */
+    public int[] joinAttributes(int size) {
+        int[] attributes = new int[size];
+        for (int i = 0; i < size; i++) {
+            attributes[i] = FIRST + (distribution.equals("zipf") ? zipf() : random.nextInt(range));
+        }
+        if (distribution.equals("sorted")) {
+            Arrays.sort(attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Generate the tuples of the S relation (S.x uniform in [0, 1000000)).
+     * @param size The number of tuples
+     * @return The S-tuples
+     */
+    public TaggedTupleWritable[] tuplesOfS(int size) {
+        int[] attributes = joinAttributes(size);
+        TaggedTupleWritable[] tuples = new TaggedTupleWritable[size];
+        for (int i = 0; i < size; i++) {
+            tuples[i] = new TaggedTupleWritable(TaggedTupleWritable.S, attributes[i],
+                    random.nextInt(1000000));
+        }
+        return tuples;
+    }
+
+    /**
+     * Generate the tuples of the R relation (with a multiplicity of 1).
+     * @param size The number of tuples
+     * @return The R-tuples
+     */
+    public TaggedTupleWritable[] tuplesOfR(int size) {
+        int[] attributes = joinAttributes(size);
+        TaggedTupleWritable[] tuples = new TaggedTupleWritable[size];
+        for (int i = 0; i < size; i++) {
+            tuples[i] = new TaggedTupleWritable(TaggedTupleWritable.R, attributes[i], 1L);
+        }
+        return tuples;
+    }
+
+    /**
+     * Draw a rank of the Zipf distribution by inverting its cumulative
+     * distribution with a binary search.
+     */
+    private int zipf() {
+        if (zipfCdf == null) {
+            zipfCdf = new double[range];
+            double sum = 0;
+            for (int i = 0; i < range; i++) {
+                sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+                zipfCdf[i] = sum;
+            }
+            for (int i = 0; i < range; i++) {
+                zipfCdf[i] /= sum;
+            }
+        }
+        int rank = Arrays.binarySearch(zipfCdf, random.nextDouble());
+        return Math.min(range - 1, rank >= 0 ? rank : -rank - 1);
+    }
+}
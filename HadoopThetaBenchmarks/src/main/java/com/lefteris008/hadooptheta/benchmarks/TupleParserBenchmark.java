@@ -0,0 +1,114 @@
+package com.lefteris008.hadooptheta.benchmarks;
+
+import com.lefteris008.hadooptheta.query.ThetaAggregate;
+import com.lefteris008.hadooptheta.query.ThetaPredicate;
+import com.lefteris008.hadooptheta.query.ThetaQuery;
+import com.lefteris008.hadooptheta.utilities.TupleParser;
+import com.lefteris008.hadooptheta.utilities.Utilities;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the parsing of the input lines with Utilities.extractTupleFromLine
+ * (and Integer/Long.parseLong) against the TupleParser, with and without
+ * applying the filter of the query before parsing the S.x attribute (as the
+ * ThetaJoinRecordReader does). The time is reported per line.
+ *
+ * @author Lefteris Paraskevas
+ * @author Alexandros Tzanakas
+ * @version 2026.10.17_1530
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TupleParserBenchmark {
+
+    private static final int LINES = 4096;
+
+    //The fraction of the lines whose join attribute passes the filter
+    @Param({"0.1", "0.9"})
+    public double selectivity;
+
+    private final Text[] lines = new Text[LINES];
+    private final TupleParser parser = new TupleParser();
+    private final ThetaQuery query = new ThetaQuery(
+            ThetaPredicate.LT, 0, ThetaAggregate.SUM, ThetaQuery.DEFAULT_FILTER);
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < LINES; i++) {
+            boolean selected = random.nextDouble() < selectivity;
+            int a = selected
+                    ? ThetaQuery.DEFAULT_FILTER + 2 + random.nextInt(1000000)
+                    : random.nextInt(ThetaQuery.DEFAULT_FILTER + 1);
+            String line = random.nextBoolean()
+                    ? "S," + a + "," + random.nextInt(1000000)
+                    : "R," + a;
+            lines[i] = new Text(line);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    @SuppressWarnings("deprecation")
+    public void extractTupleFromLine(Blackhole blackhole) {
+        for (Text line : lines) {
+            List<String> tuple = Utilities.extractTupleFromLine(line.toString());
+            int a = Integer.parseInt(tuple.get(1));
+            if (tuple.get(0).equals("S")) {
+                if (query.selectsS(a)) {
+                    blackhole.consume(Long.parseLong(tuple.get(2)));
+                }
+            } else if (query.selectsR(a)) {
+                blackhole.consume(a);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void tupleParser(Blackhole blackhole) {
+        for (Text line : lines) {
+            if (parser.parse(line)) {
+                int a = parser.getJoinAttribute();
+                if (parser.isFromS() ? query.selectsS(a) : query.selectsR(a)) {
+                    blackhole.consume(parser.getPayload());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void tupleParserFilterFirst(Blackhole blackhole) {
+        for (Text line : lines) {
+            if (parser.parseJoinAttribute(line.getBytes(), 0, line.getLength())) {
+                int a = parser.getJoinAttribute();
+                if ((parser.isFromS() ? query.selectsS(a) : query.selectsR(a))
+                        && parser.parseRemainder()) {
+                    blackhole.consume(parser.getPayload());
+                }
+            }
+        }
+    }
+}